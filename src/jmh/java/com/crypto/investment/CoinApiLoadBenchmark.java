@@ -0,0 +1,90 @@
+package com.crypto.investment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of the coin API running on platform threads and on virtual threads. Every JMH thread
+ * is a client issuing blocking requests against the embedded Tomcat, so that the concurrency is
+ * higher than the default Tomcat pool of 200 threads. Throughput is reported per second, latency
+ * percentiles (p50, p90, p99, ...) by the sample time mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(512)
+@Fork(1)
+public class CoinApiLoadBenchmark {
+
+  @Param({"false", "true"})
+  private boolean virtualThreads;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient client;
+  private HttpRequest infoRequest;
+  private HttpRequest maxRequest;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(CryptoInvestmentApplication.class)
+        .run(
+            "--spring.threads.virtual.enabled=" + virtualThreads,
+            "--server.port=0",
+            "--rate.limit.per.window=2000000",
+            "--rate.limit.time.window=1000",
+            // measure the loaded application, not the 503s of a running ingest
+            "--ingest.background.enabled=false",
+            "--logging.level.root=WARN");
+    String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+        + "/api/v1/coin";
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    infoRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/info/BTC")).build();
+    maxRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/max/01-01-2022")).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    context.close();
+  }
+
+  @Benchmark
+  public int info() throws IOException, InterruptedException {
+    return send(infoRequest);
+  }
+
+  @Benchmark
+  public int maxNormalizedRange() throws IOException, InterruptedException {
+    return send(maxRequest);
+  }
+
+  private int send(HttpRequest request) throws IOException, InterruptedException {
+    HttpResponse<Void> response = client.send(request, BodyHandlers.discarding());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("Unexpected status " + response.statusCode());
+    }
+    return response.statusCode();
+  }
+}
@@ -0,0 +1,144 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.coin.model.CoinInfoDto;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.DataVersion;
+import com.crypto.investment.price.persistence.PriceBatchWriter;
+import com.crypto.investment.utils.EpochMillis;
+import com.crypto.investment.utils.SyntheticPrices;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Measures the three {@link CoinInfoRepository} queries against an in-memory H2 database of
+ * different sizes. A single connection is reused, as the pool would in the application. H2 is told
+ * not to hand out the previous result of a repeated query, so that the query itself is measured
+ * and not H2's result cache.
+ * <p>
+ * With {@code readModels} every write listener is fed with the rows, as in the application, where
+ * the coin information comes from the {@link CoinAggregates} and the coin with the highest
+ * normalized range of a day from the {@link DailyRanges} with any backend. Only the ranking of all
+ * coins then depends on the backend. Without {@code readModels} only the {@link CoinPriceStore} of
+ * the {@code memory} and {@code compressed} backends is fed, so that every query measures the
+ * backend alone, and with the {@code sql} backend goes to the price table.
+ * <p>
+ * Without {@code cached} the data version is incremented before every ranking query, so that the
+ * {@link CoinRankingCache} misses and the backend is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CoinInfoRepositoryBenchmark {
+
+  private static final int CHUNK_SIZE = 10_000;
+
+  @Param({"10000", "100000", "1000000"})
+  private int rows;
+
+  @Param({"sql", "memory", "compressed"})
+  private String backend;
+
+  @Param({"true", "false"})
+  private boolean cached;
+
+  @Param({"true", "false"})
+  private boolean readModels;
+
+  private SingleConnectionDataSource dataSource;
+  private DataVersion dataVersion;
+  private CoinInfoRepository coinInfoRepository;
+  private LocalDate date;
+
+  @Setup
+  public void setUp() {
+    dataSource = new SingleConnectionDataSource("jdbc:h2:mem:benchmark;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "", true);
+    new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    CoinRepository coinRepository = new CoinRepository(jdbcTemplate);
+
+    CoinPriceStore coinPriceStore = new CoinPriceStore(backend, readModels);
+    CoinAggregates coinAggregates = new CoinAggregates();
+    DailyRanges dailyRanges = new DailyRanges();
+    Random random = new Random(42);
+    List<Object[]> batch = new ArrayList<>(CHUNK_SIZE);
+    List<PriceDto> chunk = new ArrayList<>(CHUNK_SIZE);
+    for (int i = 0; i < rows; i++) {
+      long epochMillis = SyntheticPrices.START + i * SyntheticPrices.STEP;
+      BigDecimal price = BigDecimal.valueOf(1_000_000 + random.nextInt(5_000_000), 2);
+      String coin = SyntheticPrices.coin(i);
+      batch.add(new Object[]{new Timestamp(epochMillis), FixedPointPrice.of(price),
+          coinRepository.addCoin(coin)});
+      chunk.add(new PriceDto(EpochMillis.toLocalDateTime(epochMillis), coin, price));
+      if (batch.size() == CHUNK_SIZE || i == rows - 1) {
+        jdbcTemplate.batchUpdate(PriceBatchWriter.INSERT_PRICE, batch);
+        coinPriceStore.onPricesWritten(chunk);
+        if (readModels) {
+          coinAggregates.onPricesWritten(chunk);
+          dailyRanges.onPricesWritten(chunk);
+        }
+        batch.clear();
+        chunk.clear();
+      }
+    }
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    dataVersion = new DataVersion();
+    coinInfoRepository = new CoinInfoRepository(jdbcTemplate, coinRepository, coinPriceStore,
+        coinAggregates, dailyRanges, new CandleRollups(),
+        new CoinRankingCache(1024, dataVersion, meterRegistry), meterRegistry);
+    date = LocalDate.of(2022, Month.JANUARY, 2);
+  }
+
+  @TearDown
+  public void tearDown() {
+    new JdbcTemplate(dataSource).execute("drop all objects");
+    dataSource.destroy();
+  }
+
+  @Benchmark
+  public CoinInfoDto getCoinInfoByCoin() {
+    return coinInfoRepository.getCoinInfoByCoin("BTC");
+  }
+
+  @Benchmark
+  public List<String> getCoinListSortedByNormalizedRange() {
+    if (!cached) {
+      dataVersion.increment();
+    }
+    return coinInfoRepository.getCoinListSortedByNormalizedRange();
+  }
+
+  @Benchmark
+  public String getCoinWithMaxNormalizedRange() {
+    if (!cached) {
+      dataVersion.increment();
+    }
+    return coinInfoRepository.getCoinWithMaxNormalizedRange(date);
+  }
+}
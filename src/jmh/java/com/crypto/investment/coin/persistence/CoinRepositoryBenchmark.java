@@ -0,0 +1,57 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.utils.SyntheticPrices;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CoinRepository#containsCoin} for a registered and an unknown coin, as called
+ * for every request and every ingested row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinRepositoryBenchmark {
+
+  private CoinRepository coinRepository;
+
+  // not constants, so that the lookups are not folded
+  private String knownCoin = "DOGE";
+  private String knownCoinInLowerCase = "doge";
+  private String unknownCoin = "SHIB";
+
+  @Setup
+  public void setUp() {
+    coinRepository = new CoinRepository();
+    for (String coin : SyntheticPrices.COINS) {
+      coinRepository.addCoin(coin);
+    }
+  }
+
+  @Benchmark
+  public boolean containsKnownCoin() {
+    return coinRepository.containsCoin(knownCoin);
+  }
+
+  @Benchmark
+  public boolean containsKnownCoinIgnoringCase() {
+    return coinRepository.containsCoin(knownCoinInLowerCase);
+  }
+
+  @Benchmark
+  public boolean containsUnknownCoin() {
+    return coinRepository.containsCoin(unknownCoin);
+  }
+}
@@ -0,0 +1,77 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.utils.SyntheticPrices;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the {@link VectorPriceReductions} with the {@link ScalarPriceReductions} on a series of
+ * minute prices. {@code lowerBound} scans to the last minute of the series, {@code forEachDay}
+ * splits the series into its 1440 minute days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceReductionsBenchmark {
+
+  @Param({"100000", "10000000"})
+  private int rows;
+
+  @Param({"scalar", "vector"})
+  private String implementation;
+
+  private PriceReductions reductions;
+  private long[] timestamps;
+  private long[] prices;
+
+  @Setup
+  public void setUp() {
+    reductions = "vector".equals(implementation) ? new VectorPriceReductions()
+        : new ScalarPriceReductions();
+    Random random = new Random(42);
+    timestamps = new long[rows];
+    prices = new long[rows];
+    for (int i = 0; i < rows; i++) {
+      timestamps[i] = SyntheticPrices.START + i * SyntheticPrices.STEP;
+      prices[i] = random.nextLong(1, 5_000_000_000_000L);
+    }
+  }
+
+  @Benchmark
+  public long min() {
+    return reductions.min(prices, 0, rows);
+  }
+
+  @Benchmark
+  public long max() {
+    return reductions.max(prices, 0, rows);
+  }
+
+  @Benchmark
+  public int lowerBound() {
+    return reductions.lowerBound(timestamps, 0, rows, timestamps[rows - 1]);
+  }
+
+  @Benchmark
+  public void forEachDay(Blackhole blackhole) {
+    reductions.forEachDay(timestamps, prices, rows, (epochDay, from, to, min, max) -> {
+      blackhole.consume(min);
+      blackhole.consume(max);
+    });
+  }
+}
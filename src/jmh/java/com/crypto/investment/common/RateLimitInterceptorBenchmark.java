@@ -0,0 +1,69 @@
+package com.crypto.investment.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Measures {@link RateLimitInterceptor#preHandle} under contention: all benchmark threads either
+ * share one client address, so that they update the same counter, or use an address each. The
+ * limit is high enough for most requests to be accepted, the rest take the 429 path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class RateLimitInterceptorBenchmark {
+
+  @Param({"true", "false"})
+  private boolean sharedClient;
+
+  private RateLimitInterceptor rateLimitInterceptor;
+  private final AtomicInteger nextClient = new AtomicInteger();
+
+  @Setup
+  public void setUp() throws Exception {
+    RateLimiter rateLimiter = new RateLimiter(1_000_000, 1_000, 100_000);
+    rateLimitInterceptor = new RateLimitInterceptor(rateLimiter, new ObjectMapper(),
+        new SimpleMeterRegistry());
+  }
+
+  /**
+   * The request of a single benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class Client {
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp(RateLimitInterceptorBenchmark benchmark) {
+      request = new MockHttpServletRequest("GET", "/api/v1/coin/range");
+      request.setRemoteAddr(benchmark.sharedClient ? "10.0.0.1"
+          : "10.0.1." + benchmark.nextClient.incrementAndGet());
+    }
+  }
+
+  @Benchmark
+  public boolean preHandle(Client client) throws Exception {
+    return rateLimitInterceptor.preHandle(client.request, new MockHttpServletResponse(), null);
+  }
+}
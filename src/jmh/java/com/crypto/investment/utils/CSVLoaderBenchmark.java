@@ -0,0 +1,75 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.crypto.investment.price.model.PriceDto;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Measures {@link CSVLoader#loadFromCSVFile} and {@link CSVLoader#parseTimestamp} on synthetic
+ * files of 10^4 to 10^7 rows. The files are written to a temporary directory once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CSVLoaderBenchmark {
+
+  @Param({"10000", "100000", "1000000", "10000000"})
+  private int rows;
+
+  private Path file;
+  private String[] timestamps;
+  private CSVLoader csvLoader;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("prices", ".csv");
+    SyntheticPrices.write(file, rows);
+    timestamps = new String[rows];
+    for (int i = 0; i < rows; i++) {
+      timestamps[i] = Long.toString(SyntheticPrices.START + i * SyntheticPrices.STEP);
+    }
+    csvLoader = new CSVLoader(null, new CoinRepository(), null, null, null, null,
+        new SimpleMeterRegistry());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public List<PriceDto> loadFromCSVFile() {
+    return csvLoader.loadFromCSVFile(new FileSystemResource(file));
+  }
+
+  @Benchmark
+  public void parseTimestamp(Blackhole blackhole) {
+    for (String timestamp : timestamps) {
+      LocalDateTime dateTime = csvLoader.parseTimestamp(timestamp);
+      blackhole.consume(dateTime);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the commons-csv path of {@link CSVLoader} with the {@link PriceLineParser} on a file in
+ * the {@code *_values.csv} layout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceParserBenchmark {
+
+  @Param({"100000"})
+  private int rows;
+
+  private byte[] content;
+  private CSVLoader csvLoader;
+
+  @Setup
+  public void setUp() {
+    content = SyntheticPrices.csv(rows).getBytes(StandardCharsets.US_ASCII);
+    csvLoader = new CSVLoader(null, new CoinRepository(), null, null, null, null,
+        new SimpleMeterRegistry());
+  }
+
+  @Benchmark
+  public void commonsCsv(Blackhole blackhole) throws IOException {
+    csvLoader.streamWithCommonsCsv(
+        new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8), 1000,
+        blackhole::consume);
+  }
+
+  @Benchmark
+  public void lineParser(Blackhole blackhole) throws IOException {
+    csvLoader.streamWithLineParser(new ByteArrayInputStream(content), 1000, blackhole::consume);
+  }
+
+  @Benchmark
+  public void lineParserPrimitives(Blackhole blackhole) throws IOException {
+    new PriceLineParser().parse(new ByteArrayInputStream(content),
+        (epochMillis, coin, unscaledPrice, scale) -> {
+          blackhole.consume(epochMillis);
+          blackhole.consume(unscaledPrice);
+        });
+  }
+}
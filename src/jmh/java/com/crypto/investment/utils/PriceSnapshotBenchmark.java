@@ -0,0 +1,94 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.price.model.FixedPointPrice;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares loading the rows of a {@link PriceSnapshotStore} snapshot with parsing the same rows
+ * from a CSV file with the {@link PriceLineParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceSnapshotBenchmark {
+
+  @Param({"1000000"})
+  private int rows;
+
+  private Path dir;
+  private Path csvFile;
+  private List<Path> snapshotFiles;
+  private CSVLoader csvLoader;
+
+  @Setup
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("snapshot");
+    csvFile = dir.resolve("prices.csv");
+    SyntheticPrices.write(csvFile, rows);
+    csvLoader = new CSVLoader(null, new CoinRepository(), null, null, null, null,
+        new SimpleMeterRegistry());
+
+    Map<String, PriceSnapshotStore.Encoder> encoders = new HashMap<>();
+    try (InputStream in = Files.newInputStream(csvFile)) {
+      new PriceLineParser().parse(in, (epochMillis, coin, unscaledPrice, scale) ->
+          encoders.computeIfAbsent(coin, PriceSnapshotStore.Encoder::new)
+              .add(epochMillis, FixedPointPrice.of(unscaledPrice, scale)));
+    }
+    snapshotFiles = new ArrayList<>();
+    for (PriceSnapshotStore.Encoder encoder : encoders.values()) {
+      Path file = dir.resolve(PriceSnapshotStore.fileName(encoder.coin));
+      encoder.writeTo(file, 0, encoders.size());
+      snapshotFiles.add(file);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    for (Path file : snapshotFiles) {
+      Files.deleteIfExists(file);
+    }
+    Files.deleteIfExists(csvFile);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public void csv(Blackhole blackhole) throws IOException {
+    try (InputStream in = Files.newInputStream(csvFile)) {
+      csvLoader.streamWithLineParser(in, 1000, blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void snapshot(Blackhole blackhole) throws IOException {
+    for (Path file : snapshotFiles) {
+      PriceSnapshotStore.verify(file);
+      PriceSnapshotStore.read(file, 1000, blackhole::consume);
+    }
+  }
+}
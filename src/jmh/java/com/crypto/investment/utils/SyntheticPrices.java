@@ -0,0 +1,79 @@
+package com.crypto.investment.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates price files in the {@code timestamp,symbol,price} layout for the benchmarks. Rows are
+ * one minute apart and cycle through the coins, prices are random but reproducible.
+ */
+public final class SyntheticPrices {
+
+  /**
+   * The coins of the generated rows.
+   */
+  public static final String[] COINS = {"BTC", "ETH", "LTC", "XRP", "DOGE"};
+
+  /**
+   * The timestamp of the first row, 2022-01-01 04:00 UTC.
+   */
+  public static final long START = 1641009600000L;
+
+  /**
+   * The time between two rows in milliseconds.
+   */
+  public static final long STEP = 60_000L;
+
+  private SyntheticPrices() {
+  }
+
+  /**
+   * @param rows the number of rows
+   * @return the file content including the header line
+   */
+  public static String csv(int rows) {
+    StringBuilder builder = new StringBuilder(rows * 32);
+    try {
+      append(builder, rows);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes a file without holding its content in memory, for the large row counts.
+   *
+   * @param file the file to write
+   * @param rows the number of rows
+   * @throws IOException if the file could not be written
+   */
+  public static void write(Path file, int rows) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+      append(writer, rows);
+    }
+  }
+
+  /**
+   * @param row the index of a row
+   * @return the coin of the row
+   */
+  public static String coin(int row) {
+    return COINS[row % COINS.length];
+  }
+
+  private static void append(Appendable out, int rows) throws IOException {
+    Random random = new Random(42);
+    out.append("timestamp,symbol,price\n");
+    for (int i = 0; i < rows; i++) {
+      out.append(Long.toString(START + i * STEP)).append(',').append(coin(i)).append(',')
+          .append(Integer.toString(random.nextInt(50_000))).append('.')
+          .append(Integer.toString(10 + random.nextInt(90))).append('\n');
+    }
+  }
+}
@@ -20,10 +20,12 @@ public class AppConfiguration implements WebMvcConfigurer {
   }
 
   /**
-   * Adds {@link RateLimitInterceptor} to the request handling chain
+   * Adds {@link RateLimitInterceptor} to the request handling chain. The actuator endpoints are
+   * excluded, so that metrics scrapes do not use up the limit.
    */
   @Override
   public void addInterceptors(InterceptorRegistry registry) {
-    registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/**");
+    registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/**")
+        .excludePathPatterns("/actuator/**");
   }
 }
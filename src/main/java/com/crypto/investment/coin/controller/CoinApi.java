@@ -1,5 +1,6 @@
 package com.crypto.investment.coin.controller;
 
+import com.crypto.investment.coin.model.CandleDto;
 import com.crypto.investment.coin.model.CoinInfoDto;
 import com.crypto.investment.exception.ExceptionInformation;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,41 +11,69 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 @RequestMapping("api/v1/coin")
 @Tag(name = "Coin API", description = "Crypto recommendation api interface")
 public interface CoinApi {
 
   @Operation(summary = "Get Coin financial information", tags = {
-      "Coin API"}, description = "Get Coin financial information.  Calculates oldest/newest/min/max value for coin.")
+      "Coin API"}, description = "Get Coin financial information.  Calculates oldest/newest/min/max value for coin, optionally within the time window [from, to].")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Coin financial information successfully returned", content = @Content(schema = @Schema(implementation = CoinInfoDto.class))),
-      @ApiResponse(responseCode = "400", description = "Unsupported coin parameter", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
+      @ApiResponse(responseCode = "400", description = "Unsupported coin parameter or a window starting after its end", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
+      @ApiResponse(responseCode = "404", description = "The coin has no prices in the window", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
+      @ApiResponse(responseCode = "503", description = "The coin is still being loaded, retry after the seconds of the Retry-After header. Without Retry-After, the ingest has failed before the coin was completely loaded", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
       @ApiResponse(responseCode = "500", description = "General application error", content = @Content(schema = @Schema(implementation = ExceptionInformation.class)))})
   @GetMapping("/info/{coin}")
   CoinInfoDto getCoinInfo(
-      @PathVariable(name = "coin") @Parameter(name = "coin", description = "Coin name", example = "BTC") String coin);
+      @PathVariable(name = "coin") @Parameter(name = "coin", description = "Coin name", example = "BTC") String coin,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) @Parameter(name = "from", description = "The start of the window, inclusive", example = "2022-01-01T00:00:00") LocalDateTime from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) @Parameter(name = "to", description = "The end of the window, inclusive", example = "2022-01-15T00:00:00") LocalDateTime to);
 
   @Operation(summary = "Get list of Coin sorted by normalized range.", tags = {
-      "Coin API"}, description = "Get list of Coin sorted by normalized range.")
+      "Coin API"}, description = "Get list of Coin sorted by normalized range. Responses carry an ETag header, and a Last-Modified header once the prices have not changed for a second. Conditional requests are answered with 304 until new prices are loaded.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "List of Coins successfully returned"),
+      @ApiResponse(responseCode = "304", description = "The list has not changed since the request's If-None-Match or If-Modified-Since"),
+      @ApiResponse(responseCode = "503", description = "The prices are still being loaded, retry after the seconds of the Retry-After header. Without Retry-After, the ingest has failed and the rankings are not available", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
       @ApiResponse(responseCode = "500", description = "General application error", content = @Content(schema = @Schema(implementation = ExceptionInformation.class)))})
   @GetMapping("/range")
-  List<String> getCoinListNormalizedRange();
+  List<String> getCoinListNormalizedRange(@Parameter(hidden = true) WebRequest request);
 
   @Operation(summary = "Get Coin with the highest normalized range.", tags = {
-      "Coin API"}, description = "Get Coin with the highest normalized range for a specific day.")
+      "Coin API"}, description = "Get Coin with the highest normalized range for a specific day. Responses carry an ETag header, and a Last-Modified header once the prices have not changed for a second. Conditional requests are answered with 304 until new prices are loaded.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Coin successfully returned"),
+      @ApiResponse(responseCode = "304", description = "The coin has not changed since the request's If-None-Match or If-Modified-Since"),
+      @ApiResponse(responseCode = "404", description = "There are no prices on the day", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
+      @ApiResponse(responseCode = "503", description = "The prices are still being loaded, retry after the seconds of the Retry-After header. Without Retry-After, the ingest has failed and the rankings are not available", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
       @ApiResponse(responseCode = "500", description = "General application error", content = @Content(schema = @Schema(implementation = ExceptionInformation.class)))})
   @GetMapping("/max/{date}")
   String getCoinWithMaxNormalizedRange(
-      @PathVariable(name = "date") @DateTimeFormat(pattern = "dd-MM-yyyy") @Parameter(name = "date", description = "The day for which the calculation is made", example = "01-01-2022") LocalDate date);
+      @PathVariable(name = "date") @DateTimeFormat(pattern = "dd-MM-yyyy") @Parameter(name = "date", description = "The day for which the calculation is made", example = "01-01-2022") LocalDate date,
+      @Parameter(hidden = true) WebRequest request);
+
+  @Operation(summary = "Get OHLC candles of a Coin", tags = {
+      "Coin API"}, description = "Get open/high/low/close candles of a coin at an interval of 1h, 1d or 1w, optionally within the time window [from, to].")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Candles successfully returned"),
+      @ApiResponse(responseCode = "400", description = "Unsupported coin or interval parameter, or a window starting after its end", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
+      @ApiResponse(responseCode = "503", description = "The coin is still being loaded, retry after the seconds of the Retry-After header. Without Retry-After, the ingest has failed before the coin was completely loaded", content = @Content(schema = @Schema(implementation = ExceptionInformation.class))),
+      @ApiResponse(responseCode = "500", description = "General application error", content = @Content(schema = @Schema(implementation = ExceptionInformation.class)))})
+  @GetMapping("/candles/{coin}")
+  List<CandleDto> getCandles(
+      @PathVariable(name = "coin") @Parameter(name = "coin", description = "Coin name", example = "BTC") String coin,
+      @RequestParam(name = "interval", defaultValue = "1d") @Parameter(name = "interval", description = "The candle interval: 1h, 1d or 1w", example = "1d") String interval,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) @Parameter(name = "from", description = "The start of the window, inclusive", example = "2022-01-01T00:00:00") LocalDateTime from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) @Parameter(name = "to", description = "The end of the window, inclusive", example = "2022-01-31T00:00:00") LocalDateTime to);
 
 }
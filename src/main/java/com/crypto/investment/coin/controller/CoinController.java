@@ -1,13 +1,25 @@
 package com.crypto.investment.coin.controller;
 
+import com.crypto.investment.coin.model.CandleDto;
+import com.crypto.investment.coin.model.CandleInterval;
 import com.crypto.investment.coin.model.CoinInfoDto;
 import com.crypto.investment.coin.persistence.CoinInfoRepository;
 import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.exception.BadRequestException;
+import com.crypto.investment.exception.DataNotReadyException;
+import com.crypto.investment.exception.DataUnavailableException;
+import com.crypto.investment.exception.NoPricesFoundException;
 import com.crypto.investment.exception.NotSupportedCoinException;
+import com.crypto.investment.price.persistence.DataVersion;
+import com.crypto.investment.utils.IngestProgress;
+import com.crypto.investment.utils.IngestProgress.Status;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Spring REST controller that handles requests related to cryptocurrency data.
@@ -15,6 +27,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class CoinController implements CoinApi {
 
+  /**
+   * The granularity of the {@code Last-Modified} header in milliseconds.
+   */
+  private static final long LAST_MODIFIED_GRANULARITY = 1000;
+
   /**
    * The {@link CoinInfoRepository} used to access coin information from the database.
    */
@@ -25,57 +42,180 @@ public class CoinController implements CoinApi {
    */
   private final CoinRepository coinRepository;
 
+  /**
+   * The {@link DataVersion} the validators of the ranking responses are derived from.
+   */
+  private final DataVersion dataVersion;
+
+  /**
+   * The {@link IngestProgress} telling which coins are completely loaded.
+   */
+  private final IngestProgress ingestProgress;
+
   @Autowired
-  public CoinController(CoinInfoRepository coinInfoRepository, CoinRepository coinRepository) {
+  public CoinController(CoinInfoRepository coinInfoRepository, CoinRepository coinRepository,
+      DataVersion dataVersion, IngestProgress ingestProgress) {
     this.coinInfoRepository = coinInfoRepository;
     this.coinRepository = coinRepository;
+    this.dataVersion = dataVersion;
+    this.ingestProgress = ingestProgress;
   }
 
   /**
-   * Retrieves detailed information about a specific coin. If the coin is not supported, a
-   * {@link NotSupportedCoinException} is thrown.
+   * Retrieves detailed information about a specific coin, over its whole history or within a time
+   * window. If the coin is not supported, a {@link NotSupportedCoinException} is thrown.
    *
    * @param coin The symbol of the coin for which information is requested.
+   * @param from The start of the window, inclusive, or {@code null} for no lower bound.
+   * @param to   The end of the window, inclusive, or {@code null} for no upper bound.
    * @return A {@link CoinInfoDto} object containing the coin's information.
    * @throws NotSupportedCoinException If the coin is not supported.
+   * @throws DataNotReadyException     If the coin is still being loaded.
+   * @throws DataUnavailableException  If the coin could not be loaded completely.
+   * @throws NoPricesFoundException    If the coin has no prices in the window.
    */
   @Override
-  public CoinInfoDto getCoinInfo(String coin) {
-    validateCoin(coin);
-    return coinInfoRepository.getCoinInfoByCoin(coin);
+  public CoinInfoDto getCoinInfo(String coin, LocalDateTime from, LocalDateTime to) {
+    String symbol = validateCoin(coin);
+    try {
+      if (from == null && to == null) {
+        return coinInfoRepository.getCoinInfoByCoin(symbol);
+      }
+      return coinInfoRepository.getCoinInfoByCoin(symbol, from, to);
+    } catch (EmptyResultDataAccessException e) {
+      throw new NoPricesFoundException("The coin: " + symbol + " has no prices in the window.");
+    }
   }
 
 
   /**
    * Retrieves a list of all supported coins, sorted by their normalized range in descending order.
    *
-   * @return A list of coin symbols ordered by their normalized range.
+   * @param request The request, checked for the validators of the current price data.
+   * @return A list of coin symbols ordered by their normalized range, or {@code null} for a 304
+   * response.
+   * @throws DataNotReadyException    If the prices are still being loaded.
+   * @throws DataUnavailableException If the prices could not be loaded completely.
    */
   @Override
-  public List<String> getCoinListNormalizedRange() {
+  public List<String> getCoinListNormalizedRange(WebRequest request) {
+    checkAllCoinsReady();
+    if (isNotModified(request)) {
+      return null;
+    }
     return coinInfoRepository.getCoinListSortedByNormalizedRange();
   }
 
   /**
    * Retrieves the coin with the maximum normalized range for a specified date.
    *
-   * @param date The date for which to find the coin with the maximum normalized range.
-   * @return The symbol of the coin with the maximum normalized range for the given date.
+   * @param date    The date for which to find the coin with the maximum normalized range.
+   * @param request The request, checked for the validators of the current price data.
+   * @return The symbol of the coin with the maximum normalized range for the given date, or
+   * {@code null} for a 304 response.
+   * @throws DataNotReadyException    If the prices are still being loaded.
+   * @throws DataUnavailableException If the prices could not be loaded completely.
+   * @throws NoPricesFoundException   If there are no prices on the date.
+   */
+  @Override
+  public String getCoinWithMaxNormalizedRange(LocalDate date, WebRequest request) {
+    checkAllCoinsReady();
+    if (isNotModified(request)) {
+      return null;
+    }
+    try {
+      return coinInfoRepository.getCoinWithMaxNormalizedRange(date);
+    } catch (EmptyResultDataAccessException e) {
+      throw new NoPricesFoundException("There are no prices on: " + date + ".");
+    }
+  }
+
+  /**
+   * Retrieves the OHLC candles of a coin at the given interval.
+   *
+   * @param coin     The symbol of the coin.
+   * @param interval The candle interval: {@code 1h}, {@code 1d} or {@code 1w}.
+   * @param from     The start of the window, inclusive, or {@code null} for no lower bound.
+   * @param to       The end of the window, inclusive, or {@code null} for no upper bound.
+   * @return The candles in ascending order of time.
+   * @throws NotSupportedCoinException If the coin is not supported.
+   * @throws BadRequestException       If the interval is not supported.
+   * @throws DataNotReadyException     If the coin is still being loaded.
+   * @throws DataUnavailableException  If the coin could not be loaded completely.
    */
   @Override
-  public String getCoinWithMaxNormalizedRange(LocalDate date) {
-    return coinInfoRepository.getCoinWithMaxNormalizedRange(date);
+  public List<CandleDto> getCandles(String coin, String interval, LocalDateTime from,
+      LocalDateTime to) {
+    String symbol = validateCoin(coin);
+    return coinInfoRepository.getCandles(symbol, CandleInterval.of(interval), from, to);
+  }
+
+  /**
+   * Sets the {@code ETag} and {@code Last-Modified} headers of the current {@link DataVersion} and
+   * checks them against the conditional headers of the request. The version is read before the
+   * response is computed, so a response never carries a newer version than its content.
+   * <p>
+   * {@code Last-Modified} has a granularity of one second, while the version changes with every
+   * written chunk. It is only sent once the last change is at least a second old, as any later
+   * change then falls into a later second. Before that the response is validated by its
+   * {@code ETag} alone, so that a client sending {@code If-Modified-Since} only does not get a stale
+   * 304 after a write within the same second.
+   *
+   * @param request The request.
+   * @return {@code true} if the client's copy is up to date and a 304 has been prepared.
+   */
+  private boolean isNotModified(WebRequest request) {
+    DataVersion.Version version = dataVersion.current();
+    if (System.currentTimeMillis() - version.lastModified() < LAST_MODIFIED_GRANULARITY) {
+      return request.checkNotModified(version.etag());
+    }
+    return request.checkNotModified(version.etag(), version.lastModified());
   }
 
   /**
-   * Validates whether a given coin symbol is supported by the system.
+   * Checks that the ingest is completed, as the rankings compare all coins. After a failed ingest
+   * they would be computed from partial data, so they are not served at all.
    *
-   * @param coin The symbol of the coin to validate.
+   * @throws DataNotReadyException    If the prices are still being loaded.
+   * @throws DataUnavailableException If the prices could not be loaded completely.
+   */
+  private void checkAllCoinsReady() {
+    if (ingestProgress.isCompleted()) {
+      return;
+    }
+    if (ingestProgress.getStatus() == Status.FAILED) {
+      throw new DataUnavailableException("The prices could not be loaded completely.");
+    }
+    throw new DataNotReadyException("The prices are still being loaded, please retry later.",
+        ingestProgress.getRetryAfterSeconds());
+  }
+
+  /**
+   * Validates whether a given coin symbol is supported by the system and completely loaded. While
+   * the ingest is running, a coin which is not known yet may still be loaded, so it is reported as
+   * not ready rather than as not supported. After a failed ingest, the coins which were not
+   * complete are reported as unavailable.
+   *
+   * @param coin The symbol of the coin to validate, in any case.
+   * @return The symbol of the coin as registered, e.g. {@code BTC} for {@code btc}.
    * @throws NotSupportedCoinException If the coin is not supported.
+   * @throws DataNotReadyException     If the coin is still being loaded.
+   * @throws DataUnavailableException  If the coin could not be loaded completely.
    */
-  private void validateCoin(String coin) {
-    if (!coinRepository.containsCoin(coin)) {
+  private String validateCoin(String coin) {
+    String symbol = coinRepository.getSymbol(coin);
+    if (!ingestProgress.isCoinReady(symbol != null ? symbol : coin)) {
+      if (ingestProgress.getStatus() == Status.FAILED) {
+        throw new DataUnavailableException(
+            "The coin: " + coin + " could not be loaded completely.");
+      }
+      throw new DataNotReadyException(
+          "The coin: " + coin + " is still being loaded, please retry later.",
+          ingestProgress.getRetryAfterSeconds());
+    }
+    if (symbol == null) {
       throw new NotSupportedCoinException("This coin: " + coin + " doesn't supported!");
     }
+    return symbol;
   }
 }
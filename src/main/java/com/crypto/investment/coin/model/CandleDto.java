@@ -0,0 +1,15 @@
+package com.crypto.investment.coin.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CandleDto(
+    @Schema(name = "time", description = "Start of the candle", example = "2022-01-01T00:00:00") LocalDateTime time,
+    @Schema(name = "open", description = "First price of the candle", example = "46813.21") BigDecimal open,
+    @Schema(name = "high", description = "Highest price of the candle", example = "47510.00") BigDecimal high,
+    @Schema(name = "low", description = "Lowest price of the candle", example = "46300.00") BigDecimal low,
+    @Schema(name = "close", description = "Last price of the candle", example = "47143.98") BigDecimal close,
+    @Schema(name = "count", description = "Number of prices in the candle", example = "24") long count) {
+
+}
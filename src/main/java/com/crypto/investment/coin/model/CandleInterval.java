@@ -0,0 +1,54 @@
+package com.crypto.investment.coin.model;
+
+import com.crypto.investment.exception.BadRequestException;
+import com.crypto.investment.utils.EpochMillis;
+
+/**
+ * The resolutions of the OHLC candles. Buckets are aligned to UTC, weeks start on Monday.
+ */
+public enum CandleInterval {
+
+  HOUR("1h", 60 * 60 * 1000L, 0),
+  DAY("1d", EpochMillis.DAY, 0),
+  // the epoch was a Thursday, so weeks starting on Monday are shifted by four days
+  WEEK("1w", 7 * EpochMillis.DAY, 4 * EpochMillis.DAY);
+
+  private final String code;
+  private final long length;
+  private final long offset;
+
+  CandleInterval(String code, long length, long offset) {
+    this.code = code;
+    this.length = length;
+    this.offset = offset;
+  }
+
+  /**
+   * @return the code used in requests, e.g. {@code 1h}
+   */
+  public String getCode() {
+    return code;
+  }
+
+  /**
+   * @param epochMillis a timestamp in milliseconds since the epoch
+   * @return the start of the bucket containing the timestamp
+   */
+  public long bucketStart(long epochMillis) {
+    return Math.floorDiv(epochMillis - offset, length) * length + offset;
+  }
+
+  /**
+   * @param code the code of an interval, e.g. {@code 1d}
+   * @return the interval
+   * @throws BadRequestException if the code is not supported
+   */
+  public static CandleInterval of(String code) {
+    for (CandleInterval interval : values()) {
+      if (interval.code.equalsIgnoreCase(code)) {
+        return interval;
+      }
+    }
+    throw new BadRequestException("Unsupported candle interval: " + code);
+  }
+}
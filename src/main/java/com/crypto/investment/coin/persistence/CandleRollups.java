@@ -0,0 +1,136 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.coin.model.CandleDto;
+import com.crypto.investment.coin.model.CandleInterval;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.PriceWriteListener;
+import com.crypto.investment.utils.EpochMillis;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Open/high/low/close candles of every coin at the resolutions of {@link CandleInterval},
+ * maintained from the prices written by the ingest. A chunk is first folded into hourly candles,
+ * which are then merged into the hourly, daily and weekly rollups, so the coarser levels are built
+ * from the finer ones and never from the raw prices. Every level is a sorted map per coin, so a
+ * query costs O(log n) plus the number of candles returned.
+ */
+@Component
+public class CandleRollups implements PriceWriteListener {
+
+  private final Map<String, Map<CandleInterval, ConcurrentNavigableMap<Long, Candle>>> candlesByCoin =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The prices of a coin within one bucket. The open and close prices are the prices with the
+   * oldest and newest timestamp of the bucket.
+   *
+   * @param openTime  The timestamp of the open price in milliseconds since the epoch.
+   * @param open      The fixed-point open price.
+   * @param high      The maximum fixed-point price.
+   * @param low       The minimum fixed-point price.
+   * @param closeTime The timestamp of the close price in milliseconds since the epoch.
+   * @param close     The fixed-point close price.
+   * @param count     The number of prices.
+   */
+  public record Candle(long openTime, long open, long high, long low, long closeTime, long close,
+                       long count) {
+
+    static Candle of(long timestamp, long price) {
+      return new Candle(timestamp, price, price, price, timestamp, price, 1);
+    }
+
+    Candle merge(Candle other) {
+      boolean earlier = other.openTime < openTime;
+      boolean later = other.closeTime >= closeTime;
+      return new Candle(earlier ? other.openTime : openTime, earlier ? other.open : open,
+          Math.max(high, other.high), Math.min(low, other.low),
+          later ? other.closeTime : closeTime, later ? other.close : close, count + other.count);
+    }
+
+    /**
+     * @param start the start of the bucket in milliseconds since the epoch
+     * @return the candle as {@link CandleDto}
+     */
+    public CandleDto toCandleDto(long start) {
+      return new CandleDto(EpochMillis.toLocalDateTime(start), FixedPointPrice.toBigDecimal(open),
+          FixedPointPrice.toBigDecimal(high), FixedPointPrice.toBigDecimal(low),
+          FixedPointPrice.toBigDecimal(close), count);
+    }
+  }
+
+  /**
+   * Folds the written prices into hourly candles and merges those into every level.
+   *
+   * @param prices The prices of the chunk.
+   */
+  @Override
+  public void onPricesWritten(List<PriceDto> prices) {
+    Map<String, Map<Long, Candle>> hourly = new HashMap<>();
+    for (PriceDto price : prices) {
+      long timestamp = EpochMillis.of(price.dateTime());
+      hourly.computeIfAbsent(price.coin(), k -> new HashMap<>())
+          .merge(CandleInterval.HOUR.bucketStart(timestamp),
+              Candle.of(timestamp, price.fixedPointPrice()), Candle::merge);
+    }
+    hourly.forEach((coin, candles) -> candles.forEach((start, candle) -> add(coin, start, candle)));
+  }
+
+  /**
+   * Drops the candles of all coins.
+   */
+  @Override
+  public void onPricesDeleted() {
+    candlesByCoin.clear();
+  }
+
+  /**
+   * Merges an hourly candle into the candles of every level.
+   *
+   * @param coin      The symbol of the coin.
+   * @param hourStart The start of the hour in milliseconds since the epoch.
+   * @param candle    The candle of new prices within that hour.
+   */
+  public void add(String coin, long hourStart, Candle candle) {
+    Map<CandleInterval, ConcurrentNavigableMap<Long, Candle>> levels =
+        candlesByCoin.computeIfAbsent(coin, k -> newLevels());
+    for (CandleInterval interval : CandleInterval.values()) {
+      levels.get(interval).merge(interval.bucketStart(hourStart), candle, Candle::merge);
+    }
+  }
+
+  /**
+   * Returns the candles of a coin whose buckets overlap the window {@code [from, to]}.
+   *
+   * @param coin     The symbol of the coin.
+   * @param interval The resolution of the candles.
+   * @param from     The start of the window in milliseconds since the epoch, inclusive.
+   * @param to       The end of the window in milliseconds since the epoch, inclusive.
+   * @return The candles in ascending order of time.
+   */
+  public List<CandleDto> getCandles(String coin, CandleInterval interval, long from, long to) {
+    Map<CandleInterval, ConcurrentNavigableMap<Long, Candle>> levels = candlesByCoin.get(coin);
+    if (levels == null || from > to) {
+      return List.of();
+    }
+    long first = from == Long.MIN_VALUE ? from : interval.bucketStart(from);
+    return levels.get(interval).subMap(first, true, to, true).entrySet()
+        .stream().map(e -> e.getValue().toCandleDto(e.getKey())).toList();
+  }
+
+  private static Map<CandleInterval, ConcurrentNavigableMap<Long, Candle>> newLevels() {
+    Map<CandleInterval, ConcurrentNavigableMap<Long, Candle>> levels =
+        new EnumMap<>(CandleInterval.class);
+    for (CandleInterval interval : CandleInterval.values()) {
+      levels.put(interval, new ConcurrentSkipListMap<>());
+    }
+    return levels;
+  }
+}
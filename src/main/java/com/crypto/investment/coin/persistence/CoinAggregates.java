@@ -0,0 +1,109 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.coin.model.CoinInfoDto;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.PriceWriteListener;
+import com.crypto.investment.utils.EpochMillis;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Running aggregates of every coin, maintained from the prices written by the ingest. Every
+ * aggregate is an immutable {@link CoinAggregate} replaced atomically, so readers never observe a
+ * partially applied chunk and {@link CoinInfoRepository#getCoinInfoByCoin(String)} is answered in
+ * constant time.
+ */
+@Component
+public class CoinAggregates implements PriceWriteListener {
+
+  private final Map<String, CoinAggregate> aggregates = new ConcurrentHashMap<>();
+
+  /**
+   * The aggregate of a coin.
+   *
+   * @param max    The maximum fixed-point price.
+   * @param min    The minimum fixed-point price.
+   * @param oldest The oldest price date in milliseconds since the epoch.
+   * @param newest The newest price date in milliseconds since the epoch.
+   * @param count  The number of prices.
+   */
+  public record CoinAggregate(long max, long min, long oldest, long newest, long count) {
+
+    /**
+     * @param other another aggregate of the same coin
+     * @return the aggregate of both
+     */
+    CoinAggregate merge(CoinAggregate other) {
+      return new CoinAggregate(Math.max(max, other.max), Math.min(min, other.min),
+          Math.min(oldest, other.oldest), Math.max(newest, other.newest), count + other.count);
+    }
+
+    /**
+     * @param coin the symbol of the coin
+     * @return the aggregate as {@link CoinInfoDto}
+     */
+    public CoinInfoDto toCoinInfoDto(String coin) {
+      return new CoinInfoDto(coin, FixedPointPrice.toBigDecimal(max),
+          FixedPointPrice.toBigDecimal(min), EpochMillis.toLocalDateTime(oldest),
+          EpochMillis.toLocalDateTime(newest));
+    }
+  }
+
+  /**
+   * Folds the written prices into the aggregates of their coins, one atomic update per coin and
+   * chunk.
+   *
+   * @param prices The prices of the chunk.
+   */
+  @Override
+  public void onPricesWritten(List<PriceDto> prices) {
+    int from = 0;
+    while (from < prices.size()) {
+      String coin = prices.get(from).coin();
+      long max = Long.MIN_VALUE;
+      long min = Long.MAX_VALUE;
+      long oldest = Long.MAX_VALUE;
+      long newest = Long.MIN_VALUE;
+      int to = from;
+      for (; to < prices.size() && prices.get(to).coin().equals(coin); to++) {
+        long price = prices.get(to).fixedPointPrice();
+        long timestamp = EpochMillis.of(prices.get(to).dateTime());
+        max = Math.max(max, price);
+        min = Math.min(min, price);
+        oldest = Math.min(oldest, timestamp);
+        newest = Math.max(newest, timestamp);
+      }
+      add(coin, new CoinAggregate(max, min, oldest, newest, to - from));
+      from = to;
+    }
+  }
+
+  /**
+   * Drops the aggregates of all coins.
+   */
+  @Override
+  public void onPricesDeleted() {
+    aggregates.clear();
+  }
+
+  /**
+   * Merges an aggregate into the aggregate of a coin.
+   *
+   * @param coin      The symbol of the coin.
+   * @param aggregate The aggregate of new prices of the coin.
+   */
+  public void add(String coin, CoinAggregate aggregate) {
+    aggregates.merge(coin, aggregate, CoinAggregate::merge);
+  }
+
+  /**
+   * @param coin The symbol of the coin.
+   * @return The aggregate of the coin, or {@code null} if no prices of the coin were written.
+   */
+  public CoinAggregate get(String coin) {
+    return aggregates.get(coin);
+  }
+}
@@ -1,43 +1,108 @@
 package com.crypto.investment.coin.persistence;
 
+import com.crypto.investment.coin.model.CandleDto;
+import com.crypto.investment.coin.model.CandleInterval;
 import com.crypto.investment.coin.model.CoinInfoDto;
-import java.math.BigDecimal;
+import com.crypto.investment.exception.BadRequestException;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.utils.EpochMillis;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 /**
  * Provides data access methods for retrieving and manipulating coin information from the database.
+ * If the {@code coin.info.backend} property is set to {@code memory} or {@code compressed}, the
+ * queries are answered from the {@link CoinPriceStore} instead. Coin information of coins loaded
+ * by the ingest is served from the running {@link CoinAggregates}, the coin with the highest
+ * normalized range of a day from the {@link DailyRanges} and candles from the
+ * {@link CandleRollups}.
+ * <p>
+ * The price table refers to coins by their id in the {@link CoinRepository}, so the SQL queries
+ * filter and group by a {@code smallint} and map the ids back to symbols.
+ * <p>
+ * Every query is timed in the {@code coin.query} metric, tagged with the query. The timers publish
+ * p50, p95 and p99 and a histogram, from which Prometheus computes the percentiles.
  */
 @Repository
 public class CoinInfoRepository {
 
   /**
    * SQL query to select the maximum and minimum price, oldest and newest price dates for a
-   * specified coin.
+   * specified coin id.
    */
-  public static final String SELECT_COIN_INFO = "select max(price) as maxPrice, min(price) as minPrice, min(price_date) as oldest, max(price_date) as newest from price where coin = ?";
+  public static final String SELECT_COIN_INFO = "select max(price) as maxPrice, min(price) as minPrice, min(price_date) as oldest, max(price_date) as newest from price where coin_id = ?";
   /**
-   * SQL query to select coins ordered by their normalized range, calculated as (max(price) -
-   * min(price)) / min(price).
+   * SQL query to select the maximum and minimum price, oldest and newest price dates for a
+   * specified coin id within the time window {@code [from, to]}.
+   */
+  public static final String SELECT_COIN_INFO_IN_WINDOW = "select max(price) as maxPrice, min(price) as minPrice, min(price_date) as oldest, max(price_date) as newest from price where coin_id = ? and price_date >= ? and price_date <= ?";
+  /**
+   * SQL query to select coin ids ordered by their normalized range, calculated as (max(price) -
+   * min(price)) / min(price). The fixed-point prices are cast to {@code decfloat}, as integer
+   * division would truncate the range.
+   */
+  public static final String SELECT_COIN_WITH_RANGE = "select coin_id from price group by coin_id order by cast(max(price) - min(price) as decfloat) / min(price) desc";
+  /**
+   * SQL query to select the coin id with the maximum normalized range for a specified day, given
+   * as the range {@code [start of day, start of next day)} so that the price date index is used.
    */
-  public static final String SELECT_COIN_WITH_RANGE = "select coin from price group by coin order by (max(price) - min(price)) / min(price) desc";
+  public static final String SELECT_COIN_WITH_MAX_RANGE = "select coin_id from price where price_date >= ? and price_date < ? group by coin_id order by cast(max(price) - min(price) as decfloat) / min(price) desc limit 1";
   /**
-   * SQL query to select the coin with the maximum normalized range for a specified date. The date
-   * format is 'dd-MM-yyyy'.
+   * The bounds used for an open end of a time window in the SQL query.
    */
-  public static final String SELECT_COIN_WITH_MAX_RANGE = "select coin from price where to_char(price_date,'dd-mm-yyyy')  = ? group by coin order by (max(price) - min(price)) / min(price) desc limit 1;";
+  private static final LocalDateTime MIN_DATE = LocalDateTime.of(1, 1, 1, 0, 0);
+  private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
-  private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
   private final JdbcTemplate jdbcTemplate;
+  private final CoinRepository coinRepository;
+  private final CoinPriceStore coinPriceStore;
+  private final CoinAggregates coinAggregates;
+  private final DailyRanges dailyRanges;
+  private final CandleRollups candleRollups;
+  private final CoinRankingCache coinRankingCache;
 
+  private final Timer coinInfoTimer;
+  private final Timer coinInfoInWindowTimer;
+  private final Timer coinListTimer;
+  private final Timer coinWithMaxRangeTimer;
+  private final Timer candlesTimer;
 
   @Autowired
-  public CoinInfoRepository(JdbcTemplate jdbcTemplate) {
+  public CoinInfoRepository(JdbcTemplate jdbcTemplate, CoinRepository coinRepository,
+      CoinPriceStore coinPriceStore, CoinAggregates coinAggregates, DailyRanges dailyRanges,
+      CandleRollups candleRollups, CoinRankingCache coinRankingCache,
+      MeterRegistry meterRegistry) {
     this.jdbcTemplate = jdbcTemplate;
+    this.coinRepository = coinRepository;
+    this.coinPriceStore = coinPriceStore;
+    this.coinAggregates = coinAggregates;
+    this.dailyRanges = dailyRanges;
+    this.candleRollups = candleRollups;
+    this.coinRankingCache = coinRankingCache;
+    this.coinInfoTimer = queryTimer(meterRegistry, "coin_info");
+    this.coinInfoInWindowTimer = queryTimer(meterRegistry, "coin_info_in_window");
+    this.coinListTimer = queryTimer(meterRegistry, "coin_list_sorted_by_normalized_range");
+    this.coinWithMaxRangeTimer = queryTimer(meterRegistry, "coin_with_max_normalized_range");
+    this.candlesTimer = queryTimer(meterRegistry, "candles");
+  }
+
+  private static Timer queryTimer(MeterRegistry meterRegistry, String query) {
+    return Timer.builder("coin.query")
+        .description("Latency of the coin queries")
+        .tag("query", query)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
   }
 
   /**
@@ -48,32 +113,152 @@ public class CoinInfoRepository {
    * @return A {@link CoinInfoDto} object containing the coin information.
    */
   public CoinInfoDto getCoinInfoByCoin(String coin) {
-    Object[] args = {coin};
+    return coinInfoTimer.record(() -> findCoinInfoByCoin(coin));
+  }
+
+  private CoinInfoDto findCoinInfoByCoin(String coin) {
+    CoinAggregates.CoinAggregate aggregate = coinAggregates.get(coin);
+    if (aggregate != null) {
+      return aggregate.toCoinInfoDto(coin);
+    }
+    if (coinPriceStore.isEnabled()) {
+      return coinPriceStore.getCoinInfo(coin);
+    }
+    Object[] args = {coinId(coin)};
     return jdbcTemplate.queryForObject(SELECT_COIN_INFO,
-        (rs, rowNum) -> new CoinInfoDto(coin, new BigDecimal(rs.getString("maxPrice")),
-            new BigDecimal(rs.getString("minPrice")), rs.getTimestamp("oldest").toLocalDateTime(),
-            rs.getTimestamp("newest").toLocalDateTime()), args);
+        (rs, rowNum) -> toCoinInfoDto(coin, rs), args);
   }
 
   /**
-   * Retrieves a list of all coins sorted by their normalized range in descending order.
+   * Retrieves information about a specific coin within a time window. The window is answered from
+   * the range index of the {@link CoinPriceStore}, which keeps the coins loaded by the ingest with
+   * every backend unless {@code coin.info.window.index} is off. Other coins are read from the price
+   * table through the coin and date index.
+   *
+   * @param coin The symbol of the coin to retrieve information for.
+   * @param from The start of the window, inclusive, or {@code null} for no lower bound.
+   * @param to   The end of the window, inclusive, or {@code null} for no upper bound.
+   * @return A {@link CoinInfoDto} object containing the coin information.
+   * @throws BadRequestException            if the window starts after it ends.
+   * @throws EmptyResultDataAccessException if there are no prices in the window.
+   */
+  public CoinInfoDto getCoinInfoByCoin(String coin, LocalDateTime from, LocalDateTime to) {
+    checkWindow(from, to);
+    return coinInfoInWindowTimer.record(() -> findCoinInfoByCoin(coin, from, to));
+  }
+
+  private CoinInfoDto findCoinInfoByCoin(String coin, LocalDateTime from, LocalDateTime to) {
+    if (coinPriceStore.isEnabled() || coinPriceStore.contains(coin)) {
+      return coinPriceStore.getCoinInfo(coin, from == null ? Long.MIN_VALUE : EpochMillis.of(from),
+          to == null ? Long.MAX_VALUE : EpochMillis.of(to));
+    }
+    Object[] args = {coinId(coin), Timestamp.valueOf(from == null ? MIN_DATE : from),
+        Timestamp.valueOf(to == null ? MAX_DATE : to)};
+    return jdbcTemplate.queryForObject(SELECT_COIN_INFO_IN_WINDOW,
+        (rs, rowNum) -> toCoinInfoDto(coin, rs), args);
+  }
+
+  /**
+   * @param coin The symbol of the coin.
+   * @return The id of the coin in the {@link CoinRepository}.
+   * @throws EmptyResultDataAccessException if the coin is unknown, so it has no prices.
+   */
+  private short coinId(String coin) {
+    short id = coinRepository.getId(coin);
+    if (id == CoinRepository.NOT_FOUND) {
+      throw new EmptyResultDataAccessException(1);
+    }
+    return id;
+  }
+
+  /**
+   * Maps a row of fixed-point prices and dates to a {@link CoinInfoDto}.
+   *
+   * @throws EmptyResultDataAccessException if the aggregates are empty, as no price matched.
+   */
+  private static CoinInfoDto toCoinInfoDto(String coin, ResultSet rs) throws SQLException {
+    if (rs.getObject("maxPrice") == null) {
+      throw new EmptyResultDataAccessException(1);
+    }
+    return new CoinInfoDto(coin, FixedPointPrice.toBigDecimal(rs.getLong("maxPrice")),
+        FixedPointPrice.toBigDecimal(rs.getLong("minPrice")),
+        rs.getTimestamp("oldest").toLocalDateTime(), rs.getTimestamp("newest").toLocalDateTime());
+  }
+
+  /**
+   * Retrieves a list of all coins sorted by their normalized range in descending order. The list is
+   * served from the {@link CoinRankingCache} until new prices are written.
    *
    * @return A list of coin symbols ordered by their normalized range.
    */
   public List<String> getCoinListSortedByNormalizedRange() {
-    return jdbcTemplate.query(SELECT_COIN_WITH_RANGE, (rs, rowNum) -> rs.getString("coin"));
+    return coinListTimer.record(
+        () -> coinRankingCache.getCoinList(this::findCoinListSortedByNormalizedRange));
+  }
+
+  private List<String> findCoinListSortedByNormalizedRange() {
+    if (coinPriceStore.isEnabled()) {
+      return coinPriceStore.getCoinsSortedByNormalizedRange();
+    }
+    return jdbcTemplate.query(SELECT_COIN_WITH_RANGE,
+        (rs, rowNum) -> coinRepository.getSymbol(rs.getShort("coin_id")));
   }
 
   /**
-   * Retrieves the coin with the maximum normalized range for a specified date.
+   * Retrieves the coin with the maximum normalized range for a specified date. Once prices have been
+   * ingested, the answer is looked up in the {@link DailyRanges}. Answers are served from the
+   * {@link CoinRankingCache} until new prices are written.
    *
    * @param dateTime The date for which to find the coin with the maximum normalized range.
    * @return The symbol of the coin with the maximum normalized range.
+   * @throws EmptyResultDataAccessException if there are no prices on that date.
    */
   public String getCoinWithMaxNormalizedRange(LocalDate dateTime) {
-    Object[] args = {dateTime.format(formatter)};
+    return coinWithMaxRangeTimer.record(() -> coinRankingCache.getCoinWithMaxRange(dateTime,
+        () -> findCoinWithMaxNormalizedRange(dateTime)));
+  }
+
+  private String findCoinWithMaxNormalizedRange(LocalDate dateTime) {
+    if (!dailyRanges.isEmpty()) {
+      return dailyRanges.getCoinWithMaxNormalizedRange(dateTime)
+          .orElseThrow(() -> new EmptyResultDataAccessException(1));
+    }
+    if (coinPriceStore.isEnabled()) {
+      return coinPriceStore.getCoinWithMaxNormalizedRange(dateTime);
+    }
+    Object[] args = {Timestamp.valueOf(dateTime.atStartOfDay()),
+        Timestamp.valueOf(dateTime.plusDays(1).atStartOfDay())};
     return jdbcTemplate.queryForObject(SELECT_COIN_WITH_MAX_RANGE,
-        (rs, rowNum) -> rs.getString("coin"), args);
+        (rs, rowNum) -> coinRepository.getSymbol(rs.getShort("coin_id")), args);
   }
 
+  /**
+   * Retrieves the OHLC candles of a coin from the precomputed rollups. Raw prices are never read,
+   * so the cost depends on the number of candles returned only.
+   *
+   * @param coin     The symbol of the coin.
+   * @param interval The resolution of the candles.
+   * @param from     The start of the window, inclusive, or {@code null} for no lower bound.
+   * @param to       The end of the window, inclusive, or {@code null} for no upper bound.
+   * @return The candles whose buckets overlap the window, in ascending order of time.
+   * @throws BadRequestException if the window starts after it ends.
+   */
+  public List<CandleDto> getCandles(String coin, CandleInterval interval, LocalDateTime from,
+      LocalDateTime to) {
+    checkWindow(from, to);
+    return candlesTimer.record(() -> candleRollups.getCandles(coin, interval,
+        from == null ? Long.MIN_VALUE : EpochMillis.of(from),
+        to == null ? Long.MAX_VALUE : EpochMillis.of(to)));
+  }
+
+  /**
+   * @param from The start of the window, or {@code null} for no lower bound.
+   * @param to   The end of the window, or {@code null} for no upper bound.
+   * @throws BadRequestException if the window starts after it ends.
+   */
+  private static void checkWindow(LocalDateTime from, LocalDateTime to) {
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new BadRequestException("The window start " + from + " is after its end " + to);
+    }
+  }
 }
@@ -0,0 +1,209 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.coin.model.CoinInfoDto;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.PriceWriteListener;
+import com.crypto.investment.utils.EpochMillis;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory columnar store of the price history, used by {@link CoinInfoRepository} when the
+ * {@code coin.info.backend} property is set to {@value #BACKEND_MEMORY} or
+ * {@value #BACKEND_COMPRESSED}. The series of every coin is filled from the prices written during
+ * the ingest, so the coin queries are answered without JDBC.
+ * <p>
+ * With {@value #BACKEND_MEMORY}, a coin is kept as sorted primitive arrays of timestamps and
+ * fixed-point prices, a {@link CoinSeries}, and the minimum and maximum of any time window are read
+ * from its {@link RangeIndex} in O(log n). With {@value #BACKEND_COMPRESSED}, a coin is kept as a
+ * {@link CompressedSeries} of a few bytes per price, for price histories which would not fit in
+ * the heap as arrays, and a window is answered from the summaries of its blocks plus a decode of
+ * the blocks at its edges.
+ * <p>
+ * With the {@code sql} backend the store still keeps a {@link CoinSeries} per coin, unless
+ * {@code coin.info.window.index} is {@code false}, so that the time windows of {@code /info} are
+ * answered from the {@link RangeIndex} while the other queries go to the price table.
+ */
+@Component
+public class CoinPriceStore implements PriceWriteListener {
+
+  /**
+   * The value of {@code coin.info.backend} selecting the in-memory store.
+   */
+  public static final String BACKEND_MEMORY = "memory";
+
+  /**
+   * The value of {@code coin.info.backend} selecting the in-memory store with compressed series.
+   */
+  public static final String BACKEND_COMPRESSED = "compressed";
+
+  private final Map<String, PriceSeries> seriesByCoin = new ConcurrentHashMap<>();
+  private final boolean enabled;
+  private final boolean compressed;
+  private final boolean indexed;
+
+  public CoinPriceStore(String backend) {
+    this(backend, true);
+  }
+
+  /**
+   * @param backend     the value of {@code coin.info.backend}
+   * @param windowIndex whether the series are kept for the time windows of {@code /info} when the
+   *                    other queries go to the price table
+   */
+  @Autowired
+  public CoinPriceStore(@Value("${coin.info.backend:sql}") String backend,
+      @Value("${coin.info.window.index:true}") boolean windowIndex) {
+    this.compressed = BACKEND_COMPRESSED.equalsIgnoreCase(backend);
+    this.enabled = compressed || BACKEND_MEMORY.equalsIgnoreCase(backend);
+    this.indexed = enabled || windowIndex;
+  }
+
+  /**
+   * @return {@code true} if the coin queries are answered from this store
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param coin The symbol of the coin.
+   * @return {@code true} if the store holds prices of the coin, so that its time windows are
+   * answered from the store even if the other queries are not
+   */
+  public boolean contains(String coin) {
+    return seriesByCoin.containsKey(coin);
+  }
+
+  /**
+   * Appends the written prices to the series of their coins.
+   *
+   * @param prices The prices of the chunk.
+   */
+  @Override
+  public void onPricesWritten(List<PriceDto> prices) {
+    if (!indexed) {
+      return;
+    }
+    long[] timestamps = new long[prices.size()];
+    long[] values = new long[prices.size()];
+    int from = 0;
+    while (from < prices.size()) {
+      String coin = prices.get(from).coin();
+      int count = 0;
+      int to = from;
+      for (; to < prices.size() && prices.get(to).coin().equals(coin); to++) {
+        timestamps[count] = EpochMillis.of(prices.get(to).dateTime());
+        values[count++] = prices.get(to).fixedPointPrice();
+      }
+      append(coin, timestamps, values, count);
+      from = to;
+    }
+  }
+
+  /**
+   * Drops the series of all coins.
+   */
+  @Override
+  public void onPricesDeleted() {
+    seriesByCoin.clear();
+  }
+
+  /**
+   * Appends prices to the series of a coin.
+   *
+   * @param coin       The symbol of the coin.
+   * @param timestamps The timestamps in milliseconds since the epoch.
+   * @param prices     The fixed-point prices.
+   * @param count      The number of prices.
+   */
+  public void append(String coin, long[] timestamps, long[] prices, int count) {
+    seriesByCoin.computeIfAbsent(coin, k -> compressed ? new CompressedSeries() : new CoinSeries())
+        .append(timestamps, prices, count);
+  }
+
+  /**
+   * Calculates the maximum price, minimum price, oldest and newest price date of a coin.
+   *
+   * @param coin The symbol of the coin.
+   * @return A {@link CoinInfoDto} object containing the coin information.
+   * @throws EmptyResultDataAccessException if there are no prices for the coin.
+   */
+  public CoinInfoDto getCoinInfo(String coin) {
+    return getCoinInfo(coin, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Calculates the maximum price, minimum price, oldest and newest price date of a coin within a
+   * time window.
+   *
+   * @param coin The symbol of the coin.
+   * @param from The start of the window in milliseconds since the epoch, inclusive.
+   * @param to   The end of the window in milliseconds since the epoch, inclusive.
+   * @return A {@link CoinInfoDto} object containing the coin information.
+   * @throws EmptyResultDataAccessException if there are no prices for the coin in the window.
+   */
+  public CoinInfoDto getCoinInfo(String coin, long from, long to) {
+    PriceSeries series = seriesByCoin.get(coin);
+    PriceSeries.Range range = series == null ? null : series.range(from, to);
+    if (range == null) {
+      throw new EmptyResultDataAccessException(1);
+    }
+    return new CoinInfoDto(coin, FixedPointPrice.toBigDecimal(range.max()),
+        FixedPointPrice.toBigDecimal(range.min()), EpochMillis.toLocalDateTime(range.oldest()),
+        EpochMillis.toLocalDateTime(range.newest()));
+  }
+
+  /**
+   * Sorts all coins by their normalized range {@code (max - min) / min} in descending order.
+   *
+   * @return The coin symbols ordered by their normalized range.
+   */
+  public List<String> getCoinsSortedByNormalizedRange() {
+    List<CoinRange> ranges = new ArrayList<>();
+    seriesByCoin.forEach((coin, series) -> {
+      PriceSeries.Range range = series.range(Long.MIN_VALUE, Long.MAX_VALUE);
+      if (range != null) {
+        ranges.add(new CoinRange(coin, range.min(), range.max()));
+      }
+    });
+    ranges.sort((a, b) -> FixedPointPrice.compareNormalizedRanges(b.max(), b.min(), a.max(),
+        a.min()));
+    return ranges.stream().map(CoinRange::coin).toList();
+  }
+
+  /**
+   * Finds the coin with the highest normalized range on a UTC day.
+   *
+   * @param date The day.
+   * @return The symbol of the coin with the highest normalized range.
+   * @throws EmptyResultDataAccessException if there are no prices on that day.
+   */
+  public String getCoinWithMaxNormalizedRange(LocalDate date) {
+    long dayStart = EpochMillis.of(date);
+    CoinRange best = null;
+    for (Map.Entry<String, PriceSeries> entry : seriesByCoin.entrySet()) {
+      PriceSeries.Range range = entry.getValue().range(dayStart, dayStart + EpochMillis.DAY - 1);
+      if (range != null && (best == null || FixedPointPrice.compareNormalizedRanges(range.max(),
+          range.min(), best.max(), best.min()) > 0)) {
+        best = new CoinRange(entry.getKey(), range.min(), range.max());
+      }
+    }
+    if (best == null) {
+      throw new EmptyResultDataAccessException(1);
+    }
+    return best.coin();
+  }
+
+  private record CoinRange(String coin, long min, long max) {
+
+  }
+}
@@ -0,0 +1,114 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.price.persistence.DataVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the coin rankings of the {@link CoinInfoRepository}. The rankings only change when
+ * prices are written, so every cached result is tagged with the {@link DataVersion} it was computed
+ * at and recomputed once the version has moved on. The coins with the highest normalized range are
+ * kept per day in an LRU map of at most {@code coin.cache.max-dates} days.
+ * <p>
+ * The version is read before a result is computed. A result computed while prices are being
+ * written may already contain some of them, but is tagged with the older version and therefore
+ * recomputed on the next request.
+ */
+@Component
+public class CoinRankingCache {
+
+  private record Entry<T>(long version, T value) {
+
+  }
+
+  private final DataVersion dataVersion;
+
+  private volatile Entry<List<String>> coinList;
+
+  private final ReentrantLock maxRangeLock = new ReentrantLock();
+  private final Map<LocalDate, Entry<String>> maxRangeByDate;
+
+  private final Counter coinListHits;
+  private final Counter coinListMisses;
+  private final Counter maxRangeHits;
+  private final Counter maxRangeMisses;
+
+  @Autowired
+  public CoinRankingCache(@Value("${coin.cache.max-dates:1024}") int maxDates,
+      DataVersion dataVersion, MeterRegistry meterRegistry) {
+    this.dataVersion = dataVersion;
+    this.maxRangeByDate = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<LocalDate, Entry<String>> eldest) {
+        return size() > maxDates;
+      }
+    };
+    this.coinListHits = requests(meterRegistry, "coin_list", "hit");
+    this.coinListMisses = requests(meterRegistry, "coin_list", "miss");
+    this.maxRangeHits = requests(meterRegistry, "max_range", "hit");
+    this.maxRangeMisses = requests(meterRegistry, "max_range", "miss");
+  }
+
+  private static Counter requests(MeterRegistry meterRegistry, String cache, String result) {
+    return Counter.builder("coin.cache.requests")
+        .description("Lookups of the coin ranking cache")
+        .tag("cache", cache)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /**
+   * @param loader computes the coins sorted by their normalized range
+   * @return the cached coin list, or the result of the loader if the price data has changed
+   */
+  public List<String> getCoinList(Supplier<List<String>> loader) {
+    long version = dataVersion.current().number();
+    Entry<List<String>> entry = coinList;
+    if (entry != null && entry.version() == version) {
+      coinListHits.increment();
+      return entry.value();
+    }
+    coinListMisses.increment();
+    List<String> value = List.copyOf(loader.get());
+    coinList = new Entry<>(version, value);
+    return value;
+  }
+
+  /**
+   * @param date   the day
+   * @param loader computes the coin with the highest normalized range of the day
+   * @return the cached coin, or the result of the loader if the price data has changed
+   */
+  public String getCoinWithMaxRange(LocalDate date, Supplier<String> loader) {
+    long version = dataVersion.current().number();
+    Entry<String> entry;
+    maxRangeLock.lock();
+    try {
+      entry = maxRangeByDate.get(date);
+    } finally {
+      maxRangeLock.unlock();
+    }
+    if (entry != null && entry.version() == version) {
+      maxRangeHits.increment();
+      return entry.value();
+    }
+    maxRangeMisses.increment();
+    String value = loader.get();
+    maxRangeLock.lock();
+    try {
+      maxRangeByDate.put(date, new Entry<>(version, value));
+    } finally {
+      maxRangeLock.unlock();
+    }
+    return value;
+  }
+}
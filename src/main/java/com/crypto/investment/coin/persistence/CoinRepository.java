@@ -1,21 +1,67 @@
 package com.crypto.investment.coin.persistence;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Component;
 
 /**
- * The {@code CoinRepository} class is a Spring-managed component responsible for managing a set of
- * supported cryptocurrency symbols (coins). It provides methods to check if a coin is supported and
- * to add new coins to the repository.
+ * The {@code CoinRepository} class is a Spring-managed component responsible for managing the
+ * supported cryptocurrency symbols (coins). It is a dictionary which maps every coin to a small
+ * integer id, the {@code coin_id} stored in the {@code price} table instead of the symbol.
+ * <p>
+ * Symbols are stored with their ASCII letters upper-cased and looked up ignoring the case of
+ * ASCII letters, without allocating. Other characters are kept as they are on both sides, so that
+ * e.g. {@code ß} is neither stored as {@code SS} nor found under another symbol. The dictionary is an immutable {@link Dictionary} replaced on every added coin, so lookups never
+ * lock. Coins are added rarely, when the ingest meets a new symbol, and are committed to the
+ * {@code coin} table on a connection of their own, outside of any running transaction, so that an
+ * id once handed out stays valid even if the transaction writing its prices is rolled back.
  */
 @Component
 public class CoinRepository {
 
   /**
-   * A thread-safe set to store unique cryptocurrency symbols (coins).
+   * The id returned for coins which are not in the repository.
    */
-  private final Set<String> threadSafeUniqueNumbers = ConcurrentHashMap.newKeySet();
+  public static final short NOT_FOUND = -1;
+
+  private static final String SELECT_COINS = "select id, symbol from coin";
+  private static final String MERGE_COIN = "merge into coin (symbol) key (symbol) values (?)";
+  private static final String SELECT_COIN_ID = "select id from coin where symbol = ?";
+
+  private final DataSource dataSource;
+  private final ReentrantLock addLock = new ReentrantLock();
+
+  private volatile Dictionary dictionary = Dictionary.EMPTY;
+
+  /**
+   * Creates a repository backed by the {@code coin} table and loads the coins stored there.
+   *
+   * @param jdbcTemplate the template of the data source holding the {@code coin} table
+   */
+  @Autowired
+  public CoinRepository(JdbcTemplate jdbcTemplate) {
+    this.dataSource = jdbcTemplate.getDataSource();
+    jdbcTemplate.query(SELECT_COINS, rs -> {
+      dictionary = dictionary.with(rs.getString("symbol"), rs.getShort("id"));
+    });
+  }
+
+  /**
+   * Creates a repository which is not backed by the database and numbers the coins in the order
+   * they are added.
+   */
+  public CoinRepository() {
+    this.dataSource = null;
+  }
 
   /**
    * Checks if a given coin is present in the repository.
@@ -24,15 +70,216 @@ public class CoinRepository {
    * @return {@code true} if the coin is present in the repository; {@code false} otherwise.
    */
   public boolean containsCoin(String coin) {
-    return threadSafeUniqueNumbers.contains(coin.toUpperCase());
+    return dictionary.find(coin) >= 0;
+  }
+
+  /**
+   * Looks up the id of a coin, ignoring the case of the symbol.
+   *
+   * @param coin The symbol of the coin.
+   * @return The id of the coin, or {@link #NOT_FOUND} if the coin is not in the repository.
+   */
+  public short getId(String coin) {
+    Dictionary current = dictionary;
+    int index = current.find(coin);
+    return index < 0 ? NOT_FOUND : current.ids[index];
+  }
+
+  /**
+   * Looks up the symbol of a coin as stored in the repository, ignoring the case of the given
+   * symbol.
+   *
+   * @param coin The symbol of the coin.
+   * @return The upper-cased symbol of the coin, or {@code null} if the coin is not in the
+   * repository.
+   */
+  public String getSymbol(String coin) {
+    Dictionary current = dictionary;
+    int index = current.find(coin);
+    return index < 0 ? null : current.symbols[index];
+  }
+
+  /**
+   * @param id The id of a coin.
+   * @return The symbol of the coin, or {@code null} if no coin has the id.
+   */
+  public String getSymbol(short id) {
+    String[] symbolsById = dictionary.symbolsById;
+    return id >= 0 && id < symbolsById.length ? symbolsById[id] : null;
   }
 
   /**
-   * Adds a new coin to the repository.
+   * Returns the coins in the repository.
+   *
+   * @return An unmodifiable set of the coin symbols.
+   */
+  public Set<String> getCoins() {
+    return dictionary.coins;
+  }
+
+  /**
+   * Adds a new coin to the repository, unless it is already present.
    *
    * @param coin The symbol of the coin to add.
+   * @return The id of the coin.
+   * @throws IllegalStateException if there is no id left for the coin.
    */
-  public void addCoin(String coin) {
-    threadSafeUniqueNumbers.add(coin.toUpperCase());
+  public short addCoin(String coin) {
+    short id = getId(coin);
+    if (id != NOT_FOUND) {
+      return id;
+    }
+    addLock.lock();
+    try {
+      id = getId(coin);
+      if (id == NOT_FOUND) {
+        String symbol = Dictionary.toUpperCase(coin);
+        id = dataSource == null ? nextId() : insert(symbol);
+        dictionary = dictionary.with(symbol, id);
+      }
+      return id;
+    } finally {
+      addLock.unlock();
+    }
+  }
+
+  private short nextId() {
+    if (dictionary.symbols.length >= Short.MAX_VALUE) {
+      throw new IllegalStateException("No coin id left");
+    }
+    return (short) (dictionary.symbols.length + 1);
+  }
+
+  /**
+   * Inserts a coin, unless another instance sharing the database inserted it already, and reads
+   * its generated id. The connection is taken from the data source directly, so the insert is
+   * committed at once even if the caller runs in a transaction.
+   */
+  private short insert(String symbol) {
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      connection.setAutoCommit(true);
+      try (PreparedStatement merge = connection.prepareStatement(MERGE_COIN)) {
+        merge.setString(1, symbol);
+        merge.executeUpdate();
+      }
+      try (PreparedStatement select = connection.prepareStatement(SELECT_COIN_ID)) {
+        select.setString(1, symbol);
+        try (ResultSet rs = select.executeQuery()) {
+          rs.next();
+          return rs.getShort("id");
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not add the coin " + symbol, e);
+    } finally {
+      JdbcUtils.closeConnection(connection);
+    }
+  }
+
+  /**
+   * Immutable open addressing hash table from symbols to ids. The hash of a symbol is computed on
+   * its upper-cased ASCII characters, so that a lookup neither upper-cases nor copies the symbol.
+   */
+  private static final class Dictionary {
+
+    static final Dictionary EMPTY = new Dictionary(new String[0], new short[0]);
+
+    final String[] symbols;
+    final short[] ids;
+    final String[] symbolsById;
+    final Set<String> coins;
+    /**
+     * The index into {@link #symbols} plus one of every slot, {@code 0} for empty slots.
+     */
+    private final int[] slots;
+    private final int mask;
+
+    private Dictionary(String[] symbols, short[] ids) {
+      this.symbols = symbols;
+      this.ids = ids;
+      this.coins = Set.of(symbols);
+      short maxId = 0;
+      for (short id : ids) {
+        maxId = (short) Math.max(maxId, id);
+      }
+      this.symbolsById = new String[maxId + 1];
+      for (int i = 0; i < symbols.length; i++) {
+        symbolsById[ids[i]] = symbols[i];
+      }
+      this.slots = new int[Math.max(8, Integer.highestOneBit(symbols.length * 2 + 1) << 1)];
+      this.mask = slots.length - 1;
+      for (int i = 0; i < symbols.length; i++) {
+        int slot = hash(symbols[i]) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = i + 1;
+      }
+    }
+
+    /**
+     * @param symbol the upper-cased symbol of a new coin
+     * @param id     the id of the coin
+     * @return a dictionary containing the coins of this one and the new coin
+     */
+    Dictionary with(String symbol, short id) {
+      String[] newSymbols = Arrays.copyOf(symbols, symbols.length + 1);
+      short[] newIds = Arrays.copyOf(ids, ids.length + 1);
+      newSymbols[symbols.length] = symbol;
+      newIds[ids.length] = id;
+      return new Dictionary(newSymbols, newIds);
+    }
+
+    /**
+     * @param coin a symbol in any case
+     * @return the index of the coin in {@link #symbols}, or {@code -1}
+     */
+    int find(String coin) {
+      for (int slot = hash(coin) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+        String symbol = symbols[slots[slot] - 1];
+        if (equalsIgnoreCase(symbol, coin)) {
+          return slots[slot] - 1;
+        }
+      }
+      return -1;
+    }
+
+    private static int hash(String symbol) {
+      int hash = 0;
+      for (int i = 0; i < symbol.length(); i++) {
+        hash = 31 * hash + toUpperCase(symbol.charAt(i));
+      }
+      return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(String symbol, String coin) {
+      if (symbol.length() != coin.length()) {
+        return false;
+      }
+      for (int i = 0; i < symbol.length(); i++) {
+        if (symbol.charAt(i) != toUpperCase(coin.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @param coin a symbol in any case
+     * @return the symbol with its ASCII letters upper-cased, as it is stored and hashed
+     */
+    static String toUpperCase(String coin) {
+      char[] chars = coin.toCharArray();
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = toUpperCase(chars[i]);
+      }
+      return new String(chars);
+    }
+
+    private static char toUpperCase(char c) {
+      return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
   }
 }
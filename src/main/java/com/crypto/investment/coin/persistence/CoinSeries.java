@@ -0,0 +1,203 @@
+package com.crypto.investment.coin.persistence;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The price series of a single coin in columnar form: timestamps in milliseconds since the epoch
+ * and fixed-point prices, both sorted by timestamp. Appends are serialized, readers work on an
+ * immutable {@link Snapshot} and never block. Appends use a {@link ReentrantLock} rather than a
+ * monitor, so that a virtual thread waiting for the lock does not pin its carrier thread.
+ * <p>
+ * Every snapshot carries a {@link RangeIndex} over its prices, updated together with the arrays.
+ */
+class CoinSeries implements PriceSeries {
+
+  /**
+   * A consistent view of the series. The first {@code size} elements of the arrays are never
+   * modified after the snapshot has been published.
+   *
+   * @param timestamps The timestamps in ascending order.
+   * @param prices     The fixed-point prices, aligned with the timestamps.
+   * @param size       The number of valid elements.
+   * @param index      The range min/max index over the prices.
+   */
+  record Snapshot(long[] timestamps, long[] prices, int size, RangeIndex index) {
+
+    /**
+     * @param timestamp the timestamp to search for
+     * @return the index of the first element with a timestamp greater than or equal to the given
+     * one, or {@code size} if there is none
+     */
+    int lowerBound(long timestamp) {
+      int low = 0;
+      int high = size;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (timestamps[mid] < timestamp) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * @param from the first position, inclusive
+     * @param to   the last position, exclusive
+     * @return the minimum price within {@code [from, to)}
+     */
+    long min(int from, int to) {
+      return index.min(from, to);
+    }
+
+    /**
+     * @param from the first position, inclusive
+     * @param to   the last position, exclusive
+     * @return the maximum price within {@code [from, to)}
+     */
+    long max(int from, int to) {
+      return index.max(from, to);
+    }
+  }
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+
+  private volatile Snapshot snapshot = new Snapshot(new long[0], new long[0], 0,
+      RangeIndex.build(new long[0], 0, 0));
+
+  /**
+   * @return the current snapshot of the series
+   */
+  Snapshot snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Appends prices to the series. Prices newer than the current last element are written to the
+   * free capacity of the arrays, anything else is merged into new arrays.
+   *
+   * @param timestamps the timestamps of the new prices, in any order
+   * @param prices     the fixed-point prices
+   * @param count      the number of new prices
+   */
+  @Override
+  public void append(long[] timestamps, long[] prices, int count) {
+    if (count == 0) {
+      return;
+    }
+    long[] newTimestamps = Arrays.copyOf(timestamps, count);
+    long[] newPrices = Arrays.copyOf(prices, count);
+    sort(newTimestamps, newPrices);
+
+    appendLock.lock();
+    try {
+      Snapshot current = snapshot;
+      int size = current.size();
+      if (size == 0 || newTimestamps[0] >= current.timestamps()[size - 1]) {
+        long[] allTimestamps = current.timestamps();
+        long[] allPrices = current.prices();
+        if (allTimestamps.length < size + count) {
+          int capacity = Math.max(size + count, size + (size >> 1));
+          allTimestamps = Arrays.copyOf(allTimestamps, capacity);
+          allPrices = Arrays.copyOf(allPrices, capacity);
+        }
+        System.arraycopy(newTimestamps, 0, allTimestamps, size, count);
+        System.arraycopy(newPrices, 0, allPrices, size, count);
+        RangeIndex index = current.index();
+        if (index.fits(size + count)) {
+          index.set(size, allPrices, count);
+        } else {
+          index = RangeIndex.build(allPrices, size + count, allPrices.length);
+        }
+        snapshot = new Snapshot(allTimestamps, allPrices, size + count, index);
+      } else {
+        snapshot = merge(current, newTimestamps, newPrices);
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  @Override
+  public Range range(long from, long to) {
+    Snapshot current = snapshot;
+    int first = current.lowerBound(from);
+    int end = to == Long.MAX_VALUE ? current.size() : current.lowerBound(to + 1);
+    if (first >= end) {
+      return null;
+    }
+    return new Range(current.min(first, end), current.max(first, end),
+        current.timestamps()[first], current.timestamps()[end - 1]);
+  }
+
+  /**
+   * Merges sorted prices into a copy of the snapshot.
+   */
+  private static Snapshot merge(Snapshot current, long[] timestamps, long[] prices) {
+    int size = current.size() + timestamps.length;
+    long[] mergedTimestamps = new long[size + (size >> 1)];
+    long[] mergedPrices = new long[mergedTimestamps.length];
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < size; k++) {
+      if (j == timestamps.length
+          || (i < current.size() && current.timestamps()[i] <= timestamps[j])) {
+        mergedTimestamps[k] = current.timestamps()[i];
+        mergedPrices[k] = current.prices()[i++];
+      } else {
+        mergedTimestamps[k] = timestamps[j];
+        mergedPrices[k] = prices[j++];
+      }
+    }
+    return new Snapshot(mergedTimestamps, mergedPrices, size,
+        RangeIndex.build(mergedPrices, size, mergedPrices.length));
+  }
+
+  /**
+   * Sorts the aligned arrays by timestamp, keeping the order of equal timestamps. The arrays are
+   * merge sorted bottom-up as pairs, so no index or boxed value is allocated per price.
+   */
+  static void sort(long[] timestamps, long[] prices) {
+    int n = timestamps.length;
+    boolean sorted = true;
+    for (int i = 1; i < n && sorted; i++) {
+      sorted = timestamps[i - 1] <= timestamps[i];
+    }
+    if (sorted) {
+      return;
+    }
+    long[] fromTimestamps = timestamps;
+    long[] fromPrices = prices;
+    long[] toTimestamps = new long[n];
+    long[] toPrices = new long[n];
+    for (int width = 1; width < n; width <<= 1) {
+      for (int low = 0; low < n; low += width << 1) {
+        int mid = Math.min(low + width, n);
+        int high = Math.min(low + (width << 1), n);
+        int i = low;
+        int j = mid;
+        for (int k = low; k < high; k++) {
+          if (j == high || (i < mid && fromTimestamps[i] <= fromTimestamps[j])) {
+            toTimestamps[k] = fromTimestamps[i];
+            toPrices[k] = fromPrices[i++];
+          } else {
+            toTimestamps[k] = fromTimestamps[j];
+            toPrices[k] = fromPrices[j++];
+          }
+        }
+      }
+      long[] swapTimestamps = fromTimestamps;
+      long[] swapPrices = fromPrices;
+      fromTimestamps = toTimestamps;
+      fromPrices = toPrices;
+      toTimestamps = swapTimestamps;
+      toPrices = swapPrices;
+    }
+    if (fromTimestamps != timestamps) {
+      System.arraycopy(fromTimestamps, 0, timestamps, 0, n);
+      System.arraycopy(fromPrices, 0, prices, 0, n);
+    }
+  }
+}
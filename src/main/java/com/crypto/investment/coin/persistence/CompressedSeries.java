@@ -0,0 +1,537 @@
+package com.crypto.investment.coin.persistence;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The price series of a single coin compressed in the manner of Facebook's Gorilla time series
+ * store, taking a few bytes per price instead of the 16 bytes of the {@link CoinSeries} arrays.
+ * <p>
+ * The prices are kept in immutable sealed {@link Block blocks} of up to {@code blockSize} prices
+ * plus one uncompressed head, which is sealed into a block once it is full. A block stores its
+ * first timestamp and price in its header and every following price as a bit stream of:
+ * <ul>
+ *   <li>the delta of delta of the timestamp, a single bit for prices taken at a regular interval;
+ *   <li>the delta of the fixed-point price, divided by the largest power of ten dividing all prices
+ *   of the block, so that a price with two decimals does not pay for the eight decimals of the
+ *   fixed-point scale.
+ * </ul>
+ * Both are zigzag encoded and written with a variable length prefix selecting the number of bits,
+ * see {@link #TIMESTAMP_WIDTHS} and {@link #PRICE_WIDTHS}. The header also holds the minimum and
+ * maximum price of the block, so that a range query only decodes the blocks at the edges of its
+ * window, which are then reduced with the {@link PriceReductions}.
+ * <p>
+ * Like {@link CoinSeries}, appends are serialized and readers work on an immutable {@link State}.
+ * Prices older than the last one are merged by re-encoding the blocks from the first one they
+ * overlap.
+ */
+final class CompressedSeries implements PriceSeries {
+
+  /**
+   * The number of prices of a sealed block.
+   */
+  static final int DEFAULT_BLOCK_SIZE = 1024;
+
+  /**
+   * The widths in bits of the zigzag encoded delta of delta of a timestamp, selected by a prefix of
+   * one to four 1 bits. A single 0 bit stands for a delta of delta of zero.
+   */
+  static final int[] TIMESTAMP_WIDTHS = {7, 9, 12, 64};
+
+  /**
+   * The widths in bits of the zigzag encoded delta of a scaled price, encoded like the timestamps.
+   */
+  static final int[] PRICE_WIDTHS = {7, 14, 24, 64};
+
+  /**
+   * The estimated size in bytes of a block without its bit stream: the object, its fields and the
+   * header of the array.
+   */
+  private static final int BLOCK_OVERHEAD = 88;
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  /**
+   * Receives the prices of a sequential decode.
+   */
+  @FunctionalInterface
+  interface TickConsumer {
+
+    /**
+     * @param timestamp the timestamp in milliseconds since the epoch
+     * @param price     the fixed-point price
+     */
+    void accept(long timestamp, long price);
+  }
+
+  /**
+   * A consistent view of the series. The first {@code headSize} elements of the head arrays are
+   * never modified after the state has been published.
+   *
+   * @param blocks         The sealed blocks in ascending order of time.
+   * @param headTimestamps The timestamps of the head, newer than those of the blocks.
+   * @param headPrices     The fixed-point prices of the head.
+   * @param headSize       The number of valid elements of the head.
+   */
+  private record State(Block[] blocks, long[] headTimestamps, long[] headPrices, int headSize) {
+
+  }
+
+  private final int blockSize;
+  private final ReentrantLock appendLock = new ReentrantLock();
+
+  private volatile State state;
+
+  CompressedSeries() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * @param blockSize the number of prices of a sealed block
+   */
+  CompressedSeries(int blockSize) {
+    this.blockSize = blockSize;
+    this.state = new State(new Block[0], new long[blockSize], new long[blockSize], 0);
+  }
+
+  /**
+   * Appends prices to the series. Prices not older than the current last price are added to the
+   * head, anything else is merged into re-encoded blocks.
+   *
+   * @param timestamps the timestamps of the new prices, in any order
+   * @param prices     the fixed-point prices
+   * @param count      the number of new prices
+   */
+  @Override
+  public void append(long[] timestamps, long[] prices, int count) {
+    if (count == 0) {
+      return;
+    }
+    long[] newTimestamps = Arrays.copyOf(timestamps, count);
+    long[] newPrices = Arrays.copyOf(prices, count);
+    CoinSeries.sort(newTimestamps, newPrices);
+
+    appendLock.lock();
+    try {
+      State current = state;
+      if (newTimestamps[0] >= lastTimestamp(current)) {
+        state = appendToHead(current, newTimestamps, newPrices);
+      } else {
+        state = merge(current, newTimestamps, newPrices);
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  private static long lastTimestamp(State current) {
+    if (current.headSize() > 0) {
+      return current.headTimestamps()[current.headSize() - 1];
+    }
+    Block[] blocks = current.blocks();
+    return blocks.length == 0 ? Long.MIN_VALUE : blocks[blocks.length - 1].lastTimestamp;
+  }
+
+  /**
+   * Writes sorted prices newer than the series to the free capacity of the head, sealing it into a
+   * block whenever it is full.
+   */
+  private State appendToHead(State current, long[] timestamps, long[] prices) {
+    Block[] blocks = current.blocks();
+    long[] headTimestamps = current.headTimestamps();
+    long[] headPrices = current.headPrices();
+    int headSize = current.headSize();
+    for (int i = 0; i < timestamps.length; i++) {
+      if (headSize == blockSize) {
+        blocks = Arrays.copyOf(blocks, blocks.length + 1);
+        blocks[blocks.length - 1] = Block.encode(headTimestamps, headPrices, 0, headSize);
+        headTimestamps = new long[blockSize];
+        headPrices = new long[blockSize];
+        headSize = 0;
+      }
+      headTimestamps[headSize] = timestamps[i];
+      headPrices[headSize++] = prices[i];
+    }
+    return new State(blocks, headTimestamps, headPrices, headSize);
+  }
+
+  /**
+   * Merges sorted prices into the series, re-encoding the blocks from the first one containing a
+   * newer price.
+   */
+  private State merge(State current, long[] timestamps, long[] prices) {
+    Block[] blocks = current.blocks();
+    int first = firstBlock(blocks, timestamps[0] + 1);
+    int oldCount = current.headSize();
+    for (int i = first; i < blocks.length; i++) {
+      oldCount += blocks[i].count;
+    }
+    long[] oldTimestamps = new long[oldCount];
+    long[] oldPrices = new long[oldCount];
+    int offset = 0;
+    for (int i = first; i < blocks.length; i++) {
+      offset = blocks[i].decode(oldTimestamps, oldPrices, offset);
+    }
+    System.arraycopy(current.headTimestamps(), 0, oldTimestamps, offset, current.headSize());
+    System.arraycopy(current.headPrices(), 0, oldPrices, offset, current.headSize());
+
+    State rebuilt = new State(Arrays.copyOf(blocks, first), new long[blockSize],
+        new long[blockSize], 0);
+    long[] mergedTimestamps = new long[oldCount + timestamps.length];
+    long[] mergedPrices = new long[mergedTimestamps.length];
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < mergedTimestamps.length; k++) {
+      if (j == timestamps.length || (i < oldCount && oldTimestamps[i] <= timestamps[j])) {
+        mergedTimestamps[k] = oldTimestamps[i];
+        mergedPrices[k] = oldPrices[i++];
+      } else {
+        mergedTimestamps[k] = timestamps[j];
+        mergedPrices[k] = prices[j++];
+      }
+    }
+    return appendToHead(rebuilt, mergedTimestamps, mergedPrices);
+  }
+
+  /**
+   * @param blocks    the blocks in ascending order of time
+   * @param timestamp the timestamp to search for
+   * @return the index of the first block ending at or after the timestamp, or the number of blocks
+   * if there is none
+   */
+  private static int firstBlock(Block[] blocks, long timestamp) {
+    int low = 0;
+    int high = blocks.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (blocks[mid].lastTimestamp < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public Range range(long from, long to) {
+    State current = state;
+    PriceReductions reductions = PriceReductions.get();
+    RangeAccumulator accumulator = new RangeAccumulator();
+    Block[] blocks = current.blocks();
+    long[] timestamps = null;
+    long[] prices = null;
+    for (int i = firstBlock(blocks, from); i < blocks.length && blocks[i].firstTimestamp <= to;
+        i++) {
+      Block block = blocks[i];
+      if (block.firstTimestamp >= from && block.lastTimestamp <= to) {
+        accumulator.add(block);
+      } else {
+        if (timestamps == null) {
+          timestamps = new long[blockSize];
+          prices = new long[blockSize];
+        }
+        block.decode(timestamps, prices, 0);
+        accumulator.add(timestamps, prices, block.count, from, to, reductions);
+      }
+    }
+    accumulator.add(current.headTimestamps(), current.headPrices(), current.headSize(), from, to,
+        reductions);
+    return accumulator.toRange();
+  }
+
+  /**
+   * Decodes the prices within a time window in ascending order of time.
+   *
+   * @param from     the start of the window in milliseconds since the epoch, inclusive
+   * @param to       the end of the window in milliseconds since the epoch, inclusive
+   * @param consumer the consumer receiving the prices
+   */
+  void scan(long from, long to, TickConsumer consumer) {
+    State current = state;
+    Block[] blocks = current.blocks();
+    for (int i = firstBlock(blocks, from); i < blocks.length && blocks[i].firstTimestamp <= to;
+        i++) {
+      blocks[i].forEach(from, to, consumer);
+    }
+    scanHead(current, from, to, consumer);
+  }
+
+  private static void scanHead(State current, long from, long to, TickConsumer consumer) {
+    long[] timestamps = current.headTimestamps();
+    long[] prices = current.headPrices();
+    for (int i = 0; i < current.headSize() && timestamps[i] <= to; i++) {
+      if (timestamps[i] >= from) {
+        consumer.accept(timestamps[i], prices[i]);
+      }
+    }
+  }
+
+  /**
+   * @return the number of prices of the series
+   */
+  int size() {
+    State current = state;
+    int size = current.headSize();
+    for (Block block : current.blocks()) {
+      size += block.count;
+    }
+    return size;
+  }
+
+  /**
+   * @return the estimated heap size of the series in bytes
+   */
+  long sizeInBytes() {
+    State current = state;
+    long bytes = 2 * (16 + 8L * current.headTimestamps().length) + 16 + 4L * current.blocks().length;
+    for (Block block : current.blocks()) {
+      bytes += BLOCK_OVERHEAD + 8L * block.words.length;
+    }
+    return bytes;
+  }
+
+  /**
+   * An immutable block of compressed prices.
+   */
+  static final class Block {
+
+    final long firstTimestamp;
+    final long lastTimestamp;
+    final long firstPrice;
+    final long min;
+    final long max;
+    final int count;
+    /**
+     * The exponent of the power of ten dividing all prices of the block.
+     */
+    final int exponent;
+    /**
+     * The bit stream of the prices after the first one, least significant bit first.
+     */
+    final long[] words;
+
+    private Block(long firstTimestamp, long lastTimestamp, long firstPrice, long min, long max,
+        int count, int exponent, long[] words) {
+      this.firstTimestamp = firstTimestamp;
+      this.lastTimestamp = lastTimestamp;
+      this.firstPrice = firstPrice;
+      this.min = min;
+      this.max = max;
+      this.count = count;
+      this.exponent = exponent;
+      this.words = words;
+    }
+
+    /**
+     * Encodes sorted prices into a block.
+     *
+     * @param timestamps the timestamps in ascending order
+     * @param prices     the fixed-point prices
+     * @param from       the position of the first price to encode
+     * @param count      the number of prices to encode, at least one
+     * @return the block
+     */
+    static Block encode(long[] timestamps, long[] prices, int from, int count) {
+      int exponent = POWERS_OF_TEN.length - 1;
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int i = from; i < from + count; i++) {
+        min = Math.min(min, prices[i]);
+        max = Math.max(max, prices[i]);
+        while (exponent > 0 && prices[i] % POWERS_OF_TEN[exponent] != 0) {
+          exponent--;
+        }
+      }
+      long divisor = POWERS_OF_TEN[exponent];
+      BitWriter out = new BitWriter(count);
+      long previousDelta = 0;
+      for (int i = from + 1; i < from + count; i++) {
+        long delta = timestamps[i] - timestamps[i - 1];
+        out.writeBucketed(delta - previousDelta, TIMESTAMP_WIDTHS);
+        previousDelta = delta;
+        out.writeBucketed(prices[i] / divisor - prices[i - 1] / divisor, PRICE_WIDTHS);
+      }
+      return new Block(timestamps[from], timestamps[from + count - 1], prices[from], min, max,
+          count, exponent, out.toArray());
+    }
+
+    /**
+     * Decodes all prices of the block in ascending order of time.
+     *
+     * @param consumer the consumer receiving the prices
+     */
+    void forEach(TickConsumer consumer) {
+      BitReader in = new BitReader(words);
+      long divisor = POWERS_OF_TEN[exponent];
+      long timestamp = firstTimestamp;
+      long scaledPrice = firstPrice / divisor;
+      long delta = 0;
+      consumer.accept(timestamp, firstPrice);
+      for (int i = 1; i < count; i++) {
+        delta += in.readBucketed(TIMESTAMP_WIDTHS);
+        timestamp += delta;
+        scaledPrice += in.readBucketed(PRICE_WIDTHS);
+        consumer.accept(timestamp, scaledPrice * divisor);
+      }
+    }
+
+    /**
+     * Decodes the prices of the block within a time window.
+     */
+    void forEach(long from, long to, TickConsumer consumer) {
+      forEach((timestamp, price) -> {
+        if (timestamp >= from && timestamp <= to) {
+          consumer.accept(timestamp, price);
+        }
+      });
+    }
+
+    /**
+     * Decodes the prices of the block into arrays.
+     *
+     * @return the position after the last decoded price
+     */
+    int decode(long[] timestamps, long[] prices, int offset) {
+      int[] position = {offset};
+      forEach((timestamp, price) -> {
+        timestamps[position[0]] = timestamp;
+        prices[position[0]++] = price;
+      });
+      return position[0];
+    }
+  }
+
+  /**
+   * Collects the range of the prices of a window from whole blocks and decoded prices.
+   */
+  private static final class RangeAccumulator {
+
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long oldest = Long.MAX_VALUE;
+    private long newest = Long.MIN_VALUE;
+
+    /**
+     * Adds the decoded prices of a block or the head which lie within the window.
+     */
+    void add(long[] timestamps, long[] prices, int size, long from, long to,
+        PriceReductions reductions) {
+      int first = reductions.lowerBound(timestamps, 0, size, from);
+      int end = to == Long.MAX_VALUE ? size : reductions.lowerBound(timestamps, first, size, to + 1);
+      if (first < end) {
+        min = Math.min(min, reductions.min(prices, first, end));
+        max = Math.max(max, reductions.max(prices, first, end));
+        oldest = Math.min(oldest, timestamps[first]);
+        newest = Math.max(newest, timestamps[end - 1]);
+      }
+    }
+
+    void add(Block block) {
+      min = Math.min(min, block.min);
+      max = Math.max(max, block.max);
+      oldest = Math.min(oldest, block.firstTimestamp);
+      newest = Math.max(newest, block.lastTimestamp);
+    }
+
+    Range toRange() {
+      return oldest > newest ? null : new Range(min, max, oldest, newest);
+    }
+  }
+
+  static long zigzagEncode(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long zigzagDecode(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Writes a bit stream into a growing array of words.
+   */
+  private static final class BitWriter {
+
+    private long[] words;
+    private long position;
+
+    BitWriter(int count) {
+      this.words = new long[Math.max(1, count / 4)];
+    }
+
+    void write(long value, int bits) {
+      int index = (int) (position >>> 6);
+      int offset = (int) (position & 63);
+      if (index + 1 >= words.length) {
+        words = Arrays.copyOf(words, words.length * 2 + 2);
+      }
+      long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+      words[index] |= masked << offset;
+      if (offset + bits > 64) {
+        words[index + 1] |= masked >>> (64 - offset);
+      }
+      position += bits;
+    }
+
+    /**
+     * Writes a value as a prefix of 1 bits selecting its width followed by its zigzag encoding.
+     */
+    void writeBucketed(long value, int[] widths) {
+      long zigzag = zigzagEncode(value);
+      if (zigzag == 0) {
+        write(0, 1);
+        return;
+      }
+      int bucket = 0;
+      while (bucket < widths.length - 1 && zigzag >>> widths[bucket] != 0) {
+        bucket++;
+      }
+      // bucket + 1 one bits, terminated by a zero bit unless it is the widest bucket
+      write((1L << (bucket + 1)) - 1, bucket == widths.length - 1 ? bucket + 1 : bucket + 2);
+      write(zigzag, widths[bucket]);
+    }
+
+    long[] toArray() {
+      return Arrays.copyOf(words, (int) ((position + 63) >>> 6));
+    }
+  }
+
+  /**
+   * Reads a bit stream written by a {@link BitWriter}.
+   */
+  private static final class BitReader {
+
+    private final long[] words;
+    private long position;
+
+    BitReader(long[] words) {
+      this.words = words;
+    }
+
+    long read(int bits) {
+      int index = (int) (position >>> 6);
+      int offset = (int) (position & 63);
+      long value = words[index] >>> offset;
+      if (offset + bits > 64) {
+        value |= words[index + 1] << (64 - offset);
+      }
+      position += bits;
+      return bits == 64 ? value : value & ((1L << bits) - 1);
+    }
+
+    long readBucketed(int[] widths) {
+      int ones = 0;
+      while (ones < widths.length && read(1) == 1) {
+        ones++;
+      }
+      return ones == 0 ? 0 : zigzagDecode(read(widths[ones - 1]));
+    }
+  }
+}
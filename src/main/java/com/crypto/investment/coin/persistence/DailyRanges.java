@@ -0,0 +1,133 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.PriceWriteListener;
+import com.crypto.investment.utils.EpochMillis;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Daily rollup of the prices of every coin, keyed by UTC day and coin and maintained from the
+ * prices written by the ingest. The coin with the highest normalized range of a day is found by
+ * looking at the handful of coins of that day instead of scanning the whole price history.
+ */
+@Component
+public class DailyRanges implements PriceWriteListener {
+
+  private final Map<Long, Map<String, DailyRange>> rangesByDay = new ConcurrentHashMap<>();
+
+  /**
+   * The prices of a coin on a single day. The open and close prices are the prices with the
+   * oldest and newest timestamp of the day.
+   *
+   * @param min       The minimum fixed-point price.
+   * @param max       The maximum fixed-point price.
+   * @param openTime  The timestamp of the open price in milliseconds since the epoch.
+   * @param open      The fixed-point open price.
+   * @param closeTime The timestamp of the close price in milliseconds since the epoch.
+   * @param close     The fixed-point close price.
+   */
+  public record DailyRange(long min, long max, long openTime, long open, long closeTime,
+                           long close) {
+
+    DailyRange merge(DailyRange other) {
+      boolean earlier = other.openTime < openTime;
+      boolean later = other.closeTime >= closeTime;
+      return new DailyRange(Math.min(min, other.min), Math.max(max, other.max),
+          earlier ? other.openTime : openTime, earlier ? other.open : open,
+          later ? other.closeTime : closeTime, later ? other.close : close);
+    }
+  }
+
+  /**
+   * Folds the written prices into the ranges of their day and coin. The prices of every coin in
+   * the chunk are sorted by time and reduced to one range per day with the
+   * {@link PriceReductions}, so that a day is merged once per chunk rather than once per price.
+   *
+   * @param prices The prices of the chunk.
+   */
+  @Override
+  public void onPricesWritten(List<PriceDto> prices) {
+    PriceReductions reductions = PriceReductions.get();
+    long[] timestamps = new long[prices.size()];
+    long[] values = new long[prices.size()];
+    int from = 0;
+    while (from < prices.size()) {
+      String coin = prices.get(from).coin();
+      int count = 0;
+      int to = from;
+      for (; to < prices.size() && prices.get(to).coin().equals(coin); to++) {
+        timestamps[count] = EpochMillis.of(prices.get(to).dateTime());
+        values[count++] = prices.get(to).fixedPointPrice();
+      }
+      long[] coinTimestamps = Arrays.copyOf(timestamps, count);
+      long[] coinPrices = Arrays.copyOf(values, count);
+      CoinSeries.sort(coinTimestamps, coinPrices);
+      reductions.forEachDay(coinTimestamps, coinPrices, count, (epochDay, first, end, min, max) ->
+          add(epochDay, coin, new DailyRange(min, max, coinTimestamps[first], coinPrices[first],
+              coinTimestamps[end - 1], coinPrices[end - 1])));
+      from = to;
+    }
+  }
+
+  /**
+   * Drops the ranges of all days.
+   */
+  @Override
+  public void onPricesDeleted() {
+    rangesByDay.clear();
+  }
+
+  /**
+   * Merges a range into the range of a day and coin.
+   *
+   * @param epochDay The day as number of days since the epoch.
+   * @param coin     The symbol of the coin.
+   * @param range    The range of new prices.
+   */
+  public void add(long epochDay, String coin, DailyRange range) {
+    rangesByDay.computeIfAbsent(epochDay, k -> new ConcurrentHashMap<>())
+        .merge(coin, range, DailyRange::merge);
+  }
+
+  /**
+   * @return {@code true} if no prices have been written yet
+   */
+  public boolean isEmpty() {
+    return rangesByDay.isEmpty();
+  }
+
+  /**
+   * @param date The day.
+   * @return The ranges of all coins with prices on that day.
+   */
+  public Map<String, DailyRange> get(LocalDate date) {
+    return rangesByDay.getOrDefault(date.toEpochDay(), Map.of());
+  }
+
+  /**
+   * Finds the coin with the highest normalized range {@code (max - min) / min} on a day.
+   *
+   * @param date The day.
+   * @return The symbol of the coin, or an empty optional if there are no prices on that day.
+   */
+  public Optional<String> getCoinWithMaxNormalizedRange(LocalDate date) {
+    String best = null;
+    DailyRange bestRange = null;
+    for (Map.Entry<String, DailyRange> entry : get(date).entrySet()) {
+      DailyRange range = entry.getValue();
+      if (bestRange == null || FixedPointPrice.compareNormalizedRanges(range.max(), range.min(),
+          bestRange.max(), bestRange.min()) > 0) {
+        best = entry.getKey();
+        bestRange = range;
+      }
+    }
+    return Optional.ofNullable(best);
+  }
+}
@@ -0,0 +1,110 @@
+package com.crypto.investment.coin.persistence;
+
+import com.crypto.investment.utils.EpochMillis;
+
+/**
+ * Reductions over the primitive arrays of a price series: the minimum and maximum of a range of
+ * positions, the first position of a time window, and the per day ranges of a series.
+ * <p>
+ * {@link #get()} returns the {@link VectorPriceReductions} if the {@code jdk.incubator.vector}
+ * module was added to the JVM with {@code --add-modules jdk.incubator.vector} and the CPU has SIMD
+ * registers of at least two longs, the {@link ScalarPriceReductions} otherwise.
+ */
+interface PriceReductions {
+
+  /**
+   * Receives the range of a day.
+   */
+  @FunctionalInterface
+  interface DayConsumer {
+
+    /**
+     * @param epochDay the day as number of days since the epoch
+     * @param from     the position of the first price of the day, inclusive
+     * @param to       the position after the last price of the day, exclusive
+     * @param min      the minimum price of the day
+     * @param max      the maximum price of the day
+     */
+    void accept(long epochDay, int from, int to, long min, long max);
+  }
+
+  /**
+   * @return the fastest reductions supported by the running JVM
+   */
+  static PriceReductions get() {
+    return Holder.BEST;
+  }
+
+  /**
+   * @param values the values
+   * @param from   the first position, inclusive
+   * @param to     the last position, exclusive
+   * @return the minimum value within {@code [from, to)}, or {@link Long#MAX_VALUE} if it is empty
+   */
+  long min(long[] values, int from, int to);
+
+  /**
+   * @param values the values
+   * @param from   the first position, inclusive
+   * @param to     the last position, exclusive
+   * @return the maximum value within {@code [from, to)}, or {@link Long#MIN_VALUE} if it is empty
+   */
+  long max(long[] values, int from, int to);
+
+  /**
+   * Scans sorted timestamps for the start of a time window. The scan is linear, it is meant for
+   * short distances such as the end of a day within the prices of a chunk.
+   *
+   * @param timestamps the timestamps in ascending order
+   * @param from       the first position to scan, inclusive
+   * @param to         the last position to scan, exclusive
+   * @param timestamp  the timestamp to search for
+   * @return the first position within {@code [from, to)} with a timestamp greater than or equal to
+   * the given one, or {@code to} if there is none
+   */
+  int lowerBound(long[] timestamps, int from, int to, long timestamp);
+
+  /**
+   * Splits a series into UTC days and reduces every day to its minimum and maximum price, from
+   * which its normalized range {@code (max - min) / min} follows.
+   *
+   * @param timestamps the timestamps in ascending order
+   * @param prices     the fixed-point prices
+   * @param count      the number of prices
+   * @param consumer   the consumer receiving the days in ascending order
+   */
+  default void forEachDay(long[] timestamps, long[] prices, int count, DayConsumer consumer) {
+    int from = 0;
+    while (from < count) {
+      long epochDay = Math.floorDiv(timestamps[from], EpochMillis.DAY);
+      int to = epochDay == Math.floorDiv(Long.MAX_VALUE, EpochMillis.DAY) ? count
+          : lowerBound(timestamps, from + 1, count, (epochDay + 1) * EpochMillis.DAY);
+      consumer.accept(epochDay, from, to, min(prices, from, to), max(prices, from, to));
+      from = to;
+    }
+  }
+
+  /**
+   * Selects the reductions once, on first use.
+   */
+  final class Holder {
+
+    static final PriceReductions BEST = select();
+
+    private Holder() {
+    }
+
+    private static PriceReductions select() {
+      if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+        try {
+          if (VectorPriceReductions.isAccelerated()) {
+            return new VectorPriceReductions();
+          }
+        } catch (LinkageError e) {
+          // the module cannot be used, fall back to the scalar loops
+        }
+      }
+      return new ScalarPriceReductions();
+    }
+  }
+}
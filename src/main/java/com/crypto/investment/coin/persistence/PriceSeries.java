@@ -0,0 +1,36 @@
+package com.crypto.investment.coin.persistence;
+
+/**
+ * The price series of a single coin held by the {@link CoinPriceStore}. Appends are serialized,
+ * readers never block.
+ */
+interface PriceSeries {
+
+  /**
+   * The prices of a series within a time window.
+   *
+   * @param min    The minimum fixed-point price.
+   * @param max    The maximum fixed-point price.
+   * @param oldest The timestamp of the oldest price in milliseconds since the epoch.
+   * @param newest The timestamp of the newest price in milliseconds since the epoch.
+   */
+  record Range(long min, long max, long oldest, long newest) {
+
+  }
+
+  /**
+   * Appends prices to the series.
+   *
+   * @param timestamps the timestamps of the new prices, in any order
+   * @param prices     the fixed-point prices
+   * @param count      the number of new prices
+   */
+  void append(long[] timestamps, long[] prices, int count);
+
+  /**
+   * @param from the start of the window in milliseconds since the epoch, inclusive
+   * @param to   the end of the window in milliseconds since the epoch, inclusive
+   * @return the range of the prices within the window, or {@code null} if there are none
+   */
+  Range range(long from, long to);
+}
@@ -0,0 +1,114 @@
+package com.crypto.investment.coin.persistence;
+
+import java.util.Arrays;
+
+/**
+ * Segment tree over the prices of a {@link CoinSeries}, answering the minimum and maximum price of
+ * any range of positions in O(log n). The tree is stored bottom-up in two arrays: the leaf of
+ * position {@code i} is node {@code capacity + i}, the parent of node {@code n} is {@code n / 2}.
+ * <p>
+ * Appending a price updates its leaf and the ancestors of that leaf only. Every one of those nodes
+ * covers the new position, so a query of an older snapshot, which only visits nodes that lie
+ * completely within its size, never reads a node that is being updated. This lets snapshots share
+ * an index the same way they share the price arrays.
+ */
+final class RangeIndex {
+
+  private final int capacity;
+  private final long[] min;
+  private final long[] max;
+
+  private RangeIndex(int capacity) {
+    this.capacity = capacity;
+    this.min = new long[2 * capacity];
+    this.max = new long[2 * capacity];
+    Arrays.fill(min, Long.MAX_VALUE);
+    Arrays.fill(max, Long.MIN_VALUE);
+  }
+
+  /**
+   * Builds an index over the first {@code size} prices, with room for at least {@code capacity}
+   * prices.
+   *
+   * @param prices   the prices
+   * @param size     the number of prices to index
+   * @param capacity the minimum number of prices the index can hold without a rebuild
+   * @return the index
+   */
+  static RangeIndex build(long[] prices, int size, int capacity) {
+    int required = Math.max(capacity, size);
+    RangeIndex index = new RangeIndex(required <= 1 ? 1 : Integer.highestOneBit(required - 1) << 1);
+    index.set(0, prices, size);
+    return index;
+  }
+
+  /**
+   * @param size a number of prices
+   * @return {@code true} if the index can hold the given number of prices
+   */
+  boolean fits(int size) {
+    return size <= capacity;
+  }
+
+  /**
+   * Sets the prices of {@code [from, from + count)} and recalculates their ancestors level by
+   * level, so that a bulk append costs O(count + log n).
+   *
+   * @param from   the position of the first price
+   * @param prices the prices, starting at index {@code from}
+   * @param count  the number of prices
+   */
+  void set(int from, long[] prices, int count) {
+    if (count == 0) {
+      return;
+    }
+    int low = capacity + from;
+    int high = low + count - 1;
+    for (int node = low; node <= high; node++) {
+      min[node] = prices[node - capacity];
+      max[node] = prices[node - capacity];
+    }
+    for (low >>= 1, high >>= 1; low >= 1; low >>= 1, high >>= 1) {
+      for (int node = low; node <= high; node++) {
+        min[node] = Math.min(min[2 * node], min[2 * node + 1]);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+      }
+    }
+  }
+
+  /**
+   * @param from the first position, inclusive
+   * @param to   the last position, exclusive
+   * @return the minimum price within {@code [from, to)}
+   */
+  long min(int from, int to) {
+    long result = Long.MAX_VALUE;
+    for (int low = from + capacity, high = to + capacity; low < high; low >>= 1, high >>= 1) {
+      if ((low & 1) == 1) {
+        result = Math.min(result, min[low++]);
+      }
+      if ((high & 1) == 1) {
+        result = Math.min(result, min[--high]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param from the first position, inclusive
+   * @param to   the last position, exclusive
+   * @return the maximum price within {@code [from, to)}
+   */
+  long max(int from, int to) {
+    long result = Long.MIN_VALUE;
+    for (int low = from + capacity, high = to + capacity; low < high; low >>= 1, high >>= 1) {
+      if ((low & 1) == 1) {
+        result = Math.max(result, max[low++]);
+      }
+      if ((high & 1) == 1) {
+        result = Math.max(result, max[--high]);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,35 @@
+package com.crypto.investment.coin.persistence;
+
+/**
+ * {@link PriceReductions} as plain loops, for JVMs without the {@code jdk.incubator.vector}
+ * module.
+ */
+final class ScalarPriceReductions implements PriceReductions {
+
+  @Override
+  public long min(long[] values, int from, int to) {
+    long min = Long.MAX_VALUE;
+    for (int i = from; i < to; i++) {
+      min = Math.min(min, values[i]);
+    }
+    return min;
+  }
+
+  @Override
+  public long max(long[] values, int from, int to) {
+    long max = Long.MIN_VALUE;
+    for (int i = from; i < to; i++) {
+      max = Math.max(max, values[i]);
+    }
+    return max;
+  }
+
+  @Override
+  public int lowerBound(long[] timestamps, int from, int to, long timestamp) {
+    int i = from;
+    while (i < to && timestamps[i] < timestamp) {
+      i++;
+    }
+    return i;
+  }
+}
@@ -0,0 +1,80 @@
+package com.crypto.investment.coin.persistence;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PriceReductions} with the Vector API, processing as many longs at once as the SIMD
+ * registers of the CPU hold: four with AVX2, eight with AVX-512. The elements after the last full
+ * vector are reduced in scalar loops.
+ * <p>
+ * This class must only be loaded if the {@code jdk.incubator.vector} module is present, see
+ * {@link PriceReductions#get()}.
+ */
+final class VectorPriceReductions implements PriceReductions {
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  /**
+   * @return {@code true} if a vector holds more than one long, otherwise the scalar loops are
+   * faster
+   */
+  static boolean isAccelerated() {
+    return SPECIES.length() > 1;
+  }
+
+  @Override
+  public long min(long[] values, int from, int to) {
+    int i = from;
+    long min = Long.MAX_VALUE;
+    int bound = from + SPECIES.loopBound(to - from);
+    if (i < bound) {
+      LongVector minimums = LongVector.fromArray(SPECIES, values, i);
+      for (i += SPECIES.length(); i < bound; i += SPECIES.length()) {
+        minimums = minimums.min(LongVector.fromArray(SPECIES, values, i));
+      }
+      min = minimums.reduceLanes(VectorOperators.MIN);
+    }
+    for (; i < to; i++) {
+      min = Math.min(min, values[i]);
+    }
+    return min;
+  }
+
+  @Override
+  public long max(long[] values, int from, int to) {
+    int i = from;
+    long max = Long.MIN_VALUE;
+    int bound = from + SPECIES.loopBound(to - from);
+    if (i < bound) {
+      LongVector maximums = LongVector.fromArray(SPECIES, values, i);
+      for (i += SPECIES.length(); i < bound; i += SPECIES.length()) {
+        maximums = maximums.max(LongVector.fromArray(SPECIES, values, i));
+      }
+      max = maximums.reduceLanes(VectorOperators.MAX);
+    }
+    for (; i < to; i++) {
+      max = Math.max(max, values[i]);
+    }
+    return max;
+  }
+
+  @Override
+  public int lowerBound(long[] timestamps, int from, int to, long timestamp) {
+    int i = from;
+    int bound = from + SPECIES.loopBound(to - from);
+    for (; i < bound; i += SPECIES.length()) {
+      VectorMask<Long> reached = LongVector.fromArray(SPECIES, timestamps, i)
+          .compare(VectorOperators.GE, timestamp);
+      if (reached.anyTrue()) {
+        return i + reached.firstTrue();
+      }
+    }
+    while (i < to && timestamps[i] < timestamp) {
+      i++;
+    }
+    return i;
+  }
+}
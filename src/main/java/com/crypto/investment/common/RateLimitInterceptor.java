@@ -1,77 +1,105 @@
 package com.crypto.investment.common;
 
-import com.crypto.investment.exception.RateLimitException;
+import com.crypto.investment.exception.ExceptionInformation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import org.springframework.beans.factory.annotation.Value;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 /**
  * Helps to control the number of requests that can be made to the application from a single IP
- * address within a specified time window.
+ * address within a specified time window. The decisions are counted in the
+ * {@code rate.limit.requests} metric, tagged with the result, and the number of tracked clients
+ * is published as {@code rate.limit.tracked.clients}.
  */
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
-  private final Map<String, RateLimitInterceptor.RequestCounter> requestCounts = new ConcurrentHashMap<>();
+  /**
+   * Header with the number of requests the client may still make in the current window.
+   */
+  public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+  /**
+   * Header with the end of the current window in seconds since the epoch.
+   */
+  public static final String RESET_HEADER = "X-RateLimit-Reset";
 
   /**
-   * The maximum number of requests allowed per time window.
+   * The message returned to clients exceeding the rate limit.
    */
-  @Value("${rate.limit.per.window}")
-  private int maxPerTimeWindow = 10;
+  static final String REJECTED_MESSAGE = "Too many requests from your IP address. Please try again later.";
+
+  private final RateLimiter rateLimiter;
 
   /**
-   * The duration of the time window in milliseconds.
+   * The serialized {@link ExceptionInformation} of a rejected request, written as it is.
    */
-  @Value("${rate.limit.time.window}")
-  private long timeWindow = 60000;
+  private final byte[] rejectedBody;
+
+  private final Counter acceptedRequests;
+  private final Counter rejectedRequests;
+
+  @Autowired
+  public RateLimitInterceptor(RateLimiter rateLimiter, ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) throws JsonProcessingException {
+    this.rateLimiter = rateLimiter;
+    this.rejectedBody = objectMapper.writeValueAsBytes(
+        new ExceptionInformation(REJECTED_MESSAGE));
+    this.acceptedRequests = requestCounter(meterRegistry, "accepted");
+    this.rejectedRequests = requestCounter(meterRegistry, "rejected");
+    Gauge.builder("rate.limit.tracked.clients", rateLimiter, RateLimiter::getTrackedClients)
+        .description("Clients with a rate limit window")
+        .register(meterRegistry);
+  }
 
+  private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("rate.limit.requests")
+        .description("Requests checked by the rate limiter")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
 
   /**
    * This method is called before the request is handled by the controller. It checks the number of
-   * requests made by the client IP address within the time window. If the limit is exceeded, a
-   * {@link RateLimitException} is thrown.
+   * requests made by the client IP address within the time window. If the limit is exceeded, the
+   * 429 response is written directly and the request is not processed any further.
    *
    * @param request  The {@link HttpServletRequest} object that contains the request details.
    * @param response The {@link HttpServletResponse} object that will be used to send the response.
    * @param handler  The handler (controller) that will handle the request.
    * @return {@code true} if the request should be processed; {@code false} otherwise.
-   * @throws RateLimitException if the rate limit is exceeded.
+   * @throws IOException if the 429 response could not be written.
    */
   @Override
   public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
-      Object handler) {
-
-    String clientIP = request.getRemoteAddr();
-    RateLimitInterceptor.RequestCounter counter = requestCounts.computeIfAbsent(clientIP,
-        k -> new RateLimitInterceptor.RequestCounter());
-
-    synchronized (counter) {
-      long currentTime = Instant.now().toEpochMilli();
-
-      if (currentTime - counter.timestamp > timeWindow) {
-        counter.timestamp = currentTime;
-        counter.requests = 0;
-      }
-      counter.requests++;
-      if (counter.requests > maxPerTimeWindow) {
-        throw new RateLimitException();
-      }
+      Object handler) throws IOException {
+    long decision = rateLimiter.acquire(request.getRemoteAddr());
+    response.setIntHeader(REMAINING_HEADER, rateLimiter.getRemaining(decision));
+    response.setHeader(RESET_HEADER,
+        Long.toString((rateLimiter.getResetTime(decision) + 999) / 1000));
+    if (RateLimiter.isAccepted(decision)) {
+      acceptedRequests.increment();
+      return true;
     }
-    return true;
-  }
-
-  /**
-   * A helper class to track the number of requests and the timestamp for each client IP address.
-   */ 
-  private static class RequestCounter {
+    rejectedRequests.increment();
 
-    long timestamp;
-    int requests;
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER,
+        Long.toString(rateLimiter.getRetryAfterSeconds(decision)));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setContentLength(rejectedBody.length);
+    response.getOutputStream().write(rejectedBody);
+    return false;
   }
 }
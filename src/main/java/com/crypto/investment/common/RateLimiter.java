@@ -0,0 +1,270 @@
+package com.crypto.investment.common;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lock-free limiter of the number of requests a client may make within a time window. The state
+ * of a client, the start of its current window and the number of requests in it, is packed into a
+ * single {@link AtomicLong} and updated by compare-and-set, so requests never block each other.
+ * <p>
+ * Clients whose window has expired hold no information and are evicted by a background sweeper.
+ * An evicted state is marked as such before it is unlinked, so that a request racing with the
+ * eviction retries on a fresh state instead of counting on the unlinked one.
+ * <p>
+ * At most about {@code rate.limit.max.clients} clients are tracked. A new client arriving when the
+ * limit is reached makes room inline: the idle clients are evicted, and at least a tenth of the
+ * clients, those whose window started first, so that a flood of new clients, e.g. with spoofed
+ * addresses, does not lock out the others. An evicted client which was not idle starts a new
+ * window with its next request.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+  /**
+   * The number of low bits of the state holding the request count. The remaining bits hold the
+   * window start in milliseconds since the epoch.
+   */
+  private static final int COUNT_BITS = 21;
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  /**
+   * The bit of a decision marking a rejected request.
+   */
+  private static final long REJECTED = Long.MIN_VALUE;
+
+  /**
+   * The state of a client which has been evicted. Never a valid state, as the window start is
+   * positive.
+   */
+  private static final long EVICTED = -1L;
+
+  /**
+   * The fraction of the clients evicted at least when a new client arrives at the limit.
+   */
+  private static final int EVICTION_DIVISOR = 10;
+
+  private final Map<String, AtomicLong> clients = new ConcurrentHashMap<>();
+  private final int maxPerTimeWindow;
+  private final long timeWindow;
+  private final int maxClients;
+  private final LongSupplier clock;
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private ScheduledExecutorService sweeper;
+
+  /**
+   * @param maxPerTimeWindow the maximum number of requests allowed per time window
+   * @param timeWindow       the duration of the time window in milliseconds
+   * @param maxClients       the maximum number of clients tracked at the same time
+   */
+  @Autowired
+  public RateLimiter(@Value("${rate.limit.per.window}") int maxPerTimeWindow,
+      @Value("${rate.limit.time.window}") long timeWindow,
+      @Value("${rate.limit.max.clients:100000}") int maxClients) {
+    this(maxPerTimeWindow, timeWindow, maxClients, System::currentTimeMillis);
+  }
+
+  RateLimiter(int maxPerTimeWindow, long timeWindow, int maxClients, LongSupplier clock) {
+    this.maxPerTimeWindow = (int) Math.min(maxPerTimeWindow, COUNT_MASK);
+    this.timeWindow = timeWindow;
+    this.maxClients = maxClients;
+    this.clock = clock;
+  }
+
+  /**
+   * Starts the background sweeper evicting idle clients once per time window.
+   */
+  @PostConstruct
+  void startSweeper() {
+    sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "rate-limit-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(timeWindow, 1000);
+    sweeper.scheduleAtFixedRate(this::evictIdleClients, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stopSweeper() {
+    if (sweeper != null) {
+      sweeper.shutdownNow();
+    }
+  }
+
+  /**
+   * Records a request of a client.
+   *
+   * @param client the client, e.g. its IP address
+   * @return {@code true} if the request is within the limit; {@code false} otherwise
+   */
+  public boolean tryAcquire(String client) {
+    return isAccepted(acquire(client));
+  }
+
+  /**
+   * Records a request of a client and returns the decision together with the state of the client's
+   * window, packed into a {@code long} so that no object is allocated. The decision is read with
+   * {@link #isAccepted(long)}, {@link #getRemaining(long)} and {@link #getResetTime(long)}.
+   *
+   * @param client the client, e.g. its IP address
+   * @return the packed decision
+   */
+  public long acquire(String client) {
+    long now = clock.getAsLong();
+    while (true) {
+      AtomicLong state = clients.get(client);
+      if (state == null) {
+        if (clients.size() >= maxClients) {
+          makeRoom(now);
+        }
+        state = clients.computeIfAbsent(client, k -> new AtomicLong(pack(now, 0)));
+      }
+      long decision = acquire(state, now);
+      if (decision != EVICTED) {
+        return decision;
+      }
+    }
+  }
+
+  /**
+   * @return the packed decision, or {@link #EVICTED} if the state has been evicted meanwhile
+   */
+  private long acquire(AtomicLong state, long now) {
+    while (true) {
+      long current = state.get();
+      long next;
+      if (current == EVICTED) {
+        return EVICTED;
+      } else if (now - windowStart(current) > timeWindow) {
+        next = pack(now, 1);
+      } else if (count(current) >= maxPerTimeWindow) {
+        return current | REJECTED;
+      } else {
+        next = current + 1;
+      }
+      if (state.compareAndSet(current, next)) {
+        return next;
+      }
+    }
+  }
+
+  /**
+   * @param decision a decision returned by {@link #acquire(String)}
+   * @return {@code true} if the request is within the limit
+   */
+  public static boolean isAccepted(long decision) {
+    return (decision & REJECTED) == 0;
+  }
+
+  /**
+   * @param decision a decision returned by {@link #acquire(String)}
+   * @return the number of requests the client may still make in the current window
+   */
+  public int getRemaining(long decision) {
+    return (int) Math.max(maxPerTimeWindow - count(decision & ~REJECTED), 0);
+  }
+
+  /**
+   * @param decision a decision returned by {@link #acquire(String)}
+   * @return the time in milliseconds since the epoch at which the current window ends
+   */
+  public long getResetTime(long decision) {
+    return windowStart(decision & ~REJECTED) + timeWindow + 1;
+  }
+
+  /**
+   * @param decision a decision returned by {@link #acquire(String)}
+   * @return the number of seconds, at least one, until the current window ends
+   */
+  public long getRetryAfterSeconds(long decision) {
+    long millis = getResetTime(decision) - clock.getAsLong();
+    return Math.max((millis + 999) / 1000, 1);
+  }
+
+  /**
+   * Removes the clients whose time window has expired. Their next request starts a new window
+   * anyway, so removing them does not change any decision.
+   */
+  public void evictIdleClients() {
+    int evicted = evictWindowsStartedUpTo(clock.getAsLong() - timeWindow - 1);
+    log.debug("Evicted {} idle rate limit clients", evicted);
+  }
+
+  /**
+   * Makes room for a new client by evicting the idle clients and at least a tenth of all clients,
+   * those whose window started first. Only one thread makes room at a time, the others go ahead.
+   */
+  private void makeRoom(long now) {
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      long[] windowStarts = clients.values().stream().mapToLong(AtomicLong::get)
+          .filter(state -> state != EVICTED).map(RateLimiter::windowStart).toArray();
+      if (windowStarts.length < maxClients) {
+        return;
+      }
+      Arrays.sort(windowStarts);
+      long oldest = windowStarts[Math.max(windowStarts.length / EVICTION_DIVISOR, 1) - 1];
+      int evicted = evictWindowsStartedUpTo(Math.max(oldest, now - timeWindow - 1));
+      log.debug("Evicted {} rate limit clients to make room for new ones", evicted);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Evicts the clients whose window started at or before the given time. A state is marked as
+   * {@link #EVICTED} before it is unlinked, a concurrent request then retries on a new state.
+   *
+   * @return the number of evicted clients
+   */
+  private int evictWindowsStartedUpTo(long windowStart) {
+    int[] evicted = new int[1];
+    for (String client : clients.keySet()) {
+      clients.computeIfPresent(client, (k, state) -> {
+        long current = state.get();
+        if (windowStart(current) <= windowStart && state.compareAndSet(current, EVICTED)) {
+          evicted[0]++;
+          return null;
+        }
+        return state;
+      });
+    }
+    return evicted[0];
+  }
+
+  /**
+   * @return the number of clients currently tracked
+   */
+  public int getTrackedClients() {
+    return clients.size();
+  }
+
+  private static long pack(long windowStart, long count) {
+    return windowStart << COUNT_BITS | count;
+  }
+
+  private static long windowStart(long state) {
+    return state >>> COUNT_BITS;
+  }
+
+  private static long count(long state) {
+    return state & COUNT_MASK;
+  }
+}
@@ -1,5 +1,6 @@
 package com.crypto.investment.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -13,28 +14,73 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 public class AppExceptionHandler {
 
   /**
-   * Handles {@link RateLimitException}
+   * Handles {@link NotSupportedCoinException}
    *
-   * @param ex The {@link RateLimitException} that was thrown.
+   * @param ex The {@link NotSupportedCoinException} that was thrown.
    * @return A {@code ResponseEntity} containing an {@link ExceptionInformation} object with the
    * exception message.
    */
-  @ExceptionHandler(RateLimitException.class)
-  public ResponseEntity<ExceptionInformation> handleRateLimitException(RateLimitException ex) {
-    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+  @ExceptionHandler(NotSupportedCoinException.class)
+  public ResponseEntity<ExceptionInformation> handleCoinValidationException(
+      NotSupportedCoinException ex) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
         .body(new ExceptionInformation(ex.getMessage()));
   }
 
   /**
-   * Handles {@link NotSupportedCoinException}
+   * Handles {@link DataNotReadyException} with a {@code Retry-After} header, so that clients come
+   * back once the data is likely to be loaded.
    *
-   * @param ex The {@link NotSupportedCoinException} that was thrown.
+   * @param ex The {@link DataNotReadyException} that was thrown.
    * @return A {@code ResponseEntity} containing an {@link ExceptionInformation} object with the
    * exception message.
    */
-  @ExceptionHandler(NotSupportedCoinException.class)
-  public ResponseEntity<ExceptionInformation> handleCoinValidationException(
-      NotSupportedCoinException ex) {
+  @ExceptionHandler(DataNotReadyException.class)
+  public ResponseEntity<ExceptionInformation> handleDataNotReadyException(
+      DataNotReadyException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+        .body(new ExceptionInformation(ex.getMessage()));
+  }
+
+  /**
+   * Handles {@link DataUnavailableException} without a {@code Retry-After} header, as the data will
+   * not become available by waiting.
+   *
+   * @param ex The {@link DataUnavailableException} that was thrown.
+   * @return A {@code ResponseEntity} containing an {@link ExceptionInformation} object with the
+   * exception message.
+   */
+  @ExceptionHandler(DataUnavailableException.class)
+  public ResponseEntity<ExceptionInformation> handleDataUnavailableException(
+      DataUnavailableException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body(new ExceptionInformation(ex.getMessage()));
+  }
+
+  /**
+   * Handles {@link NoPricesFoundException}, e.g. a time window without any price of the coin.
+   *
+   * @param ex The {@link NoPricesFoundException} that was thrown.
+   * @return A {@code ResponseEntity} containing an {@link ExceptionInformation} object with the
+   * exception message.
+   */
+  @ExceptionHandler(NoPricesFoundException.class)
+  public ResponseEntity<ExceptionInformation> handleNoPricesFoundException(
+      NoPricesFoundException ex) {
+    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+        .body(new ExceptionInformation(ex.getMessage()));
+  }
+
+  /**
+   * Handles {@link BadRequestException}, e.g. a time window starting after its end.
+   *
+   * @param ex The {@link BadRequestException} that was thrown.
+   * @return A {@code ResponseEntity} containing an {@link ExceptionInformation} object with the
+   * exception message.
+   */
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<ExceptionInformation> handleBadRequestException(BadRequestException ex) {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST)
         .body(new ExceptionInformation(ex.getMessage()));
   }
@@ -0,0 +1,12 @@
+package com.crypto.investment.exception;
+
+/**
+ * {@code BadRequestException} is a custom runtime exception thrown when the parameters of a request
+ * are invalid, e.g. a time window starting after its end or an unsupported candle interval.
+ */
+public class BadRequestException extends RuntimeException {
+
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,22 @@
+package com.crypto.investment.exception;
+
+/**
+ * {@code DataNotReadyException} is a custom runtime exception thrown when the requested data is
+ * still being loaded. Clients are asked to retry after {@link #getRetryAfterSeconds()} seconds.
+ */
+public class DataNotReadyException extends RuntimeException {
+
+  /**
+   * The number of seconds after which the client should retry.
+   */
+  private final long retryAfterSeconds;
+
+  public DataNotReadyException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,13 @@
+package com.crypto.investment.exception;
+
+/**
+ * {@code DataUnavailableException} is a custom runtime exception thrown when the requested data
+ * could not be loaded completely, e.g. because the ingest failed. Unlike a
+ * {@link DataNotReadyException}, retrying does not help before the prices are loaded again.
+ */
+public class DataUnavailableException extends RuntimeException {
+
+  public DataUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.crypto.investment.exception;
+
+/**
+ * {@code NoPricesFoundException} is a custom runtime exception thrown when a valid request matches
+ * no prices, e.g. a time window of a coin or a day without any price.
+ */
+public class NoPricesFoundException extends RuntimeException {
+
+  public NoPricesFoundException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,135 @@
+package com.crypto.investment.price.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point representation of prices: a price is held as a {@code long} counting units of
+ * 10<sup>-{@value #SCALE}</sup>. This keeps price arithmetic and comparisons exact without
+ * allocating {@link BigDecimal} objects.
+ */
+public final class FixedPointPrice {
+
+  /**
+   * The number of decimal digits kept after the decimal point.
+   */
+  public static final int SCALE = 8;
+
+  /**
+   * The minimum number of decimal digits of prices converted back to {@link BigDecimal}.
+   */
+  private static final int DISPLAY_SCALE = 2;
+
+  private static final long[] POWERS_OF_TEN = new long[SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i <= SCALE; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private FixedPointPrice() {
+  }
+
+  /**
+   * Converts a price to its fixed-point value, rounding half-even beyond {@value #SCALE} digits.
+   *
+   * @param price The price.
+   * @return The fixed-point value.
+   * @throws ArithmeticException if the price does not fit into a {@code long}.
+   */
+  public static long of(BigDecimal price) {
+    return price.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Converts an unscaled decimal value, e.g. as read by a parser, to its fixed-point value.
+   *
+   * @param unscaledValue The unscaled value.
+   * @param scale         The number of digits after the decimal point of the unscaled value.
+   * @return The fixed-point value.
+   * @throws ArithmeticException if the price does not fit into a {@code long}.
+   */
+  public static long of(long unscaledValue, int scale) {
+    if (scale <= SCALE) {
+      return Math.multiplyExact(unscaledValue, POWERS_OF_TEN[SCALE - scale]);
+    }
+    return of(BigDecimal.valueOf(unscaledValue, scale));
+  }
+
+  /**
+   * Parses a plain decimal price, e.g. {@code 40000.50}, to its fixed-point value without creating
+   * intermediate objects. Prices with more than {@value #SCALE} fraction digits, more than 18
+   * digits or in exponent notation are parsed as {@link BigDecimal} and rounded half-even.
+   *
+   * @param text The decimal price.
+   * @return The fixed-point value.
+   * @throws NumberFormatException if the text is not a decimal number.
+   * @throws ArithmeticException   if the price does not fit into a {@code long}.
+   */
+  public static long parse(CharSequence text) {
+    int length = text.length();
+    int pos = 0;
+    boolean negative = false;
+    if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+      negative = text.charAt(0) == '-';
+      pos++;
+    }
+    long unscaledValue = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; pos < length; pos++) {
+      char c = text.charAt(pos);
+      if (c == '.' && scale < 0) {
+        scale = 0;
+        continue;
+      }
+      if (c < '0' || c > '9' || digits == 18) {
+        return of(new BigDecimal(text.toString()));
+      }
+      unscaledValue = unscaledValue * 10 + (c - '0');
+      digits++;
+      if (scale >= 0) {
+        scale++;
+      }
+    }
+    if (digits == 0) {
+      throw new NumberFormatException("Not a decimal price: \"" + text + "\"");
+    }
+    return of(negative ? -unscaledValue : unscaledValue, Math.max(scale, 0));
+  }
+
+  /**
+   * Converts a fixed-point value to a {@link BigDecimal} without trailing zeros, but with at least
+   * two digits after the decimal point.
+   *
+   * @param value The fixed-point value.
+   * @return The price.
+   */
+  public static BigDecimal toBigDecimal(long value) {
+    BigDecimal price = BigDecimal.valueOf(value, SCALE).stripTrailingZeros();
+    return price.scale() < DISPLAY_SCALE ? price.setScale(DISPLAY_SCALE) : price;
+  }
+
+  /**
+   * Compares the normalized ranges {@code (max - min) / min} of two price series exactly. As the
+   * normalized range equals {@code max / min - 1}, the ratios {@code max1 / min1} and
+   * {@code max2 / min2} are compared by cross multiplication in 128-bit arithmetic.
+   *
+   * @param max1 The maximum of the first series.
+   * @param min1 The positive minimum of the first series.
+   * @param max2 The maximum of the second series.
+   * @param min2 The positive minimum of the second series.
+   * @return A negative number, zero or a positive number if the first normalized range is less
+   * than, equal to or greater than the second.
+   */
+  public static int compareNormalizedRanges(long max1, long min1, long max2, long min2) {
+    long high1 = Math.multiplyHigh(max1, min2);
+    long high2 = Math.multiplyHigh(max2, min1);
+    if (high1 != high2) {
+      return Long.compare(high1, high2);
+    }
+    return Long.compareUnsigned(max1 * min2, max2 * min1);
+  }
+}
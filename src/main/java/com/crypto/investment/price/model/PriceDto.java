@@ -4,12 +4,29 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
- * Represents the price information of a cryptocurrency.
+ * Represents the price information of a cryptocurrency. The price is held as
+ * {@link FixedPointPrice} value, {@link #price()} converts it for the API.
  *
- * @param dateTime The price date and time.
- * @param coin     The symbol of the cryptocurrency (e.g., BTC, ETH).
- * @param price    The price of the cryptocurrency at the specified {@code dateTime}.
+ * @param dateTime        The price date and time.
+ * @param coin            The symbol of the cryptocurrency (e.g., BTC, ETH).
+ * @param fixedPointPrice The fixed-point price of the cryptocurrency at the specified
+ *                        {@code dateTime}.
  */
-public record PriceDto(LocalDateTime dateTime, String coin, BigDecimal price) {
+public record PriceDto(LocalDateTime dateTime, String coin, long fixedPointPrice) {
 
+  /**
+   * @param dateTime The price date and time.
+   * @param coin     The symbol of the cryptocurrency (e.g., BTC, ETH).
+   * @param price    The price of the cryptocurrency at the specified {@code dateTime}.
+   */
+  public PriceDto(LocalDateTime dateTime, String coin, BigDecimal price) {
+    this(dateTime, coin, FixedPointPrice.of(price));
+  }
+
+  /**
+   * @return The price of the cryptocurrency at the specified {@code dateTime}.
+   */
+  public BigDecimal price() {
+    return FixedPointPrice.toBigDecimal(fixedPointPrice);
+  }
 }
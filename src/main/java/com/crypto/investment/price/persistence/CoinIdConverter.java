@@ -0,0 +1,33 @@
+package com.crypto.investment.price.persistence;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Maps coin symbols to the {@code coin_id} column through the {@link CoinRepository}. Coins
+ * which are not in the repository yet are added to it. The repository is resolved on first use,
+ * as the converter is created together with the entity manager factory.
+ */
+@Converter
+public class CoinIdConverter implements AttributeConverter<String, Short> {
+
+  private final ObjectProvider<CoinRepository> coinRepository;
+
+  @Autowired
+  public CoinIdConverter(ObjectProvider<CoinRepository> coinRepository) {
+    this.coinRepository = coinRepository;
+  }
+
+  @Override
+  public Short convertToDatabaseColumn(String coin) {
+    return coin == null ? null : coinRepository.getObject().addCoin(coin);
+  }
+
+  @Override
+  public String convertToEntityAttribute(Short id) {
+    return id == null ? null : coinRepository.getObject().getSymbol(id);
+  }
+}
@@ -0,0 +1,58 @@
+package com.crypto.investment.price.persistence;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version of the price data, incremented by every writer once its prices are visible to the
+ * queries. Results derived from the prices, e.g. cached rankings or HTTP validators, are valid as
+ * long as the version has not changed.
+ */
+@Component
+public class DataVersion {
+
+  /**
+   * A version of the price data.
+   *
+   * @param number       The version number, starting at {@code 0} when the application starts.
+   * @param lastModified The time of the last change in milliseconds since the epoch, or the start
+   *                     of the application if nothing has been written yet.
+   * @param instance     The start of the application in milliseconds since the epoch, telling
+   *                     apart the version numbers of different runs.
+   */
+  public record Version(long number, long lastModified, long instance) {
+
+    /**
+     * @return The entity tag of responses derived from this version.
+     */
+    public String etag() {
+      return "\"" + Long.toHexString(instance) + "-" + number + "\"";
+    }
+  }
+
+  private final AtomicReference<Version> current;
+
+  public DataVersion() {
+    long now = System.currentTimeMillis();
+    this.current = new AtomicReference<>(new Version(0, now, now));
+  }
+
+  /**
+   * @return The current version.
+   */
+  public Version current() {
+    return current.get();
+  }
+
+  /**
+   * Marks the price data as changed. Writers call this after their changes have been committed and
+   * applied to the read models.
+   *
+   * @return The new version.
+   */
+  public Version increment() {
+    long now = System.currentTimeMillis();
+    return current.updateAndGet(version -> new Version(version.number() + 1,
+        Math.max(now, version.lastModified()), version.instance()));
+  }
+}
@@ -0,0 +1,24 @@
+package com.crypto.investment.price.persistence;
+
+import com.crypto.investment.price.model.FixedPointPrice;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link BigDecimal} prices to the {@link FixedPointPrice} values of the {@code price}
+ * column.
+ */
+@Converter
+public class FixedPointPriceConverter implements AttributeConverter<BigDecimal, Long> {
+
+  @Override
+  public Long convertToDatabaseColumn(BigDecimal price) {
+    return price == null ? null : FixedPointPrice.of(price);
+  }
+
+  @Override
+  public BigDecimal convertToEntityAttribute(Long value) {
+    return value == null ? null : FixedPointPrice.toBigDecimal(value);
+  }
+}
@@ -1,10 +1,14 @@
 package com.crypto.investment.price.persistence;
 
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.price.model.FixedPointPrice;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,7 +18,9 @@ import lombok.Data;
  * Represents the price of a cryptocurrency.
  */
 @Entity
-@Table(name = "price")
+@Table(name = "price", indexes = {
+    @Index(name = "price_coin_date_idx", columnList = "coin_id, price_date", unique = true),
+    @Index(name = "price_date_idx", columnList = "price_date")})
 @Data
 public class Price {
 
@@ -33,14 +39,17 @@ public class Price {
   private LocalDateTime priceDate;
 
   /**
-   * The price of the cryptocurrency.
+   * The price of the cryptocurrency, stored as {@link FixedPointPrice} value.
    */
   @Column
+  @Convert(converter = FixedPointPriceConverter.class)
   private BigDecimal price;
 
   /**
-   * The symbol of the cryptocurrency (e.g., BTC, ETH).
+   * The symbol of the cryptocurrency (e.g., BTC, ETH), stored as the id of the coin in the
+   * {@link CoinRepository}.
    */
-  @Column
+  @Column(name = "coin_id")
+  @Convert(converter = CoinIdConverter.class)
   private String coin;
 }
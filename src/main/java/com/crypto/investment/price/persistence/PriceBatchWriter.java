@@ -0,0 +1,245 @@
+package com.crypto.investment.price.persistence;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.exception.CSVImportException;
+import com.crypto.investment.price.model.PriceDto;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk-ingest path for {@link Price} rows. Prices are written with JDBC batch inserts, one
+ * transaction per chunk, which avoids the per-row persist and identity round trip of
+ * {@link PriceRepository#save(Object)}.
+ */
+@Slf4j
+@Repository
+public class PriceBatchWriter {
+
+  /**
+   * SQL statement to insert a single price row unless the coin already has a price at that date,
+   * in which case the update count is 0 and the stored price is kept. The identifier is generated
+   * by the database.
+   */
+  public static final String INSERT_PRICE = "merge into price p using (values (cast(? as timestamp), cast(? as bigint), cast(? as smallint))) v (price_date, price, coin_id) on p.coin_id = v.coin_id and p.price_date = v.price_date when not matched then insert (price_date, price, coin_id) values (v.price_date, v.price, v.coin_id)";
+
+  /**
+   * SQL statement to read back all prices, e.g. to rebuild the read models from a persistent
+   * database.
+   */
+  static final String SELECT_PRICES = "select price_date, price, coin_id from price order by coin_id, price_date";
+
+  /**
+   * SQL statement to delete all prices, keeping the coin dictionary.
+   */
+  static final String DELETE_PRICES = "truncate table price";
+
+  /**
+   * The number of attempts to write a chunk which collides with concurrently committed prices.
+   */
+  static final int MAX_WRITE_ATTEMPTS = 4;
+
+  /**
+   * The pause before the second attempt to write a chunk in milliseconds, doubled for every
+   * further attempt.
+   */
+  private static final long RETRY_BACKOFF_MILLIS = 10;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CoinRepository coinRepository;
+  private final DataVersion dataVersion;
+  private final TransactionTemplate transactionTemplate;
+  private final List<PriceWriteListener> listeners;
+
+  /**
+   * The number of rows sent to the database in a single JDBC batch and transaction.
+   */
+  @Value("${ingest.batch.size:1000}")
+  private int batchSize = 1000;
+
+  @Autowired
+  public PriceBatchWriter(JdbcTemplate jdbcTemplate, CoinRepository coinRepository,
+      DataVersion dataVersion, PlatformTransactionManager transactionManager,
+      ObjectProvider<PriceWriteListener> listeners) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.coinRepository = coinRepository;
+    this.dataVersion = dataVersion;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.listeners = listeners.orderedStream().toList();
+  }
+
+  /**
+   * Writes the given prices in chunks of {@code ingest.batch.size} rows. Every chunk is committed
+   * in its own transaction. Prices of a coin at a date which is already stored are skipped.
+   *
+   * @param prices The prices to insert.
+   * @return The number of rows inserted.
+   */
+  public int write(List<PriceDto> prices) {
+    int written = 0;
+    for (int from = 0; from < prices.size(); from += batchSize) {
+      List<PriceDto> chunk = prices.subList(from, Math.min(from + batchSize, prices.size()));
+      written += writeChunk(chunk);
+    }
+    return written;
+  }
+
+  /**
+   * Passes all prices stored in the {@code price} table to the {@link PriceWriteListener}s, coin by
+   * coin in chunks of {@code ingest.batch.size} rows. Used to build the read models from a
+   * persistent database instead of from the CSV files. Once all prices of a coin have been passed
+   * on, the {@link DataVersion} is incremented and the coin is handed to {@code onCoinReplayed}, so
+   * that it can be served while the next coins are replayed.
+   *
+   * @param onCoinReplayed Receives the symbol of every coin whose prices have been replayed.
+   * @return The number of prices replayed.
+   */
+  public long replay(Consumer<String> onCoinReplayed) {
+    Long replayed = jdbcTemplate.query(SELECT_PRICES, (ResultSetExtractor<Long>) rs -> {
+      long count = 0;
+      List<PriceDto> chunk = new ArrayList<>(batchSize);
+      String coin = null;
+      while (rs.next()) {
+        String symbol = coinRepository.getSymbol(rs.getShort("coin_id"));
+        if (coin != null && !coin.equals(symbol)) {
+          count += notifyListeners(chunk);
+          chunk = new ArrayList<>(batchSize);
+          coinReplayed(coin, onCoinReplayed);
+        }
+        coin = symbol;
+        chunk.add(new PriceDto(rs.getTimestamp("price_date").toLocalDateTime(), symbol,
+            rs.getLong("price")));
+        if (chunk.size() == batchSize) {
+          count += notifyListeners(chunk);
+          chunk = new ArrayList<>(batchSize);
+        }
+      }
+      count += notifyListeners(chunk);
+      if (coin != null) {
+        coinReplayed(coin, onCoinReplayed);
+      }
+      return count;
+    });
+    return replayed == null ? 0 : replayed;
+  }
+
+  /**
+   * Deletes all prices and tells the {@link PriceWriteListener}s to drop what they derived from
+   * them. Prices are only ever inserted, so a CSV file which has been rewritten is ingested again
+   * into an empty table, together with all other files.
+   */
+  public void deleteAll() {
+    jdbcTemplate.execute(DELETE_PRICES);
+    listeners.forEach(PriceWriteListener::onPricesDeleted);
+    dataVersion.increment();
+  }
+
+  private void coinReplayed(String coin, Consumer<String> onCoinReplayed) {
+    dataVersion.increment();
+    onCoinReplayed.accept(coin);
+  }
+
+  private int notifyListeners(List<PriceDto> prices) {
+    if (!prices.isEmpty()) {
+      listeners.forEach(listener -> listener.onPricesWritten(prices));
+    }
+    return prices.size();
+  }
+
+  /**
+   * Writes a single chunk of prices as one JDBC batch inside one transaction and notifies the
+   * {@link PriceWriteListener}s of the inserted prices once the transaction has been committed.
+   * The listeners receive the symbols as registered in the {@link CoinRepository}, e.g.
+   * {@code BTC} for a price of {@code btc}, the same symbols the queries are made with.
+   * New coins are added to the {@link CoinRepository} before the transaction starts, the
+   * {@link DataVersion} is incremented once the listeners are done. A chunk which collides with a
+   * price committed concurrently by another writer is rolled back and written again, skipping that
+   * price. After {@link #MAX_WRITE_ATTEMPTS} collisions, e.g. with an identity sequence which is
+   * behind the stored ids, the collision is not caused by a concurrent write and is rethrown.
+   *
+   * @param chunk The prices to insert.
+   * @return The number of rows inserted.
+   * @throws DuplicateKeyException if the chunk still collides after all attempts
+   */
+  private int writeChunk(List<PriceDto> chunk) {
+    short[] coinIds = new short[chunk.size()];
+    for (int i = 0; i < coinIds.length; i++) {
+      coinIds[i] = coinRepository.addCoin(chunk.get(i).coin());
+    }
+    int[] counts = null;
+    for (int attempt = 1; counts == null; attempt++) {
+      try {
+        counts = transactionTemplate.execute(status -> insert(chunk, coinIds));
+      } catch (DuplicateKeyException e) {
+        if (attempt == MAX_WRITE_ATTEMPTS) {
+          throw e;
+        }
+        log.warn("Chunk collided with a concurrent write, retrying (attempt {} of {})", attempt,
+            MAX_WRITE_ATTEMPTS);
+        backOff(attempt);
+      }
+    }
+    List<PriceDto> inserted = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      if (counts[i] != 0) {
+        inserted.add(withRegisteredSymbol(chunk.get(i), coinIds[i]));
+      }
+    }
+    if (!inserted.isEmpty()) {
+      listeners.forEach(listener -> listener.onPricesWritten(inserted));
+      dataVersion.increment();
+    }
+    return inserted.size();
+  }
+
+  /**
+   * Waits before the next attempt to write a chunk.
+   *
+   * @param attempt The number of the attempt which failed.
+   */
+  private static void backOff(int attempt) {
+    try {
+      Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CSVImportException("Ingest interrupted");
+    }
+  }
+
+  private PriceDto withRegisteredSymbol(PriceDto price, short coinId) {
+    String symbol = coinRepository.getSymbol(coinId);
+    return symbol.equals(price.coin()) ? price
+        : new PriceDto(price.dateTime(), symbol, price.fixedPointPrice());
+  }
+
+  private int[] insert(List<PriceDto> chunk, short[] coinIds) {
+    return jdbcTemplate.batchUpdate(INSERT_PRICE, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        PriceDto price = chunk.get(i);
+        ps.setTimestamp(1, Timestamp.valueOf(price.dateTime()));
+        ps.setLong(2, price.fixedPointPrice());
+        ps.setShort(3, coinIds[i]);
+      }
+
+      @Override
+      public int getBatchSize() {
+        return chunk.size();
+      }
+    });
+  }
+}
@@ -0,0 +1,26 @@
+package com.crypto.investment.price.persistence;
+
+import com.crypto.investment.price.model.PriceDto;
+import java.util.List;
+
+/**
+ * Receives the prices written by the {@link PriceBatchWriter}, e.g. to keep in-memory read models
+ * up to date. Listeners are called once per committed chunk, possibly from several writer threads
+ * at the same time.
+ */
+public interface PriceWriteListener {
+
+  /**
+   * Called after a chunk of prices has been committed.
+   *
+   * @param prices The prices inserted by the chunk. Prices of a coin at a date which was already
+   *               stored are skipped by the writer and not passed on, so every price is seen once.
+   */
+  void onPricesWritten(List<PriceDto> prices);
+
+  /**
+   * Called after all prices have been deleted, e.g. before CSV files which have been rewritten are
+   * ingested again. The listener drops everything it has derived from the prices written so far.
+   */
+  void onPricesDeleted();
+}
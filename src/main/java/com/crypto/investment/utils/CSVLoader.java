@@ -3,25 +3,38 @@ package com.crypto.investment.utils;
 import com.crypto.investment.coin.persistence.CoinRepository;
 import com.crypto.investment.exception.CSVImportException;
 import com.crypto.investment.exception.CSVParsingException;
+import com.crypto.investment.price.model.FixedPointPrice;
 import com.crypto.investment.price.model.PriceDto;
-import com.crypto.investment.price.persistence.Price;
-import com.crypto.investment.price.persistence.PriceRepository;
+import com.crypto.investment.price.persistence.PriceBatchWriter;
+import com.crypto.investment.utils.PriceLineParser.PriceSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.math.BigDecimal;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVFormat.Builder;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
@@ -30,7 +43,21 @@ import org.springframework.stereotype.Component;
 
 /**
  * The {@code CSVLoader} class is responsible for loading and processing CSV files containing
- * cryptocurrency price data.
+ * cryptocurrency price data. The ingest is measured by the {@code ingest.rows} and
+ * {@code ingest.bytes} counters and the {@code ingest.file.duration} timer, tagged with the file.
+ * <p>
+ * With {@code ingest.ledger.enabled}, every ingested file is recorded in the {@link IngestLedger}
+ * and a restart on a persistent database skips the files which have not changed, ingests only the
+ * rows appended to the external files and rebuilds the in-memory read models from the
+ * {@code price} table. As prices are only ever inserted, a file which has been rewritten instead
+ * makes the restart delete all prices and ingest every file again.
+ * <p>
+ * Without the ledger, an {@code ingest.snapshot.dir} keeps a binary snapshot of the ingested prices
+ * in the {@link PriceSnapshotStore}. A restart loads the snapshot instead of parsing the CSV files,
+ * as long as the files have not changed since it was taken.
+ * <p>
+ * The ingest runs in the background, so the application serves requests while it loads. Its
+ * progress is tracked by the {@link IngestProgress}, which tells the API which coins are complete.
  */
 @Component
 @Slf4j
@@ -40,39 +67,245 @@ public class CSVLoader {
   private static final String TIMESTAMP = "timestamp";
   private static final String PRICE = "price";
 
-  private final PriceRepository priceRepository;
+  /**
+   * The number of records parsed and handed to the writer at once.
+   */
+  @Value("${ingest.batch.size:1000}")
+  private int chunkSize = 1000;
+
+  /**
+   * The number of CSV files parsed concurrently.
+   */
+  @Value("${ingest.parser.threads:2}")
+  private int parserThreads = 2;
+
+  /**
+   * The number of threads writing parsed chunks to the database.
+   */
+  @Value("${ingest.writer.threads:2}")
+  private int writerThreads = 2;
+
+  /**
+   * The maximum number of parsed chunks waiting for a writer.
+   */
+  @Value("${ingest.queue.capacity:16}")
+  private int queueCapacity = 16;
+
+  /**
+   * An optional directory of large CSV files which are read through memory-mapped segments.
+   */
+  @Value("${ingest.external.dir:}")
+  private String externalDir = "";
+
+  /**
+   * The target size in bytes of a memory-mapped segment of an external file.
+   */
+  @Value("${ingest.external.segment.size:67108864}")
+  private long segmentSize = 64 * 1024 * 1024;
+
+  /**
+   * Whether ingested files are recorded in the {@link IngestLedger}, so that a restart on a
+   * persistent database skips the files which have not changed.
+   */
+  @Value("${ingest.ledger.enabled:false}")
+  private boolean ledgerEnabled;
+
+  /**
+   * Whether the ingest runs in the background instead of blocking the startup.
+   */
+  @Value("${ingest.background.enabled:true}")
+  private boolean background = true;
+
+  /**
+   * Whether the ingest workers run on virtual threads, following the application wide setting.
+   */
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreads;
+
+  private final PriceBatchWriter priceBatchWriter;
   private final CoinRepository coinRepository;
   private final ResourcePatternResolver resourcePatternResolver;
+  private final IngestLedger ingestLedger;
+  private final IngestProgress ingestProgress;
+  private final PriceSnapshotStore priceSnapshotStore;
+  private final MeterRegistry meterRegistry;
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private final Counter ingestedRows;
+  private final Counter ingestedBytes;
 
   @Autowired
-  public CSVLoader(PriceRepository priceRepository, CoinRepository coinRepository,
-      ResourcePatternResolver resourcePatternResolver) {
-    this.priceRepository = priceRepository;
+  public CSVLoader(PriceBatchWriter priceBatchWriter, CoinRepository coinRepository,
+      ResourcePatternResolver resourcePatternResolver, IngestLedger ingestLedger,
+      IngestProgress ingestProgress, PriceSnapshotStore priceSnapshotStore,
+      MeterRegistry meterRegistry) {
+    this.priceBatchWriter = priceBatchWriter;
     this.coinRepository = coinRepository;
     this.resourcePatternResolver = resourcePatternResolver;
+    this.ingestLedger = ingestLedger;
+    this.ingestProgress = ingestProgress;
+    this.priceSnapshotStore = priceSnapshotStore;
+    this.meterRegistry = meterRegistry;
+    this.ingestedRows = Counter.builder("ingest.rows")
+        .description("Prices written by the CSV ingest")
+        .register(meterRegistry);
+    this.ingestedBytes = Counter.builder("ingest.bytes")
+        .description("Bytes of CSV parsed by the ingest")
+        .baseUnit("bytes")
+        .register(meterRegistry);
   }
 
   /**
    * Event handler that triggers the loading of CSV files when the application context is
-   * refreshed.
+   * refreshed. The files are loaded on a background thread unless
+   * {@code ingest.background.enabled} is turned off.
    *
    * @param event the event triggered when the application context is refreshed
    */
   @EventListener
   public void onApplicationEvent(ContextRefreshedEvent event) {
-    log.info("Loading crypto information");
-    List<PriceDto> priceDtoList = loadAllCSV();
-    priceDtoList.forEach(e -> {
+    if (!started.compareAndSet(false, true)) {
+      return;
+    }
+    if (background) {
+      Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+      builder.name("ingest").start(this::ingest);
+    } else {
+      ingest();
+    }
+  }
 
-      Price price = new Price();
-      price.setPriceDate(e.dateTime());
-      price.setPrice(e.price());
-      if (!coinRepository.containsCoin(e.coin())) {
-        coinRepository.addCoin(e.coin());
+  /**
+   * Loads the CSV files. If the database already holds ingested files, i.e. it is persistent and
+   * this is a restart, the read models are first rebuilt from the database coin by coin, every coin
+   * being served once its prices are replayed, and then only new and changed files are ingested.
+   * If a file has been rewritten, all prices are deleted and every file is ingested again instead.
+   * Otherwise an up to date snapshot is loaded instead of the CSV files, and a new snapshot is
+   * taken after the CSV files were ingested. It is taken before the ingest is marked as complete,
+   * so that it only holds the fingerprinted files and none of the rows the
+   * {@link PriceDirectoryWatcher} writes once the ingest is done.
+   *
+   * @throws CSVImportException  if the CSV files could not be loaded and the ingest is not running
+   *                             in the background
+   * @throws CSVParsingException if one of the CSV files could not be parsed and the ingest is not
+   *                             running in the background
+   */
+  void ingest() {
+    log.info("Loading crypto information");
+    try {
+      long start = System.nanoTime();
+      boolean warm = ledgerEnabled && !ingestLedger.isEmpty();
+      boolean snapshots = !ledgerEnabled && priceSnapshotStore.isEnabled();
+      long fingerprint = snapshots ? PriceSnapshotStore.fingerprint(findAllResources()) : 0;
+      Optional<List<PriceSource>> snapshot = snapshots
+          ? priceSnapshotStore.load(fingerprint, chunkSize) : Optional.empty();
+      List<PlannedFile> files = new ArrayList<>();
+      List<PriceSource> sources = ledgerEnabled ? planSources(chunkSize, files)
+          : snapshot.orElseGet(() -> findSources(chunkSize));
+      List<String> rewritten = files.stream().filter(file -> file.plan().rewritten())
+          .map(file -> file.plan().source()).toList();
+      if (warm && !rewritten.isEmpty()) {
+        log.info("{} changed since the last ingest, ingesting all files again", rewritten);
+        priceBatchWriter.deleteAll();
+        ingestLedger.clear();
+        warm = false;
+        files.clear();
+        sources = planSources(chunkSize, files);
       }
-      price.setCoin(e.coin());
-      priceRepository.save(price);
-    });
+      ingestProgress.start(sources, warm ? coinRepository.getCoins() : Set.of());
+      if (warm) {
+        long replayed = priceBatchWriter.replay(ingestProgress::onCoinReplayed);
+        // coins registered without any stored price have nothing to replay
+        coinRepository.getCoins().forEach(ingestProgress::onCoinReplayed);
+        log.info("Loaded {} prices from the database", replayed);
+      }
+      IngestPipeline<PriceSource> pipeline = new IngestPipeline<>(parserThreads, writerThreads,
+          queueCapacity, virtualThreads);
+      long rows = pipeline.run(sources, this::parseMeasured, chunk -> {
+            chunk.forEach(e -> {
+              if (!coinRepository.containsCoin(e.coin())) {
+                coinRepository.addCoin(e.coin());
+              }
+            });
+            int written = priceBatchWriter.write(chunk);
+            ingestedRows.increment(written);
+            ingestProgress.onWritten(written);
+            return written;
+          }, ingestProgress::onSourceDone);
+      for (PlannedFile file : files) {
+        recordIngested(file);
+      }
+      logThroughput(rows, System.nanoTime() - start);
+      if (snapshots && snapshot.isEmpty()) {
+        writeSnapshot(fingerprint);
+      }
+      ingestProgress.complete();
+    } catch (RuntimeException e) {
+      ingestProgress.fail(e);
+      if (!background) {
+        throw e;
+      }
+      log.error("Loading crypto information failed", e);
+    }
+  }
+
+  /**
+   * Deletes all prices and ingests the CSV files again, e.g. once a followed file has been rewritten
+   * and the prices stored from it no longer match. Like on startup, every coin is served again once
+   * it has been loaded.
+   */
+  void rebuild() {
+    ingestProgress.reset();
+    priceBatchWriter.deleteAll();
+    ingestLedger.clear();
+    ingest();
+  }
+
+  /**
+   * Takes a snapshot of the ingested prices. A failure is only logged, the next start falls back to
+   * the CSV files.
+   *
+   * @param fingerprint the fingerprint of the ingested CSV files
+   */
+  private void writeSnapshot(long fingerprint) {
+    try {
+      long rows = priceSnapshotStore.write(fingerprint);
+      log.info("Wrote a snapshot of {} prices", rows);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Could not write the price snapshot", e);
+    }
+  }
+
+  /**
+   * Parses a source, recording its duration and size in the ingest metrics.
+   *
+   * @param source   the source to parse
+   * @param consumer the consumer receiving the parsed chunks
+   */
+  private void parseMeasured(PriceSource source, Consumer<List<PriceDto>> consumer) {
+    Timer timer = Timer.builder("ingest.file.duration")
+        .description("Time spent parsing a CSV file")
+        .tag("file", source.name())
+        .register(meterRegistry);
+    timer.record(() -> source.parse(chunk -> {
+      ingestProgress.onParsed(source, chunk);
+      consumer.accept(chunk);
+    }));
+    if (source.size() > 0) {
+      ingestedBytes.increment(source.size());
+    }
+  }
+
+  /**
+   * Logs the ingest throughput so that startup load times can be measured.
+   *
+   * @param rows         the number of rows ingested
+   * @param elapsedNanos the time spent on the ingest in nanoseconds
+   */
+  private void logThroughput(long rows, long elapsedNanos) {
+    long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), 1);
+    log.info("Ingested {} prices in {} ms ({} rows/sec)", rows, elapsedMillis,
+        rows * 1000 / elapsedMillis);
   }
 
   /**
@@ -83,18 +316,206 @@ public class CSVLoader {
    */
   public List<PriceDto> loadAllCSV() {
     List<PriceDto> arr = new ArrayList<>();
-    try {
-      Resource[] resourcesArray = resourcePatternResolver.getResources("classpath:prices/*.csv");
-      for (Resource resource : resourcesArray) {
-        if (resource.exists() && resource.isReadable()) {
-          arr.addAll(loadFromCSVFile(resource));
+    streamAllCSV(chunkSize, arr::addAll);
+    return arr;
+  }
+
+  /**
+   * Streams all CSV files from the 'prices' directory and the external directory to the given
+   * consumer in chunks of at most {@code chunkSize} records. Only one chunk is held in memory at a
+   * time, so the heap needed for an ingest does not depend on the size of the files.
+   *
+   * @param chunkSize the maximum number of records passed to the consumer at once
+   * @param consumer  the consumer receiving the parsed chunks
+   * @throws CSVImportException  if the CSV files could not be loaded
+   * @throws CSVParsingException if an error occurs while parsing one of the CSV files
+   */
+  public void streamAllCSV(int chunkSize, Consumer<List<PriceDto>> consumer) {
+    for (PriceSource source : findSources(chunkSize)) {
+      source.parse(consumer);
+    }
+  }
+
+  /**
+   * Finds the sources to ingest: the CSV files of the 'prices' directory and, if configured, the
+   * CSV files of the external directory. External files in the standard layout are split into
+   * memory-mapped segments which are parsed independently.
+   *
+   * @param chunkSize the maximum number of records passed to a consumer at once
+   * @return the sources to ingest
+   * @throws CSVImportException if the CSV files could not be loaded
+   */
+  List<PriceSource> findSources(int chunkSize) {
+    List<PriceSource> sources = new ArrayList<>();
+    for (Resource resource : findResources("classpath:prices/*.csv")) {
+      sources.add(resourceSource(resource, chunkSize));
+    }
+    if (!externalDir.isBlank()) {
+      for (Resource resource : findResources("file:" + externalDir + "/*.csv")) {
+        sources.addAll(externalSources(resource, chunkSize));
+      }
+    }
+    return sources;
+  }
+
+  /**
+   * @return the CSV files of the 'prices' directory and, if configured, of the external directory
+   * @throws CSVImportException if the CSV files could not be loaded
+   */
+  List<Resource> findAllResources() {
+    List<Resource> resources = new ArrayList<>(findResources("classpath:prices/*.csv"));
+    if (!externalDir.isBlank()) {
+      resources.addAll(findResources("file:" + externalDir + "/*.csv"));
+    }
+    return resources;
+  }
+
+  /**
+   * Finds the sources to ingest like {@link #findSources(int)}, but plans every file with the
+   * {@link IngestLedger}: unchanged files are skipped and the external files which only had rows
+   * appended are read from the end of the previous ingest.
+   *
+   * @param chunkSize the maximum number of records passed to a consumer at once
+   * @param files     receives the planned files, to be recorded once they are ingested
+   * @return the sources to ingest
+   * @throws CSVImportException if the CSV files could not be loaded
+   */
+  List<PriceSource> planSources(int chunkSize, List<PlannedFile> files) {
+    List<PriceSource> sources = new ArrayList<>();
+    for (Resource resource : findResources("classpath:prices/*.csv")) {
+      PlannedFile file = plan(resource, false);
+      if (file != null) {
+        files.add(file);
+        sources.add(file.count(resourceSource(resource, chunkSize)));
+      }
+    }
+    if (!externalDir.isBlank()) {
+      for (Resource resource : findResources("file:" + externalDir + "/*.csv")) {
+        PlannedFile file = plan(resource, hasStandardHeader(resource));
+        if (file != null) {
+          files.add(file);
+          externalSources(resource, chunkSize, file.plan().offset(), file.plan().size())
+              .forEach(source -> sources.add(file.count(source)));
         }
       }
+    }
+    return sources;
+  }
+
+  /**
+   * Plans the ingest of a file.
+   *
+   * @param resource   the file
+   * @param appendable whether the file can be read from an offset
+   * @return the planned file, or {@code null} if the file is unchanged
+   * @throws CSVImportException if the file could not be read
+   */
+  private PlannedFile plan(Resource resource, boolean appendable) {
+    try {
+      IngestLedger.Plan plan = ingestLedger.plan(resource, appendable);
+      if (plan.skip()) {
+        log.info("Skipping unchanged {}", resource.getDescription());
+        return null;
+      }
+      if (plan.offset() > 0) {
+        log.info("Ingesting {} from offset {}", resource.getDescription(), plan.offset());
+      }
+      return new PlannedFile(resource, plan, new LongAdder());
     } catch (IOException e) {
-      throw new CSVImportException("Failed to load resources from 'prices' directory");
+      throw new CSVImportException("Failed to load resource " + resource.getDescription());
     }
+  }
 
-    return arr;
+  private void recordIngested(PlannedFile file) {
+    try {
+      ingestLedger.record(file.resource(), file.plan(), file.rows().sum());
+    } catch (IOException e) {
+      log.warn("Could not record {} in the ingest ledger", file.resource().getDescription(), e);
+    }
+  }
+
+  /**
+   * Finds the readable CSV files matching the location pattern.
+   *
+   * @param locationPattern the location pattern, e.g. {@code classpath:prices/*.csv}
+   * @return the CSV files to load
+   * @throws CSVImportException if the CSV files could not be loaded
+   */
+  List<Resource> findResources(String locationPattern) {
+    Resource[] resourcesArray;
+    try {
+      resourcesArray = resourcePatternResolver.getResources(locationPattern);
+    } catch (IOException e) {
+      throw new CSVImportException("Failed to load resources from " + locationPattern);
+    }
+    List<Resource> resources = new ArrayList<>();
+    for (Resource resource : resourcesArray) {
+      if (resource.exists() && resource.isReadable()) {
+        resources.add(resource);
+      }
+    }
+    return resources;
+  }
+
+  private boolean hasStandardHeader(Resource resource) {
+    try {
+      return MappedCsvFile.hasStandardHeader(resource.getFile().toPath());
+    } catch (IOException e) {
+      throw new CSVImportException("Failed to load resource " + resource.getDescription());
+    }
+  }
+
+  /**
+   * Creates the sources for a file of the external directory: one source per memory-mapped segment
+   * if the file is in the standard layout, a single streamed source otherwise.
+   */
+  private List<PriceSource> externalSources(Resource resource, int chunkSize) {
+    return externalSources(resource, chunkSize, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates the sources for the byte range {@code [start, end)} of a file of the external
+   * directory. Only files in the standard layout can be read from an offset other than {@code 0}.
+   */
+  private List<PriceSource> externalSources(Resource resource, int chunkSize, long start,
+      long end) {
+    try {
+      Path path = resource.getFile().toPath();
+      if (!MappedCsvFile.hasStandardHeader(path)) {
+        return List.of(resourceSource(resource, chunkSize));
+      }
+      return MappedCsvFile.split(path, segmentSize, start, end).stream()
+          .map(segment -> segmentSource(segment, chunkSize)).toList();
+    } catch (IOException e) {
+      throw new CSVImportException("Failed to load resource " + resource.getDescription());
+    }
+  }
+
+  private PriceSource resourceSource(Resource resource, int chunkSize) {
+    String name = resource.getFilename() != null ? resource.getFilename()
+        : resource.getDescription();
+    long size;
+    try {
+      size = resource.contentLength();
+    } catch (IOException e) {
+      size = -1;
+    }
+    return new PriceSource(name, size,
+        consumer -> streamFromCSVFile(resource, chunkSize, consumer));
+  }
+
+  /**
+   * @param segment   a segment of a file in the standard layout
+   * @param chunkSize the maximum number of records passed to a consumer at once
+   * @return the source parsing the segment with the {@link PriceLineParser}
+   */
+  PriceSource segmentSource(MappedCsvFile.Segment segment, int chunkSize) {
+    return new PriceSource(segment.path().getFileName().toString(),
+        segment.end() - segment.start(), consumer -> {
+      ChunkBuffer chunks = new ChunkBuffer(chunkSize, consumer);
+      MappedCsvFile.parse(segment, new PriceLineParser(coinRepository.getCoins()), chunks);
+      chunks.flush();
+    });
   }
 
   /**
@@ -105,22 +526,76 @@ public class CSVLoader {
    * @throws CSVParsingException if an error occurs while parsing the CSV file
    */
   public List<PriceDto> loadFromCSVFile(Resource resource) {
+    List<PriceDto> priceDtoList = new ArrayList<>();
+    streamFromCSVFile(resource, chunkSize, priceDtoList::addAll);
+    return priceDtoList;
+  }
+
+  /**
+   * Parses a single CSV file record by record and passes the records to the given consumer in
+   * chunks of at most {@code chunkSize} records. Files in the standard
+   * {@code timestamp,symbol,price} layout are parsed with the {@link PriceLineParser}, any other
+   * file with commons-csv.
+   *
+   * @param resource  the CSV file to be parsed
+   * @param chunkSize the maximum number of records passed to the consumer at once
+   * @param consumer  the consumer receiving the parsed chunks
+   * @throws CSVParsingException if an error occurs while parsing the CSV file
+   */
+  public void streamFromCSVFile(Resource resource, int chunkSize,
+      Consumer<List<PriceDto>> consumer) {
+    try (InputStream in = new BufferedInputStream(resource.getInputStream())) {
+      in.mark(PriceLineParser.HEADER.length + 1);
+      byte[] head = in.readNBytes(PriceLineParser.HEADER.length + 1);
+      in.reset();
+      if (PriceLineParser.hasStandardHeader(head, head.length)) {
+        streamWithLineParser(in, chunkSize, consumer);
+      } else {
+        streamWithCommonsCsv(new InputStreamReader(in, StandardCharsets.UTF_8), chunkSize,
+            consumer);
+      }
+    } catch (IOException | UncheckedIOException | NumberFormatException e) {
+      throw new CSVParsingException("CSV data is failed to parse: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Parses a file in the standard layout with the {@link PriceLineParser}.
+   *
+   * @param in        the file content, starting with the header line
+   * @param chunkSize the maximum number of records passed to the consumer at once
+   * @param consumer  the consumer receiving the parsed chunks
+   * @throws IOException if the file could not be read
+   */
+  void streamWithLineParser(InputStream in, int chunkSize, Consumer<List<PriceDto>> consumer)
+      throws IOException {
+    ChunkBuffer chunks = new ChunkBuffer(chunkSize, consumer);
+    new PriceLineParser(coinRepository.getCoins()).parse(in, chunks);
+    chunks.flush();
+  }
+
+  /**
+   * Parses a file of any layout accepted by commons-csv.
+   *
+   * @param reader    the file content, starting with the header line
+   * @param chunkSize the maximum number of records passed to the consumer at once
+   * @param consumer  the consumer receiving the parsed chunks
+   * @throws IOException if the file could not be read
+   */
+  void streamWithCommonsCsv(Reader reader, int chunkSize, Consumer<List<PriceDto>> consumer)
+      throws IOException {
     CSVFormat CSVFormat = Builder.create().setHeader(TIMESTAMP, SYMBOL, PRICE)
         .setSkipHeaderRecord(true).build();
 
-    try (BufferedReader bReader = new BufferedReader(
-        new InputStreamReader(resource.getInputStream(),
-            StandardCharsets.UTF_8)); CSVParser csvParser = new CSVParser(bReader, CSVFormat)) {
-
-      List<PriceDto> priceDtoList = new ArrayList<>();
-      for (CSVRecord csvRecord : csvParser.getRecords()) {
+    try (BufferedReader bReader = new BufferedReader(reader);
+        CSVParser csvParser = new CSVParser(bReader, CSVFormat)) {
+      ChunkBuffer chunks = new ChunkBuffer(chunkSize, consumer);
+      for (CSVRecord csvRecord : csvParser) {
         LocalDateTime dateTime = parseTimestamp(csvRecord.get(TIMESTAMP));
-        BigDecimal price = new BigDecimal(csvRecord.get(PRICE));
-        priceDtoList.add(new PriceDto(dateTime, csvRecord.get(SYMBOL), price));
+        long price = FixedPointPrice.parse(csvRecord.get(PRICE));
+        chunks.add(new PriceDto(dateTime, csvRecord.get(SYMBOL), price));
       }
-      return priceDtoList;
-    } catch (IOException e) {
-      throw new CSVParsingException("CSV data is failed to parse: " + e.getMessage());
+      chunks.flush();
     }
   }
 
@@ -131,7 +606,60 @@ public class CSVLoader {
    * @return a {@link LocalDateTime}
    */
   LocalDateTime parseTimestamp(String timestamp) {
-    Instant instant = Instant.ofEpochMilli(Long.parseLong(timestamp));
-    return LocalDateTime.ofInstant(instant, ZoneId.of("UTC"));
+    return EpochMillis.toLocalDateTime(Long.parseLong(timestamp));
+  }
+
+  /**
+   * A file to ingest with its plan and the number of rows parsed from it so far.
+   */
+  record PlannedFile(Resource resource, IngestLedger.Plan plan, LongAdder rows) {
+
+    /**
+     * @param source a source of the file
+     * @return the source, counting the rows it parses into {@link #rows()}
+     */
+    PriceSource count(PriceSource source) {
+      return new PriceSource(source.name(), source.size(), consumer -> source.parse(chunk -> {
+        rows.add(chunk.size());
+        consumer.accept(chunk);
+      }));
+    }
+  }
+
+  /**
+   * Collects parsed records and passes them to the consumer in chunks of a fixed size.
+   */
+  private static class ChunkBuffer implements PriceSink {
+
+    private final int chunkSize;
+    private final Consumer<List<PriceDto>> consumer;
+    private List<PriceDto> chunk;
+
+    ChunkBuffer(int chunkSize, Consumer<List<PriceDto>> consumer) {
+      this.chunkSize = chunkSize;
+      this.consumer = consumer;
+      this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    void add(PriceDto price) {
+      chunk.add(price);
+      if (chunk.size() == chunkSize) {
+        consumer.accept(chunk);
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+
+    @Override
+    public void accept(long epochMillis, String coin, long unscaledPrice, int scale) {
+      add(new PriceDto(EpochMillis.toLocalDateTime(epochMillis), coin,
+          FixedPointPrice.of(unscaledPrice, scale)));
+    }
+
+    void flush() {
+      if (!chunk.isEmpty()) {
+        consumer.accept(chunk);
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
   }
 }
@@ -0,0 +1,45 @@
+package com.crypto.investment.utils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions between UTC date-times and milliseconds since the epoch, the representation of
+ * timestamps in the price files and the in-memory price series.
+ */
+public final class EpochMillis {
+
+  /**
+   * The number of milliseconds of a day.
+   */
+  public static final long DAY = 24 * 60 * 60 * 1000L;
+
+  private EpochMillis() {
+  }
+
+  /**
+   * @param epochMillis the timestamp in milliseconds since the epoch
+   * @return the UTC date-time of the timestamp
+   */
+  public static LocalDateTime toLocalDateTime(long epochMillis) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+        (int) Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+  }
+
+  /**
+   * @param dateTime a UTC date-time
+   * @return the timestamp in milliseconds since the epoch
+   */
+  public static long of(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + dateTime.getNano() / 1_000_000;
+  }
+
+  /**
+   * @param date a UTC date
+   * @return the timestamp of the start of the day in milliseconds since the epoch
+   */
+  public static long of(LocalDate date) {
+    return date.toEpochDay() * DAY;
+  }
+}
@@ -0,0 +1,31 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.utils.IngestProgress.Snapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the progress of the CSV ingest at {@code /actuator/ingest}: the files done, the rows
+ * written, the estimated time left and which coins can already be queried.
+ */
+@Component
+@Endpoint(id = "ingest")
+public class IngestEndpoint {
+
+  private final IngestProgress ingestProgress;
+
+  @Autowired
+  public IngestEndpoint(IngestProgress ingestProgress) {
+    this.ingestProgress = ingestProgress;
+  }
+
+  /**
+   * @return the current progress of the ingest
+   */
+  @ReadOperation
+  public Snapshot progress() {
+    return ingestProgress.snapshot();
+  }
+}
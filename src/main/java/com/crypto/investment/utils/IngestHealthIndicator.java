@@ -0,0 +1,39 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.utils.IngestProgress.Snapshot;
+import com.crypto.investment.utils.IngestProgress.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the CSV ingest as the {@code ingest} health component, which is part of the readiness
+ * group. The application is ready while the ingest is running, as complete coins are served and
+ * the others are answered with a 503, but not after the ingest has failed. The liveness group does
+ * not depend on the ingest, so the liveness probe does not have to wait for the load.
+ */
+@Component
+public class IngestHealthIndicator implements HealthIndicator {
+
+  private final IngestProgress ingestProgress;
+
+  @Autowired
+  public IngestHealthIndicator(IngestProgress ingestProgress) {
+    this.ingestProgress = ingestProgress;
+  }
+
+  @Override
+  public Health health() {
+    Snapshot snapshot = ingestProgress.snapshot();
+    Health.Builder builder = snapshot.status() == Status.FAILED ? Health.down() : Health.up();
+    builder.withDetail("status", snapshot.status())
+        .withDetail("filesDone", snapshot.filesDone())
+        .withDetail("filesTotal", snapshot.filesTotal())
+        .withDetail("rows", snapshot.rows());
+    if (snapshot.error() != null) {
+      builder.withDetail("error", snapshot.error());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,242 @@
+package com.crypto.investment.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Records every ingested CSV file with its size, modification time, checksum and number of rows in
+ * the {@code ingest_ledger} table. With a persistent database this lets a restart skip the files
+ * which have not changed since they were ingested, and ingest only the rows appended to a file.
+ * <p>
+ * A file whose size and modification time match its entry is skipped without being read. Otherwise
+ * its content is compared by CRC32C checksum: a file with the same content is skipped as well, a
+ * file which still starts with the recorded content is read from the recorded size on. Any other
+ * file has been rewritten. Prices are only ever inserted, so the prices stored from it would be
+ * kept and the ledger has to be {@link #clear() cleared} to ingest all files again into an empty
+ * price table.
+ */
+@Repository
+public class IngestLedger {
+
+  static final String SELECT_ENTRY = "select size, last_modified, checksum, row_count from ingest_ledger where source = ?";
+  static final String MERGE_ENTRY = "merge into ingest_ledger (source, size, last_modified, checksum, row_count, ingested_at) key (source) values (?, ?, ?, ?, ?, ?)";
+  static final String COUNT_ENTRIES = "select count(*) from ingest_ledger";
+  static final String DELETE_ENTRIES = "delete from ingest_ledger";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public IngestLedger(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * The recorded state of a file.
+   *
+   * @param size         The size of the file in bytes.
+   * @param lastModified The modification time of the file in milliseconds since the epoch.
+   * @param checksum     The CRC32C checksum of the first {@code size} bytes.
+   * @param rows         The number of rows ingested from the file.
+   */
+  public record Entry(long size, long lastModified, long checksum, long rows) {
+
+  }
+
+  /**
+   * What to ingest of a file.
+   *
+   * @param source       The name of the file in the ledger.
+   * @param size         The size of the file when it was planned, the ingest stops there.
+   * @param lastModified The modification time of the file when it was planned.
+   * @param offset       The offset to ingest the file from, {@code 0} to ingest the whole file.
+   * @param previousRows The number of rows already ingested before {@code offset}.
+   * @param skip         Whether the file is unchanged and does not need to be ingested.
+   * @param rewritten    Whether the file has been ingested before and changed other than by rows
+   *                     appended to it.
+   * @param crc          The CRC32C of the bytes before {@code offset}, extended over the ingested
+   *                     bytes when the file is recorded, or {@code null} if the file is skipped.
+   */
+  public record Plan(String source, long size, long lastModified, long offset, long previousRows,
+                     boolean skip, boolean rewritten, CRC32C crc) {
+
+  }
+
+  /**
+   * @return {@code true} if no file has been ingested into the database yet.
+   */
+  public boolean isEmpty() {
+    Long entries = jdbcTemplate.queryForObject(COUNT_ENTRIES, Long.class);
+    return entries == null || entries == 0;
+  }
+
+  /**
+   * @param source The name of the file in the ledger.
+   * @return The recorded state of the file, if it has been ingested before.
+   */
+  public Optional<Entry> find(String source) {
+    List<Entry> entries = jdbcTemplate.query(SELECT_ENTRY,
+        (rs, rowNum) -> new Entry(rs.getLong("size"), rs.getLong("last_modified"),
+            rs.getLong("checksum"), rs.getLong("row_count")), source);
+    return entries.stream().findFirst();
+  }
+
+  /**
+   * Decides what to ingest of a file.
+   *
+   * @param resource   The file.
+   * @param appendable Whether rows appended to the file can be ingested on their own, i.e. the
+   *                   file can be read from an offset.
+   * @return The plan for the file.
+   * @throws IOException if the file could not be read.
+   */
+  public Plan plan(Resource resource, boolean appendable) throws IOException {
+    String source = sourceOf(resource);
+    long size = resource.contentLength();
+    long lastModified = lastModified(resource);
+    Entry entry = find(source).orElse(null);
+    if (entry == null) {
+      return new Plan(source, size, lastModified, 0, 0, false, false, new CRC32C());
+    }
+    if (entry.size() == size && entry.lastModified() == lastModified) {
+      return new Plan(source, size, lastModified, size, entry.rows(), true, false, null);
+    }
+    if (entry.size() == size && checksum(resource, size) == entry.checksum()) {
+      // touched, but not changed
+      record(source, new Entry(entry.size(), lastModified, entry.checksum(), entry.rows()));
+      return new Plan(source, size, lastModified, size, entry.rows(), true, false, null);
+    }
+    if (entry.size() < size && endsWithLineBreak(resource, entry.size())) {
+      CRC32C crc = crc(resource, entry.size());
+      if (crc.getValue() == entry.checksum()) {
+        // rows appended, a file which cannot be read from an offset is read again as a whole and
+        // its stored rows are skipped by the writer
+        return appendable
+            ? new Plan(source, size, lastModified, entry.size(), entry.rows(), false, false, crc)
+            : new Plan(source, size, lastModified, 0, 0, false, false, new CRC32C());
+      }
+    }
+    return new Plan(source, size, lastModified, 0, 0, false, true, new CRC32C());
+  }
+
+  /**
+   * Records a file as ingested up to the size of its plan. The checksum of the plan is extended
+   * over the ingested bytes only, so the part of the file before the offset is not read again.
+   *
+   * @param resource The file.
+   * @param plan     The plan the file was ingested with.
+   * @param rows     The number of rows ingested with the plan.
+   * @throws IOException if the file could not be read.
+   */
+  public void record(Resource resource, Plan plan, long rows) throws IOException {
+    CRC32C crc = plan.crc();
+    update(crc, resource, plan.offset(), plan.size());
+    record(plan.source(), new Entry(plan.size(), plan.lastModified(), crc.getValue(),
+        plan.previousRows() + rows));
+  }
+
+  /**
+   * Records the state of a file, e.g. the offset up to which a tailed file has been ingested.
+   *
+   * @param source The name of the file in the ledger.
+   * @param entry  The state of the file.
+   */
+  public void record(String source, Entry entry) {
+    jdbcTemplate.update(MERGE_ENTRY, source, entry.size(), entry.lastModified(), entry.checksum(),
+        entry.rows(), Timestamp.valueOf(LocalDateTime.now()));
+  }
+
+  /**
+   * Forgets all ingested files, so that they are ingested again as a whole.
+   */
+  public void clear() {
+    jdbcTemplate.update(DELETE_ENTRIES);
+  }
+
+  /**
+   * @param resource a file
+   * @return the name of the file in the ledger
+   */
+  static String sourceOf(Resource resource) {
+    return resource.getDescription();
+  }
+
+  private static long lastModified(Resource resource) {
+    try {
+      return resource.lastModified();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Calculates the CRC32C checksum of the first {@code length} bytes of a file.
+   *
+   * @param resource the file
+   * @param length   the number of bytes
+   * @return the checksum
+   * @throws IOException if the file could not be read
+   */
+  static long checksum(Resource resource, long length) throws IOException {
+    return crc(resource, length).getValue();
+  }
+
+  /**
+   * Feeds the first {@code length} bytes of a file into a CRC32C, which can then be updated with
+   * the bytes appended to the file.
+   *
+   * @param resource the file
+   * @param length   the number of bytes
+   * @return the CRC32C of the bytes
+   * @throws IOException if the file could not be read
+   */
+  static CRC32C crc(Resource resource, long length) throws IOException {
+    CRC32C crc = new CRC32C();
+    update(crc, resource, 0, length);
+    return crc;
+  }
+
+  /**
+   * Feeds the bytes {@code [from, to)} of a file into a CRC32C.
+   *
+   * @param crc      the CRC32C of the bytes before {@code from}
+   * @param resource the file
+   * @param from     the offset of the first byte
+   * @param to       the offset after the last byte
+   * @throws IOException if the file could not be read
+   */
+  private static void update(CRC32C crc, Resource resource, long from, long to)
+      throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long remaining = to - from;
+    try (InputStream in = resource.getInputStream()) {
+      in.skipNBytes(from);
+      int n;
+      while (remaining > 0
+          && (n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+        crc.update(buffer, 0, n);
+        remaining -= n;
+      }
+    }
+  }
+
+  private static boolean endsWithLineBreak(Resource resource, long length) throws IOException {
+    if (length == 0) {
+      return false;
+    }
+    try (InputStream in = resource.getInputStream()) {
+      in.skipNBytes(length - 1);
+      return in.read() == '\n';
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.exception.CSVImportException;
+import com.crypto.investment.exception.CSVParsingException;
+import com.crypto.investment.price.model.PriceDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A three stage ingest pipeline: parser workers read the sources in parallel, hand the parsed
+ * chunks to a bounded queue and a configurable number of writer threads drain that queue. A full
+ * queue blocks the parsers, so the memory used by an ingest is bounded by the queue capacity
+ * times the chunk size.
+ * <p>
+ * The pipeline tracks the chunks of every source, so that a caller can be told once all rows of a
+ * source have been written, e.g. to serve the data of a source before the whole ingest is done.
+ * <p>
+ * The workers are either platform or virtual threads. Virtual threads do not speed up parsing, but
+ * they keep the writers from occupying platform threads while they wait for the database.
+ *
+ * @param <S> the type of the sources to ingest, e.g. a {@code Resource}
+ */
+@Slf4j
+public class IngestPipeline<S> {
+
+  /**
+   * Marker put on the queue once per writer thread after all parsers have finished.
+   */
+  private static final Chunk<?> END_OF_INPUT = new Chunk<>(null, List.of());
+
+  private final int parserThreads;
+  private final int writerThreads;
+  private final boolean virtualThreads;
+  private final BlockingQueue<Chunk<S>> queue;
+
+  private final AtomicLong parsedRows = new AtomicLong();
+  private final AtomicLong writtenRows = new AtomicLong();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+  /**
+   * @param parserThreads the number of sources parsed concurrently
+   * @param writerThreads the number of threads writing chunks to the database
+   * @param queueCapacity the maximum number of parsed chunks waiting for a writer
+   */
+  public IngestPipeline(int parserThreads, int writerThreads, int queueCapacity) {
+    this(parserThreads, writerThreads, queueCapacity, false);
+  }
+
+  /**
+   * @param parserThreads  the number of sources parsed concurrently
+   * @param writerThreads  the number of threads writing chunks to the database
+   * @param queueCapacity  the maximum number of parsed chunks waiting for a writer
+   * @param virtualThreads whether the workers run on virtual threads
+   */
+  public IngestPipeline(int parserThreads, int writerThreads, int queueCapacity,
+      boolean virtualThreads) {
+    this.parserThreads = parserThreads;
+    this.writerThreads = writerThreads;
+    this.virtualThreads = virtualThreads;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+  }
+
+  /**
+   * Runs the pipeline over the given sources and blocks until every chunk has been written.
+   *
+   * @param sources the sources to ingest, one parser task per source
+   * @param parser  parses a single source and passes its chunks to the given consumer
+   * @param writer  writes a single chunk and returns the number of rows written
+   * @return the number of rows written
+   * @throws CSVParsingException if one of the sources could not be parsed
+   * @throws CSVImportException  if the ingest failed for any other reason
+   */
+  public long run(List<S> sources, BiConsumer<S, Consumer<List<PriceDto>>> parser,
+      ToIntFunction<List<PriceDto>> writer) {
+    return run(sources, parser, writer, source -> {
+    });
+  }
+
+  /**
+   * Runs the pipeline over the given sources and blocks until every chunk has been written.
+   *
+   * @param sources    the sources to ingest, one parser task per source
+   * @param parser     parses a single source and passes its chunks to the given consumer
+   * @param writer     writes a single chunk and returns the number of rows written
+   * @param sourceDone called on a writer thread once a source has been parsed and all of its
+   *                   chunks have been written
+   * @return the number of rows written
+   * @throws CSVParsingException if one of the sources could not be parsed
+   * @throws CSVImportException  if the ingest failed for any other reason
+   */
+  public long run(List<S> sources, BiConsumer<S, Consumer<List<PriceDto>>> parser,
+      ToIntFunction<List<PriceDto>> writer, Consumer<S> sourceDone) {
+    long start = System.nanoTime();
+    ExecutorService parsers = Executors.newFixedThreadPool(parserThreads,
+        threadFactory("ingest-parser-"));
+    ExecutorService writers = Executors.newFixedThreadPool(writerThreads,
+        threadFactory("ingest-writer-"));
+    try {
+      List<Future<?>> writerTasks = new ArrayList<>();
+      for (int i = 0; i < writerThreads; i++) {
+        writerTasks.add(writers.submit(() -> drain(writer, sourceDone)));
+      }
+      List<Future<?>> parserTasks = new ArrayList<>();
+      for (S source : sources) {
+        SourceState<S> state = new SourceState<>(source);
+        parserTasks.add(parsers.submit(() -> {
+          parser.accept(source, chunk -> enqueue(state, chunk));
+          state.release(sourceDone);
+        }));
+      }
+      awaitAll(parserTasks);
+      for (int i = 0; i < writerThreads; i++) {
+        put(endOfInput());
+      }
+      awaitAll(writerTasks);
+    } finally {
+      parsers.shutdownNow();
+      writers.shutdownNow();
+    }
+
+    RuntimeException e = failure.get();
+    if (e != null) {
+      throw e;
+    }
+    logStatistics(System.nanoTime() - start);
+    return writtenRows.get();
+  }
+
+  /**
+   * @return the number of parsed chunks currently waiting for a writer
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * @return the number of rows parsed so far
+   */
+  public long getParsedRows() {
+    return parsedRows.get();
+  }
+
+  /**
+   * @return the number of rows written so far
+   */
+  public long getWrittenRows() {
+    return writtenRows.get();
+  }
+
+  /**
+   * @param prefix the prefix of the thread names
+   * @return a factory for the worker threads
+   */
+  private ThreadFactory threadFactory(String prefix) {
+    Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+    return builder.name(prefix, 1).factory();
+  }
+
+  /**
+   * Puts a parsed chunk on the queue, blocking while the queue is full.
+   *
+   * @param state the source the chunk was parsed from
+   * @param rows  the parsed chunk
+   */
+  private void enqueue(SourceState<S> state, List<PriceDto> rows) {
+    if (failure.get() != null) {
+      throw new CSVImportException("Ingest aborted");
+    }
+    state.pending.incrementAndGet();
+    put(new Chunk<>(state, rows));
+    parsedRows.addAndGet(rows.size());
+    maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+  }
+
+  /**
+   * Puts an element on the queue, blocking while the queue is full.
+   *
+   * @param chunk the parsed chunk or the end of input marker
+   */
+  private void put(Chunk<S> chunk) {
+    try {
+      queue.put(chunk);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CSVImportException("Ingest interrupted");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Chunk<S> endOfInput() {
+    return (Chunk<S>) END_OF_INPUT;
+  }
+
+  /**
+   * Takes chunks from the queue and writes them until the end of input marker is reached. Once
+   * the ingest has failed the remaining chunks are discarded, so that blocked parsers can finish.
+   *
+   * @param writer     writes a single chunk and returns the number of rows written
+   * @param sourceDone called once the last chunk of a source has been written
+   */
+  private void drain(ToIntFunction<List<PriceDto>> writer, Consumer<S> sourceDone) {
+    try {
+      Chunk<S> chunk;
+      while ((chunk = queue.take()) != END_OF_INPUT) {
+        if (failure.get() == null) {
+          try {
+            writtenRows.addAndGet(writer.applyAsInt(chunk.rows()));
+            chunk.source().release(sourceDone);
+          } catch (RuntimeException e) {
+            fail(e);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for the given tasks, recording the first failure. After a failure the remaining tasks are
+   * cancelled and the chunks they produced are dropped.
+   *
+   * @param tasks the tasks to wait for
+   */
+  private void awaitAll(List<Future<?>> tasks) {
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (CancellationException e) {
+        // cancelled after an earlier failure
+      } catch (ExecutionException e) {
+        fail(e.getCause());
+        tasks.forEach(t -> t.cancel(true));
+        queue.clear();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail(new CSVImportException("Ingest interrupted"));
+        tasks.forEach(t -> t.cancel(true));
+      }
+    }
+  }
+
+  /**
+   * Records the first failure of the ingest. Parsing and import errors are kept as they are, any
+   * other error is reported as a {@link CSVImportException}.
+   *
+   * @param cause the failure
+   */
+  private void fail(Throwable cause) {
+    RuntimeException e;
+    if (cause instanceof CSVParsingException || cause instanceof CSVImportException) {
+      e = (RuntimeException) cause;
+    } else {
+      e = new CSVImportException("CSV import is failed: " + cause.getMessage());
+    }
+    failure.compareAndSet(null, e);
+  }
+
+  /**
+   * Logs the throughput of the parser and writer stages.
+   *
+   * @param elapsedNanos the time spent on the ingest in nanoseconds
+   */
+  private void logStatistics(long elapsedNanos) {
+    long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), 1);
+    log.info(
+        "Ingest pipeline: {} parser threads parsed {} rows ({} rows/sec), {} writer threads wrote {} rows ({} rows/sec), max queue depth {}",
+        parserThreads, parsedRows.get(), parsedRows.get() * 1000 / elapsedMillis, writerThreads,
+        writtenRows.get(), writtenRows.get() * 1000 / elapsedMillis, maxQueueDepth.get());
+  }
+
+  /**
+   * A parsed chunk and the source it was parsed from.
+   */
+  private record Chunk<S>(SourceState<S> source, List<PriceDto> rows) {
+
+  }
+
+  /**
+   * Counts the work left on a source: its parser task plus the chunks waiting for a writer.
+   */
+  private static final class SourceState<S> {
+
+    final S source;
+    final AtomicInteger pending = new AtomicInteger(1);
+
+    SourceState(S source) {
+      this.source = source;
+    }
+
+    void release(Consumer<S> sourceDone) {
+      if (pending.decrementAndGet() == 0) {
+        sourceDone.accept(source);
+      }
+    }
+  }
+}
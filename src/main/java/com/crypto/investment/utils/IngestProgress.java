@@ -0,0 +1,421 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.price.model.PriceDto;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the progress of the CSV ingest running in the background, so that the API can serve the
+ * coins whose data is complete while the others are still being loaded.
+ * <p>
+ * A coin is complete once no unfinished file may contain it any more. The files follow the
+ * {@code <COIN>_values.csv} naming of the {@code prices} directory, so a file is expected to hold
+ * the coin of its name plus any coin it has already been seen to contain. A file whose name does
+ * not declare a coin may contain any coin, no coin is complete before it is finished.
+ * <p>
+ * The names are a heuristic: a file is only known to hold a coin other than its own once a chunk of
+ * it has been parsed. A coin which is already ready can thus be taken back while such a file is
+ * still loading, and is served again once that file is done. With the standard layout of one coin
+ * per file this never happens.
+ * <p>
+ * If the ingest fails, the ready coins are frozen: the coins which were complete stay ready, all
+ * others are never served, as their data may be partial.
+ * <p>
+ * On a restart with a persistent database, the coins stored by the previous run are replayed into
+ * the read models first. Such a coin is complete once its replay is done and no unfinished file
+ * may contain it.
+ */
+@Component
+public class IngestProgress {
+
+  /**
+   * The state of the ingest.
+   */
+  public enum Status {
+    PENDING, LOADING, COMPLETED, FAILED
+  }
+
+  /**
+   * A point in time view of the ingest.
+   *
+   * @param status        The state of the ingest.
+   * @param filesTotal    The number of files to ingest.
+   * @param filesDone     The number of files completely written.
+   * @param bytesTotal    The size of the files to ingest in bytes.
+   * @param bytesDone     The size of the parts of the files written so far in bytes.
+   * @param rows          The number of rows written so far.
+   * @param elapsedMillis The time since the start of the ingest in milliseconds.
+   * @param etaMillis     The estimated time left in milliseconds, or {@code null} if there is no
+   *                      estimate yet.
+   * @param readyCoins    The coins which can be queried.
+   * @param loadingCoins  The coins known to be still loading.
+   * @param error         The reason of a failed ingest.
+   */
+  public record Snapshot(Status status, int filesTotal, int filesDone, long bytesTotal,
+                         long bytesDone, long rows, long elapsedMillis, Long etaMillis,
+                         Set<String> readyCoins, Set<String> loadingCoins, String error) {
+
+  }
+
+  /**
+   * The longest {@code Retry-After} handed out while the ingest is running, in seconds.
+   */
+  static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile CountDownLatch finished = new CountDownLatch(1);
+  private final AtomicLong rows = new AtomicLong();
+  private final AtomicLong bytesDone = new AtomicLong();
+
+  private volatile Status status = Status.PENDING;
+  private volatile Set<String> readyCoins = Set.of();
+  private volatile String error;
+  private volatile long startNanos;
+  private volatile long endNanos;
+
+  /**
+   * The files of the ingest by name, guarded by {@link #lock}.
+   */
+  private final Map<String, FileState> files = new HashMap<>();
+  private int filesDone;
+  private long bytesTotal;
+
+  /**
+   * The coins whose stored prices are still to be replayed, guarded by {@link #lock}.
+   */
+  private final Set<String> pendingReplays = new HashSet<>();
+  /**
+   * The coins whose stored prices have been replayed, guarded by {@link #lock}.
+   */
+  private final Set<String> replayedCoins = new HashSet<>();
+
+  /**
+   * Starts tracking an ingest.
+   *
+   * @param sources the sources to ingest, the segments of a file share its name
+   */
+  public void start(List<PriceSource> sources) {
+    start(sources, Set.of());
+  }
+
+  /**
+   * Starts tracking an ingest which first replays the prices stored by a previous run.
+   *
+   * @param sources     the sources to ingest, the segments of a file share its name
+   * @param replayCoins the coins whose stored prices are replayed, not complete before
+   *                    {@link #onCoinReplayed(String)}
+   */
+  public void start(List<PriceSource> sources, Collection<String> replayCoins) {
+    lock.lock();
+    try {
+      for (String coin : replayCoins) {
+        pendingReplays.add(coin.toUpperCase(Locale.ROOT));
+      }
+      for (PriceSource source : sources) {
+        files.computeIfAbsent(source.name(), FileState::new).pendingSources++;
+        bytesTotal += Math.max(source.size(), 0);
+      }
+      startNanos = System.nanoTime();
+      status = Status.LOADING;
+      updateReadyCoins();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets a previous ingest before the prices are deleted and loaded again. No coin is served
+   * until the next ingest has loaded it.
+   */
+  public void reset() {
+    lock.lock();
+    try {
+      status = Status.PENDING;
+      readyCoins = Set.of();
+      error = null;
+      files.clear();
+      filesDone = 0;
+      bytesTotal = 0;
+      rows.set(0);
+      bytesDone.set(0);
+      pendingReplays.clear();
+      replayedCoins.clear();
+      if (finished.getCount() == 0) {
+        finished = new CountDownLatch(1);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records the coins of a parsed chunk, so that they are not served before their file is done.
+   *
+   * @param source the source the chunk was parsed from
+   * @param chunk  the parsed chunk
+   */
+  public void onParsed(PriceSource source, List<PriceDto> chunk) {
+    FileState file = fileState(source);
+    if (file == null) {
+      return;
+    }
+    String last = null;
+    for (PriceDto price : chunk) {
+      String coin = price.coin();
+      if (!coin.equals(last)) {
+        if (file.coins.add(coin.toUpperCase(Locale.ROOT))) {
+          coinDiscovered();
+        }
+        last = coin;
+      }
+    }
+  }
+
+  /**
+   * Takes a coin met in an unfinished file back from the ready coins.
+   */
+  private void coinDiscovered() {
+    lock.lock();
+    try {
+      updateReadyCoins();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records the stored prices of a coin as replayed into the read models.
+   *
+   * @param coin the symbol of the coin
+   */
+  public void onCoinReplayed(String coin) {
+    lock.lock();
+    try {
+      String symbol = coin.toUpperCase(Locale.ROOT);
+      pendingReplays.remove(symbol);
+      replayedCoins.add(symbol);
+      updateReadyCoins();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param written the number of rows written
+   */
+  public void onWritten(int written) {
+    rows.addAndGet(written);
+  }
+
+  /**
+   * Records a source as completely written. Once all sources of a file are done, the coins which
+   * no other unfinished file may contain become ready.
+   *
+   * @param source the source
+   */
+  public void onSourceDone(PriceSource source) {
+    bytesDone.addAndGet(Math.max(source.size(), 0));
+    lock.lock();
+    try {
+      FileState file = files.get(source.name());
+      if (file != null && --file.pendingSources == 0) {
+        filesDone++;
+        updateReadyCoins();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks the ingest as done, all coins become ready.
+   */
+  public void complete() {
+    endNanos = System.nanoTime();
+    status = Status.COMPLETED;
+    finished.countDown();
+  }
+
+  /**
+   * Marks the ingest as failed. The coins loaded so far stay ready, the others are never served, as
+   * their data may be partial.
+   *
+   * @param cause the reason of the failure
+   */
+  public void fail(Throwable cause) {
+    lock.lock();
+    try {
+      endNanos = System.nanoTime();
+      error = cause.getMessage();
+      status = Status.FAILED;
+    } finally {
+      lock.unlock();
+    }
+    finished.countDown();
+  }
+
+  /**
+   * @return the state of the ingest
+   */
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * @return {@code true} if all prices have been loaded
+   */
+  public boolean isCompleted() {
+    return status == Status.COMPLETED;
+  }
+
+  /**
+   * @return {@code true} if the ingest is no longer running
+   */
+  public boolean isDone() {
+    Status current = status;
+    return current == Status.COMPLETED || current == Status.FAILED;
+  }
+
+  /**
+   * Checks whether the data of a coin is complete and can be served.
+   *
+   * @param coin the symbol of the coin, in any case
+   * @return {@code true} if the ingest is completed or no unfinished file may contain the coin
+   */
+  public boolean isCoinReady(String coin) {
+    return isCompleted() || readyCoins.contains(coin.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * @return the number of seconds a client should wait before asking for a coin again
+   */
+  public long getRetryAfterSeconds() {
+    Long eta = estimateMillis();
+    long seconds = eta == null ? MAX_RETRY_AFTER_SECONDS : TimeUnit.MILLISECONDS.toSeconds(eta) + 1;
+    return Math.clamp(seconds, 1, MAX_RETRY_AFTER_SECONDS);
+  }
+
+  /**
+   * Waits for the ingest to be done.
+   *
+   * @param timeout the maximum time to wait
+   * @return {@code true} if the ingest is done, {@code false} if the timeout elapsed first
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  public boolean await(Duration timeout) throws InterruptedException {
+    return finished.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return a point in time view of the ingest
+   */
+  public Snapshot snapshot() {
+    lock.lock();
+    try {
+      Set<String> ready = new TreeSet<>();
+      Set<String> loading = new TreeSet<>();
+      for (FileState file : files.values()) {
+        (isCompleted() ? ready : loading).addAll(file.coins);
+      }
+      ready.addAll(readyCoins);
+      loading.addAll(pendingReplays);
+      loading.removeAll(ready);
+      return new Snapshot(status, files.size(), filesDone, bytesTotal, bytesDone.get(), rows.get(),
+          TimeUnit.NANOSECONDS.toMillis(elapsedNanos()), estimateMillis(), ready, loading, error);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private FileState fileState(PriceSource source) {
+    lock.lock();
+    try {
+      return files.get(source.name());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private long elapsedNanos() {
+    if (status == Status.PENDING) {
+      return 0;
+    }
+    return (isDone() ? endNanos : System.nanoTime()) - startNanos;
+  }
+
+  /**
+   * Extrapolates the time left from the share of bytes written so far.
+   */
+  private Long estimateMillis() {
+    if (isDone()) {
+      return 0L;
+    }
+    long done = bytesDone.get();
+    if (status != Status.LOADING || done == 0) {
+      return null;
+    }
+    double elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos());
+    return (long) (elapsedMillis * Math.max(bytesTotal - done, 0) / done);
+  }
+
+  /**
+   * Recomputes the coins no unfinished file may contain. Called with {@link #lock} held. After a
+   * failure the ready coins are kept as they are, as the unfinished files will never be done.
+   */
+  private void updateReadyCoins() {
+    if (status == Status.FAILED) {
+      return;
+    }
+    Set<String> known = new HashSet<>(replayedCoins);
+    Set<String> blocked = new HashSet<>(pendingReplays);
+    for (FileState file : files.values()) {
+      known.addAll(file.coins);
+      if (file.pendingSources > 0) {
+        if (file.declaredCoin == null) {
+          readyCoins = Set.of();
+          return;
+        }
+        blocked.addAll(file.coins);
+      }
+    }
+    known.removeAll(blocked);
+    readyCoins = Set.copyOf(known);
+  }
+
+  /**
+   * The progress of a single file.
+   */
+  private static final class FileState {
+
+    /**
+     * The coin declared by the name of the file, or {@code null}.
+     */
+    final String declaredCoin;
+    /**
+     * The coins the file is known to contain.
+     */
+    final Set<String> coins = ConcurrentHashMap.newKeySet();
+    int pendingSources;
+
+    FileState(String name) {
+      int separator = name.indexOf('_');
+      declaredCoin = separator > 0 ? name.substring(0, separator).toUpperCase(Locale.ROOT) : null;
+      if (declaredCoin != null) {
+        coins.add(declaredCoin);
+      }
+    }
+  }
+}
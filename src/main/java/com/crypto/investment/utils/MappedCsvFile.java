@@ -0,0 +1,184 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.utils.PriceLineParser.PriceSink;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads large price files through memory-mapped segments. A file is split at line boundaries into
+ * segments of roughly equal size which can be parsed independently and in parallel by the
+ * {@link PriceLineParser}, without copying the data through stream buffers.
+ */
+public final class MappedCsvFile {
+
+  /**
+   * The largest segment that can be mapped into a single buffer.
+   */
+  static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE - 64 * 1024;
+
+  private static final int SCAN_BLOCK_SIZE = 4096;
+
+  private MappedCsvFile() {
+  }
+
+  /**
+   * A byte range {@code [start, end)} of a file which starts at the beginning of a line and ends
+   * after a line break or at the end of the file.
+   *
+   * @param path  The file.
+   * @param start The offset of the first byte.
+   * @param end   The offset after the last byte.
+   */
+  public record Segment(Path path, long start, long end) {
+
+    @Override
+    public String toString() {
+      return path.getFileName() + "[" + start + ", " + end + ")";
+    }
+  }
+
+  /**
+   * Checks whether the file starts with the standard header of the {@link PriceLineParser}.
+   *
+   * @param path the file
+   * @return {@code true} if the file can be read through mapped segments
+   * @throws IOException if the file could not be read
+   */
+  public static boolean hasStandardHeader(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer head = ByteBuffer.allocate(PriceLineParser.HEADER.length + 1);
+      while (head.hasRemaining() && channel.read(head) != -1) {
+        // fill the buffer or reach the end of the file
+      }
+      return PriceLineParser.hasStandardHeader(head.array(), head.position());
+    }
+  }
+
+  /**
+   * Splits the file into segments of about {@code segmentSize} bytes. Every boundary is moved to
+   * the next line break, so no line is split between two segments.
+   *
+   * @param path        the file
+   * @param segmentSize the target size of a segment in bytes
+   * @return the segments covering the whole file
+   * @throws IOException if the file could not be read
+   */
+  public static List<Segment> split(Path path, long segmentSize) throws IOException {
+    return split(path, segmentSize, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Splits the byte range {@code [start, end)} of the file into segments of about
+   * {@code segmentSize} bytes, e.g. to parse the rows appended to a file since it was last read.
+   *
+   * @param path        the file
+   * @param segmentSize the target size of a segment in bytes
+   * @param start       the offset of a line start, {@code 0} for the beginning of the file
+   * @param end         the offset to stop at, capped at the size of the file
+   * @return the segments covering the range
+   * @throws IOException if the file could not be read
+   */
+  public static List<Segment> split(Path path, long segmentSize, long start, long end)
+      throws IOException {
+    long size = Math.min(Math.max(segmentSize, 1), MAX_SEGMENT_SIZE);
+    List<Segment> segments = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long rangeEnd = Math.min(end, channel.size());
+      long segmentStart = start;
+      while (segmentStart < rangeEnd) {
+        long segmentEnd = segmentStart + size >= rangeEnd ? rangeEnd
+            : Math.min(nextLineStart(channel, segmentStart + size), rangeEnd);
+        segments.add(new Segment(path, segmentStart, segmentEnd));
+        segmentStart = segmentEnd;
+      }
+    }
+    return segments;
+  }
+
+  /**
+   * Parses the rows of a segment. The header line is skipped if the segment starts at the
+   * beginning of the file.
+   *
+   * @param segment the segment to parse
+   * @param parser  the parser, not shared with other threads
+   * @param sink    receives the parsed rows
+   * @throws IOException if the file could not be mapped
+   */
+  public static void parse(Segment segment, PriceLineParser parser, PriceSink sink)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, segment.start(),
+          segment.end() - segment.start());
+      int from = 0;
+      if (segment.start() == 0) {
+        while (from < buffer.limit() && buffer.get(from) != '\n') {
+          from++;
+        }
+        from++;
+      }
+      if (from < buffer.limit()) {
+        parser.parseLines(buffer, from, buffer.limit(), true, sink);
+      }
+    }
+  }
+
+  /**
+   * Finds the end of the last complete line in the byte range {@code [start, end)}, e.g. to leave
+   * out a line which is still being appended to the file.
+   *
+   * @param path  the file
+   * @param start the offset of a line start
+   * @param end   the offset to search back from
+   * @return the offset after the last line break in the range, or {@code start} if there is none
+   * @throws IOException if the file could not be read
+   */
+  public static long lastLineEnd(Path path, long start, long end) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+      long blockEnd = Math.min(end, channel.size());
+      while (blockEnd > start) {
+        long blockStart = Math.max(blockEnd - SCAN_BLOCK_SIZE, start);
+        block.clear().limit((int) (blockEnd - blockStart));
+        while (block.hasRemaining()
+            && channel.read(block, blockStart + block.position()) != -1) {
+          // fill the block
+        }
+        for (int i = block.position() - 1; i >= 0; i--) {
+          if (block.get(i) == '\n') {
+            return blockStart + i + 1;
+          }
+        }
+        blockEnd = blockStart;
+      }
+      return start;
+    }
+  }
+
+  /**
+   * Finds the offset after the first line break at or after the given position.
+   */
+  private static long nextLineStart(FileChannel channel, long position) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+    long offset = position;
+    while (true) {
+      block.clear();
+      int n = channel.read(block, offset);
+      if (n == -1) {
+        return channel.size();
+      }
+      for (int i = 0; i < n; i++) {
+        if (block.get(i) == '\n') {
+          return offset + i + 1;
+        }
+      }
+      offset += n;
+    }
+  }
+}
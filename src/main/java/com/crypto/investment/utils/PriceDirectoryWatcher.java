@@ -0,0 +1,340 @@
+package com.crypto.investment.utils;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.crypto.investment.exception.CSVParsingException;
+import com.crypto.investment.price.persistence.PriceBatchWriter;
+import com.crypto.investment.utils.IngestLedger.Entry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Follows the CSV files of the {@code ingest.watch.dir} directory while the application is
+ * running: new files are picked up as they appear and the rows appended to a file are ingested
+ * without reading the file again. Only the complete lines after the offset of the previous read
+ * are parsed and written, a line still being written is left for the next read.
+ * <p>
+ * The offset of every file is recorded in the {@link IngestLedger} together with the CRC32C of the
+ * bytes before it, so that a restart with a persistent database resumes where it stopped. A file
+ * which shrank or whose content before the recorded offset changed has been rewritten. As prices
+ * are only ever inserted, all prices are then deleted and all files are ingested again, see
+ * {@link CSVLoader#rebuild()}.
+ * <p>
+ * The directory is watched with a {@link WatchService}. The files are also checked every
+ * {@code ingest.watch.poll-interval} milliseconds, for file systems which do not report changes.
+ * Following starts once the startup ingest is done, the watched directory should not be the
+ * {@code ingest.external.dir} unless {@code ingest.ledger.enabled} is on.
+ */
+@Component
+@Slf4j
+public class PriceDirectoryWatcher {
+
+  /**
+   * The directory to watch, the watcher is off if it is blank.
+   */
+  @Value("${ingest.watch.dir:}")
+  private String watchDir = "";
+
+  /**
+   * The maximum time in milliseconds between two checks of the watched files.
+   */
+  @Value("${ingest.watch.poll-interval:1000}")
+  private long pollInterval = 1000;
+
+  /**
+   * The number of records parsed and handed to the writer at once.
+   */
+  @Value("${ingest.batch.size:1000}")
+  private int chunkSize = 1000;
+
+  /**
+   * The target size in bytes of a memory-mapped segment of a watched file.
+   */
+  @Value("${ingest.external.segment.size:67108864}")
+  private long segmentSize = 64 * 1024 * 1024;
+
+  private final CSVLoader csvLoader;
+  private final PriceBatchWriter priceBatchWriter;
+  private final IngestLedger ingestLedger;
+  private final IngestProgress ingestProgress;
+  private final Counter ingestedRows;
+
+  /**
+   * The files followed so far, only accessed by the watcher thread.
+   */
+  private final Map<Path, Tail> tails = new HashMap<>();
+
+  /**
+   * The size of the files which failed to ingest, only accessed by the watcher thread.
+   */
+  private final Map<Path, Long> failedSizes = new HashMap<>();
+
+  private Thread watcher;
+
+  @Autowired
+  public PriceDirectoryWatcher(CSVLoader csvLoader, PriceBatchWriter priceBatchWriter,
+      IngestLedger ingestLedger, IngestProgress ingestProgress, MeterRegistry meterRegistry) {
+    this.csvLoader = csvLoader;
+    this.priceBatchWriter = priceBatchWriter;
+    this.ingestLedger = ingestLedger;
+    this.ingestProgress = ingestProgress;
+    this.ingestedRows = Counter.builder("ingest.rows")
+        .description("Prices written by the CSV ingest")
+        .register(meterRegistry);
+  }
+
+  /**
+   * The read position in a followed file.
+   *
+   * @param source The name of the file in the ledger.
+   * @param offset The offset after the last ingested line.
+   * @param crc    The CRC32C of the bytes before the offset.
+   * @param rows   The number of rows ingested from the file.
+   */
+  private record Tail(String source, long offset, CRC32C crc, long rows) {
+
+  }
+
+  /**
+   * Starts following the watched directory, if one is configured.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (watchDir.isBlank()) {
+      return;
+    }
+    Path dir = Path.of(watchDir).toAbsolutePath();
+    watcher = Thread.ofPlatform().daemon().name("ingest-watcher").start(() -> watch(dir));
+  }
+
+  @PreDestroy
+  void stop() {
+    if (watcher != null) {
+      watcher.interrupt();
+    }
+  }
+
+  /**
+   * Watches the directory until the thread is interrupted. The directory is registered before the
+   * startup ingest is awaited, so no change is missed.
+   *
+   * @param dir the directory to watch
+   */
+  private void watch(Path dir) {
+    try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+      dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+      while (!ingestProgress.await(Duration.ofMillis(pollInterval))) {
+        // follow the files once the read models have been built
+      }
+      log.info("Watching {} for new prices", dir);
+      scan(dir);
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key = watchService.poll(pollInterval, TimeUnit.MILLISECONDS);
+        if (key == null) {
+          scan(dir);
+          continue;
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW) {
+            scan(dir);
+          } else if (isCsv((Path) event.context())) {
+            follow(dir.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()) {
+          log.warn("Stopped watching {}, the directory is no longer accessible", dir);
+          return;
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      log.error("Could not watch {}", dir, e);
+    }
+  }
+
+  /**
+   * Follows all CSV files of the directory.
+   *
+   * @param dir the directory
+   */
+  void scan(Path dir) {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.csv")) {
+      for (Path file : files) {
+        follow(file);
+      }
+    } catch (IOException e) {
+      log.warn("Could not list {}", dir, e);
+    }
+  }
+
+  private static boolean isCsv(Path file) {
+    return file.getFileName().toString().endsWith(".csv");
+  }
+
+  /**
+   * Ingests the lines appended to a file, logging instead of throwing any failure so that the other
+   * files are still followed, be it a parsing error, a failed write to the database or a full coin
+   * dictionary. A file which failed to ingest is retried once its size changes.
+   *
+   * @param file the file
+   */
+  private void follow(Path file) {
+    if (!Files.exists(file)) {
+      tails.remove(file);
+      failedSizes.remove(file);
+      return;
+    }
+    Long failedSize = failedSizes.get(file);
+    try {
+      if (failedSize != null && failedSize == Files.size(file)) {
+        return;
+      }
+      failedSizes.remove(file);
+      tail(file);
+    } catch (IOException | RuntimeException e) {
+      log.error("Could not ingest the new prices of {}", file, e);
+      failedSizes.put(file, sizeOf(file));
+    }
+  }
+
+  private static long sizeOf(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Ingests the complete lines appended to a file since it was read last. The read position is
+   * advanced segment by segment, so that after a failure only the segment which failed is read
+   * again.
+   *
+   * @param file the file
+   * @return the number of rows written
+   * @throws IOException         if the file could not be read
+   * @throws CSVParsingException if the new lines could not be parsed
+   */
+  long tail(Path file) throws IOException {
+    long size = Files.size(file);
+    Tail tail = tails.get(file);
+    if (tail == null) {
+      tail = resume(file);
+    }
+    if (tail == null || size < tail.offset()) {
+      log.warn("{} was rewritten since it was ingested, ingesting all files again", file);
+      rebuild();
+      tail = new Tail(IngestLedger.sourceOf(new FileSystemResource(file)), 0, new CRC32C(), 0);
+    }
+    tails.put(file, tail);
+    if (size == tail.offset() || tail.offset() == 0 && !MappedCsvFile.hasStandardHeader(file)) {
+      // nothing new, or a file which is still being created or not in the standard layout
+      return 0;
+    }
+    long end = MappedCsvFile.lastLineEnd(file, tail.offset(), size);
+    if (end == tail.offset()) {
+      return 0;
+    }
+    long written = 0;
+    for (MappedCsvFile.Segment segment : MappedCsvFile.split(file, segmentSize, tail.offset(),
+        end)) {
+      long[] rows = new long[1];
+      csvLoader.segmentSource(segment, chunkSize).parse(chunk -> {
+        rows[0] += priceBatchWriter.write(chunk);
+      });
+      written += rows[0];
+      ingestedRows.increment(rows[0]);
+      tail = advance(file, tail, segment, rows[0]);
+    }
+    log.info("Ingested {} new prices of {}", written, file.getFileName());
+    return written;
+  }
+
+  /**
+   * Looks up the offset of a file in the {@link IngestLedger}. The recorded offset is only used
+   * if the content before it is unchanged.
+   *
+   * @param file the file
+   * @return the read position in the file, or {@code null} if the file has been rewritten since it
+   * was ingested
+   * @throws IOException if the file could not be read
+   */
+  private Tail resume(Path file) throws IOException {
+    FileSystemResource resource = new FileSystemResource(file);
+    String source = IngestLedger.sourceOf(resource);
+    Entry entry = ingestLedger.find(source).orElse(null);
+    if (entry == null) {
+      return new Tail(source, 0, new CRC32C(), 0);
+    }
+    if (entry.size() > Files.size(file)) {
+      return null;
+    }
+    CRC32C crc = IngestLedger.crc(resource, entry.size());
+    return crc.getValue() == entry.checksum() ? new Tail(source, entry.size(), crc, entry.rows())
+        : null;
+  }
+
+  /**
+   * Deletes all prices and ingests all files again, the followed files from their start.
+   */
+  private void rebuild() {
+    tails.clear();
+    failedSizes.clear();
+    csvLoader.rebuild();
+  }
+
+  /**
+   * Moves the read position of a file past a segment whose rows have been written, and records it
+   * in the {@link IngestLedger}. A {@link CRC32C} cannot be copied, so the segment is mapped before
+   * the checksum is fed: a failure up to then leaves the tail as it was, and the checksum and the
+   * offset always advance together.
+   *
+   * @param file    the file
+   * @param tail    the read position before the segment
+   * @param segment the segment
+   * @param rows    the number of rows written from the segment
+   * @return the read position after the segment
+   * @throws IOException if the segment could not be read
+   */
+  private Tail advance(Path file, Tail tail, MappedCsvFile.Segment segment, long rows)
+      throws IOException {
+    MappedByteBuffer bytes;
+    try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+      bytes = channel.map(MapMode.READ_ONLY, segment.start(), segment.end() - segment.start());
+    }
+    tail.crc().update(bytes);
+    Tail next = new Tail(tail.source(), segment.end(), tail.crc(), tail.rows() + rows);
+    tails.put(file, next);
+    ingestLedger.record(next.source(), new Entry(next.offset(),
+        Files.getLastModifiedTime(file).toMillis(), next.crc().getValue(), next.rows()));
+    return next;
+  }
+}
@@ -0,0 +1,270 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.exception.CSVParsingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Parser specialised for the {@code timestamp,symbol,price} layout of the price files. It works on
+ * raw bytes and hands every row to a {@link PriceSink} as primitives: the epoch millis and the
+ * price as an unscaled {@code long} with its scale. Symbols are interned, so no objects are
+ * allocated per row. Files which do not start with the standard header have to be parsed with
+ * commons-csv instead.
+ * <p>
+ * Instances keep the interned symbols and are not thread-safe.
+ */
+public class PriceLineParser {
+
+  /**
+   * The header line of a file in the standard layout.
+   */
+  static final byte[] HEADER = "timestamp,symbol,price".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * The maximum number of digits of a price, so that its unscaled value fits into a {@code long}.
+   */
+  private static final int MAX_PRICE_DIGITS = 18;
+
+  /**
+   * The maximum number of digits of a timestamp, so that it fits into a {@code long}.
+   */
+  private static final int MAX_TIMESTAMP_DIGITS = 18;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Receives the parsed rows.
+   */
+  @FunctionalInterface
+  public interface PriceSink {
+
+    /**
+     * @param epochMillis   the timestamp of the price in milliseconds since the epoch
+     * @param coin          the interned symbol of the coin
+     * @param unscaledPrice the unscaled value of the price
+     * @param scale         the number of digits after the decimal point
+     */
+    void accept(long epochMillis, String coin, long unscaledPrice, int scale);
+  }
+
+  private byte[][] symbolBytes = new byte[8][];
+  private String[] symbols = new String[8];
+  private int symbolCount;
+
+  public PriceLineParser() {
+  }
+
+  /**
+   * @param knownSymbols the symbols to intern up front, e.g. the coins already registered
+   */
+  public PriceLineParser(Collection<String> knownSymbols) {
+    for (String symbol : knownSymbols) {
+      addSymbol(symbol.getBytes(StandardCharsets.US_ASCII), symbol);
+    }
+  }
+
+  /**
+   * Checks whether the bytes start with the standard header line.
+   *
+   * @param bytes  the beginning of the file
+   * @param length the number of valid bytes
+   * @return {@code true} if the fast parser can be used for the file
+   */
+  public static boolean hasStandardHeader(byte[] bytes, int length) {
+    if (length < HEADER.length
+        || !Arrays.equals(bytes, 0, HEADER.length, HEADER, 0, HEADER.length)) {
+      return false;
+    }
+    return length == HEADER.length || bytes[HEADER.length] == '\n'
+        || bytes[HEADER.length] == '\r';
+  }
+
+  /**
+   * Parses a whole file in the standard layout. The first line is skipped as the header.
+   *
+   * @param in   the file content
+   * @param sink receives the parsed rows
+   * @throws IOException         if the file could not be read
+   * @throws CSVParsingException if a row is malformed
+   */
+  public void parse(InputStream in, PriceSink sink) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    ByteBuffer view = ByteBuffer.wrap(buffer);
+    int filled = 0;
+    boolean header = true;
+    int n;
+    while ((n = in.read(buffer, filled, buffer.length - filled)) != -1) {
+      filled += n;
+      int from = 0;
+      if (header) {
+        int eol = indexOf(view, 0, filled, (byte) '\n');
+        if (eol < 0) {
+          if (filled == buffer.length) {
+            buffer = grow(buffer, filled);
+            view = ByteBuffer.wrap(buffer);
+          }
+          continue;
+        }
+        from = eol + 1;
+        header = false;
+      }
+      int consumed = parseLines(view, from, filled, false, sink);
+      filled -= consumed;
+      System.arraycopy(buffer, consumed, buffer, 0, filled);
+      if (filled == buffer.length) {
+        buffer = grow(buffer, filled);
+        view = ByteBuffer.wrap(buffer);
+      }
+    }
+    if (!header) {
+      parseLines(view, 0, filled, true, sink);
+    }
+  }
+
+  /**
+   * Parses the complete lines within {@code [from, to)} of the buffer. Empty lines are skipped.
+   *
+   * @param buffer     the bytes to parse
+   * @param from       the offset of the first byte of a line
+   * @param to         the offset after the last valid byte
+   * @param endOfInput whether the bytes after the last line break form a final line
+   * @param sink       receives the parsed rows
+   * @return the offset of the first byte which was not consumed
+   * @throws CSVParsingException if a row is malformed
+   */
+  public int parseLines(ByteBuffer buffer, int from, int to, boolean endOfInput, PriceSink sink) {
+    int start = from;
+    while (start < to) {
+      int eol = indexOf(buffer, start, to, (byte) '\n');
+      if (eol < 0) {
+        if (!endOfInput) {
+          return start;
+        }
+        eol = to;
+      }
+      int end = eol > start && buffer.get(eol - 1) == '\r' ? eol - 1 : eol;
+      if (end > start) {
+        parseLine(buffer, start, end, sink);
+      }
+      start = eol + 1;
+    }
+    return Math.min(start, to);
+  }
+
+  /**
+   * Parses a single {@code timestamp,symbol,price} row.
+   */
+  private void parseLine(ByteBuffer buffer, int start, int end, PriceSink sink) {
+    int pos = start;
+    long epochMillis = 0;
+    while (pos < end && buffer.get(pos) != ',') {
+      int digit = buffer.get(pos) - '0';
+      if (digit < 0 || digit > 9 || pos - start >= MAX_TIMESTAMP_DIGITS) {
+        throw malformed(buffer, start, end);
+      }
+      epochMillis = epochMillis * 10 + digit;
+      pos++;
+    }
+    if (pos == start || pos == end) {
+      throw malformed(buffer, start, end);
+    }
+
+    int symbolStart = ++pos;
+    while (pos < end && buffer.get(pos) != ',') {
+      pos++;
+    }
+    if (pos == symbolStart || pos == end) {
+      throw malformed(buffer, start, end);
+    }
+    String coin = intern(buffer, symbolStart, pos - symbolStart);
+
+    pos++;
+    boolean negative = pos < end && buffer.get(pos) == '-';
+    if (negative) {
+      pos++;
+    }
+    long unscaled = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; pos < end; pos++) {
+      byte b = buffer.get(pos);
+      if (b == '.' && scale < 0) {
+        scale = 0;
+        continue;
+      }
+      int digit = b - '0';
+      if (digit < 0 || digit > 9 || ++digits > MAX_PRICE_DIGITS) {
+        throw malformed(buffer, start, end);
+      }
+      unscaled = unscaled * 10 + digit;
+      if (scale >= 0) {
+        scale++;
+      }
+    }
+    if (digits == 0) {
+      throw malformed(buffer, start, end);
+    }
+    sink.accept(epochMillis, coin, negative ? -unscaled : unscaled, Math.max(scale, 0));
+  }
+
+  /**
+   * Returns the interned symbol for the given bytes, allocating a new String only the first time
+   * a symbol is seen.
+   */
+  private String intern(ByteBuffer buffer, int start, int length) {
+    for (int i = 0; i < symbolCount; i++) {
+      byte[] candidate = symbolBytes[i];
+      if (candidate.length == length && matches(buffer, start, candidate)) {
+        return symbols[i];
+      }
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(start, bytes);
+    String symbol = new String(bytes, StandardCharsets.US_ASCII);
+    addSymbol(bytes, symbol);
+    return symbol;
+  }
+
+  private void addSymbol(byte[] bytes, String symbol) {
+    if (symbolCount == symbols.length) {
+      symbols = Arrays.copyOf(symbols, symbolCount * 2);
+      symbolBytes = Arrays.copyOf(symbolBytes, symbolCount * 2);
+    }
+    symbols[symbolCount] = symbol;
+    symbolBytes[symbolCount++] = bytes;
+  }
+
+  private static boolean matches(ByteBuffer buffer, int start, byte[] candidate) {
+    for (int i = 0; i < candidate.length; i++) {
+      if (buffer.get(start + i) != candidate[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(ByteBuffer buffer, int from, int to, byte value) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static byte[] grow(byte[] buffer, int filled) {
+    return Arrays.copyOf(buffer, Math.max(buffer.length * 2, filled + 1));
+  }
+
+  private static CSVParsingException malformed(ByteBuffer buffer, int start, int end) {
+    byte[] row = new byte[end - start];
+    buffer.get(start, row);
+    return new CSVParsingException(
+        "CSV data is failed to parse: malformed row '" + new String(row, StandardCharsets.US_ASCII)
+            + "'");
+  }
+}
@@ -0,0 +1,423 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.price.model.PriceDto;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the ingested prices in a compact binary snapshot, one file per coin, so that a restart
+ * with an in-memory database loads them without parsing the CSV files again.
+ * <p>
+ * A snapshot file {@code <COIN>_snapshot.bin} holds a header followed by the rows of the coin in
+ * ascending order of time. The first row is stored in the header, every following row as the
+ * differences of its epoch millis timestamp and its fixed-point price to the previous row, both
+ * zigzag and varint encoded. Hourly prices take about 6 bytes per row, a fraction of their CSV.
+ * <p>
+ * The header, in big-endian byte order:
+ * <pre>
+ * int    magic            "CPSN"
+ * short  version          {@link #VERSION}
+ * long   fingerprint      of the CSV files the snapshot was taken from
+ * int    coinCount        the number of snapshot files taken together
+ * int    rows
+ * long   firstTimestamp   epoch millis
+ * long   firstPrice       fixed-point, see {@link com.crypto.investment.price.model.FixedPointPrice}
+ * int    payloadLength
+ * int    payloadChecksum  CRC32C of the payload
+ * short  symbolLength
+ * byte[] symbol           UTF-8
+ * int    headerChecksum   CRC32C of the preceding header bytes
+ * </pre>
+ * A snapshot is only loaded if all its files are intact, belong to the same snapshot and were taken
+ * from the CSV files as they are now, otherwise the CSV files are ingested again.
+ */
+@Component
+@Slf4j
+public class PriceSnapshotStore {
+
+  static final int MAGIC = 0x4350534E;
+  static final short VERSION = 1;
+  static final String SUFFIX = "_snapshot.bin";
+
+  private static final String SELECT_PRICES = "select coin_id, price_date, price from price order by coin_id, price_date";
+  private static final String COUNT_COINS = "select count(distinct coin_id) from price";
+
+  /**
+   * The directory of the snapshot files, snapshots are off if it is blank.
+   */
+  @Value("${ingest.snapshot.dir:}")
+  private String snapshotDir = "";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CoinRepository coinRepository;
+
+  @Autowired
+  public PriceSnapshotStore(JdbcTemplate jdbcTemplate, CoinRepository coinRepository) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.coinRepository = coinRepository;
+  }
+
+  /**
+   * The header of a snapshot file.
+   *
+   * @param fingerprint     The fingerprint of the CSV files the snapshot was taken from.
+   * @param coinCount       The number of snapshot files taken together.
+   * @param coin            The symbol of the coin.
+   * @param rows            The number of rows.
+   * @param firstTimestamp  The timestamp of the first row in epoch millis.
+   * @param firstPrice      The fixed-point price of the first row.
+   * @param payloadOffset   The offset of the payload in the file.
+   * @param payloadLength   The length of the payload in bytes.
+   * @param payloadChecksum The CRC32C of the payload.
+   */
+  record Header(long fingerprint, int coinCount, String coin, int rows, long firstTimestamp,
+                long firstPrice, int payloadOffset, int payloadLength, int payloadChecksum) {
+
+  }
+
+  /**
+   * @return {@code true} if a snapshot directory is configured
+   */
+  public boolean isEnabled() {
+    return !snapshotDir.isBlank();
+  }
+
+  /**
+   * Calculates the fingerprint of a set of CSV files from their names, sizes and modification
+   * times, without reading them.
+   *
+   * @param resources the CSV files
+   * @return the fingerprint
+   */
+  public static long fingerprint(List<Resource> resources) {
+    CRC32C crc = new CRC32C();
+    ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+    for (Resource resource : resources) {
+      crc.update(resource.getDescription().getBytes(StandardCharsets.UTF_8));
+      buffer.clear();
+      try {
+        buffer.putLong(resource.contentLength()).putLong(resource.lastModified());
+      } catch (IOException e) {
+        buffer.putLong(-1).putLong(-1);
+      }
+      crc.update(buffer.flip());
+    }
+    return (long) resources.size() << 32 | crc.getValue();
+  }
+
+  /**
+   * Opens the snapshot taken from the CSV files with the given fingerprint.
+   *
+   * @param fingerprint the fingerprint of the current CSV files
+   * @param chunkSize   the maximum number of records passed to a consumer at once
+   * @return one source per coin, or nothing if there is no intact snapshot of the CSV files
+   */
+  public Optional<List<PriceSource>> load(long fingerprint, int chunkSize) {
+    Path dir = Path.of(snapshotDir);
+    if (!isEnabled() || !Files.isDirectory(dir)) {
+      return Optional.empty();
+    }
+    try {
+      List<Path> files = list(dir);
+      List<PriceSource> sources = new ArrayList<>();
+      for (Path file : files) {
+        Header header = verify(file);
+        if (header.fingerprint() != fingerprint || header.coinCount() != files.size()) {
+          log.info("The snapshot in {} is stale, loading the CSV files", dir);
+          return Optional.empty();
+        }
+        sources.add(new PriceSource(file.getFileName().toString(), Files.size(file),
+            consumer -> read(file, chunkSize, consumer)));
+      }
+      if (files.isEmpty()) {
+        return Optional.empty();
+      }
+      log.info("Loading the prices from the snapshot in {}", dir);
+      return Optional.of(sources);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Could not load the snapshot in {}, loading the CSV files", dir, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Takes a snapshot of the {@code price} table, replacing the previous snapshot.
+   *
+   * @param fingerprint the fingerprint of the CSV files the prices were ingested from
+   * @return the number of rows written
+   * @throws IOException if the snapshot could not be written
+   */
+  public long write(long fingerprint) throws IOException {
+    Path dir = Path.of(snapshotDir);
+    Files.createDirectories(dir);
+    for (Path file : list(dir)) {
+      Files.delete(file);
+    }
+    Integer coinCount = jdbcTemplate.queryForObject(COUNT_COINS, Integer.class);
+    Encoder[] current = new Encoder[1];
+    long[] rows = new long[1];
+    try {
+      jdbcTemplate.query(SELECT_PRICES, rs -> {
+        String coin = coinRepository.getSymbol(rs.getShort("coin_id"));
+        if (current[0] == null || !current[0].coin.equals(coin)) {
+          finish(current[0], dir, fingerprint, coinCount);
+          current[0] = new Encoder(coin);
+        }
+        current[0].add(EpochMillis.of(rs.getTimestamp("price_date").toLocalDateTime()),
+            rs.getLong("price"));
+        rows[0]++;
+      });
+      finish(current[0], dir, fingerprint, coinCount);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return rows[0];
+  }
+
+  private static void finish(Encoder encoder, Path dir, long fingerprint, int coinCount) {
+    if (encoder == null) {
+      return;
+    }
+    try {
+      encoder.writeTo(dir.resolve(fileName(encoder.coin)), fingerprint, coinCount);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @param coin the symbol of a coin
+   * @return the name of the snapshot file of the coin, following the naming of the CSV files
+   */
+  static String fileName(String coin) {
+    return coin.replaceAll("[^A-Za-z0-9-]", "-") + SUFFIX;
+  }
+
+  private static List<Path> list(Path dir) throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+      stream.forEach(files::add);
+    }
+    return files;
+  }
+
+  /**
+   * Reads the header of a snapshot file and verifies the checksums of the header and the
+   * payload.
+   *
+   * @param file the snapshot file
+   * @return the header
+   * @throws IOException if the file could not be read or is corrupt
+   */
+  static Header verify(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      Header header = readHeader(buffer);
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.slice(header.payloadOffset(), header.payloadLength()));
+      if ((int) crc.getValue() != header.payloadChecksum()) {
+        throw new IOException("Corrupt snapshot payload in " + file);
+      }
+      return header;
+    }
+  }
+
+  /**
+   * Reads the header at the start of a buffer.
+   *
+   * @param buffer the content of a snapshot file
+   * @return the header
+   * @throws IOException if the header is corrupt or of an unknown version
+   */
+  static Header readHeader(ByteBuffer buffer) throws IOException {
+    try {
+      if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+        throw new IOException("Not a snapshot of version " + VERSION);
+      }
+      ByteBuffer in = buffer.duplicate().position(6);
+      long fingerprint = in.getLong();
+      int coinCount = in.getInt();
+      int rows = in.getInt();
+      long firstTimestamp = in.getLong();
+      long firstPrice = in.getLong();
+      int payloadLength = in.getInt();
+      int payloadChecksum = in.getInt();
+      byte[] symbol = new byte[in.getShort()];
+      in.get(symbol);
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.slice(0, in.position()));
+      if ((int) crc.getValue() != in.getInt()) {
+        throw new IOException("Corrupt snapshot header");
+      }
+      return new Header(fingerprint, coinCount, new String(symbol, StandardCharsets.UTF_8), rows,
+          firstTimestamp, firstPrice, in.position(), payloadLength, payloadChecksum);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("Truncated snapshot header", e);
+    }
+  }
+
+  /**
+   * Reads the rows of a snapshot file with a single memory-mapped read.
+   *
+   * @param file      the snapshot file
+   * @param chunkSize the maximum number of records passed to the consumer at once
+   * @param consumer  the consumer receiving the chunks
+   * @throws IOException if the file could not be read
+   */
+  static void read(Path file, int chunkSize, Consumer<List<PriceDto>> consumer)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      Header header = readHeader(buffer);
+      decode(header, buffer.slice(header.payloadOffset(), header.payloadLength()), chunkSize,
+          consumer);
+    }
+  }
+
+  /**
+   * Decodes the rows of a snapshot file.
+   *
+   * @param header    the header of the file
+   * @param payload   the payload of the file
+   * @param chunkSize the maximum number of records passed to the consumer at once
+   * @param consumer  the consumer receiving the chunks
+   */
+  static void decode(Header header, ByteBuffer payload, int chunkSize,
+      Consumer<List<PriceDto>> consumer) {
+    String coin = header.coin();
+    long timestamp = header.firstTimestamp();
+    long price = header.firstPrice();
+    List<PriceDto> chunk = new ArrayList<>(Math.min(chunkSize, header.rows()));
+    chunk.add(new PriceDto(EpochMillis.toLocalDateTime(timestamp), coin, price));
+    for (int i = 1; i < header.rows(); i++) {
+      if (chunk.size() == chunkSize) {
+        consumer.accept(chunk);
+        chunk = new ArrayList<>(chunkSize);
+      }
+      timestamp += zigzagDecode(readVarLong(payload));
+      price += zigzagDecode(readVarLong(payload));
+      chunk.add(new PriceDto(EpochMillis.toLocalDateTime(timestamp), coin, price));
+    }
+    consumer.accept(chunk);
+  }
+
+  static long zigzagEncode(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long zigzagDecode(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long readVarLong(ByteBuffer in) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  /**
+   * Encodes the rows of a coin, in ascending order of time, into a snapshot file.
+   */
+  static final class Encoder {
+
+    final String coin;
+    private byte[] payload = new byte[4096];
+    private int length;
+    private int rows;
+    private long firstTimestamp;
+    private long firstPrice;
+    private long lastTimestamp;
+    private long lastPrice;
+
+    Encoder(String coin) {
+      this.coin = coin;
+    }
+
+    /**
+     * @param epochMillis the timestamp of the row
+     * @param price       the fixed-point price of the row
+     */
+    void add(long epochMillis, long price) {
+      if (rows == 0) {
+        firstTimestamp = epochMillis;
+        firstPrice = price;
+      } else {
+        writeVarLong(zigzagEncode(epochMillis - lastTimestamp));
+        writeVarLong(zigzagEncode(price - lastPrice));
+      }
+      lastTimestamp = epochMillis;
+      lastPrice = price;
+      rows++;
+    }
+
+    private void writeVarLong(long value) {
+      if (length + 10 > payload.length) {
+        payload = Arrays.copyOf(payload, payload.length * 2);
+      }
+      while ((value & ~0x7FL) != 0) {
+        payload[length++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      payload[length++] = (byte) value;
+    }
+
+    /**
+     * Writes the snapshot file, replacing it atomically.
+     *
+     * @param file        the snapshot file
+     * @param fingerprint the fingerprint of the CSV files the rows were ingested from
+     * @param coinCount   the number of snapshot files taken together
+     * @throws IOException if the file could not be written
+     */
+    void writeTo(Path file, long fingerprint, int coinCount) throws IOException {
+      byte[] symbol = coin.getBytes(StandardCharsets.UTF_8);
+      ByteBuffer header = ByteBuffer.allocate(64 + symbol.length);
+      CRC32C crc = new CRC32C();
+      crc.update(payload, 0, length);
+      header.putInt(MAGIC).putShort(VERSION).putLong(fingerprint).putInt(coinCount).putInt(rows)
+          .putLong(firstTimestamp).putLong(firstPrice).putInt(length).putInt((int) crc.getValue())
+          .putShort((short) symbol.length).put(symbol);
+      crc.reset();
+      crc.update(header.array(), 0, header.position());
+      header.putInt((int) crc.getValue());
+
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        out.write(header.array(), 0, header.position());
+        out.write(payload, 0, length);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
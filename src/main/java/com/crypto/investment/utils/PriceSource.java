@@ -0,0 +1,40 @@
+package com.crypto.investment.utils;
+
+import com.crypto.investment.exception.CSVParsingException;
+import com.crypto.investment.price.model.PriceDto;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A unit of work of the ingest: a whole CSV file, a segment of a large file or a snapshot file.
+ *
+ * @param name   The name of the file used in metrics. The segments of a file share the name.
+ * @param size   The size of the source in bytes, or -1 if it is not known.
+ * @param parser Parses the source and passes the parsed chunks to a consumer.
+ */
+public record PriceSource(String name, long size, Parser parser) {
+
+  /**
+   * Parses a source into chunks of {@link PriceDto} objects.
+   */
+  @FunctionalInterface
+  public interface Parser {
+
+    void parse(Consumer<List<PriceDto>> consumer) throws IOException;
+  }
+
+  /**
+   * Parses the source.
+   *
+   * @param consumer the consumer receiving the parsed chunks
+   * @throws CSVParsingException if the source could not be read or parsed
+   */
+  public void parse(Consumer<List<PriceDto>> consumer) {
+    try {
+      parser.parse(consumer);
+    } catch (IOException e) {
+      throw new CSVParsingException("CSV data is failed to parse: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,36 @@
+-- Dictionary of the coins, prices refer to a coin by its small id instead of repeating the symbol.
+create table if not exists coin (
+  id     smallint generated by default as identity primary key,
+  symbol varchar(255) not null
+);
+
+create unique index if not exists coin_symbol_idx on coin (symbol);
+
+create table if not exists price (
+  id         bigint generated by default as identity primary key,
+  price_date timestamp not null,
+  -- fixed-point price in units of 10^-8, see FixedPointPrice
+  price      bigint    not null,
+  coin_id    smallint  not null
+);
+
+-- Every coin query filters or groups by coin and price date. A coin has at most one price per date.
+create unique index if not exists price_coin_date_idx on price (coin_id, price_date);
+-- Day range filters without a coin, e.g. the coin with the highest normalized range of a day.
+create index if not exists price_date_idx on price (price_date);
+
+-- Added last: H2 creates an index of its own on coin_id for the key, and grouping by coin should
+-- keep preferring price_coin_date_idx.
+alter table price add constraint if not exists price_coin_fk foreign key (coin_id) references coin (id);
+
+-- The CSV files ingested so far, so that a restart on a persistent database skips unchanged files
+-- and reads only the rows appended to a file, see IngestLedger.
+create table if not exists ingest_ledger (
+  source        varchar(1024) primary key,
+  size          bigint        not null,
+  last_modified bigint        not null,
+  -- CRC32C of the first size bytes of the file
+  checksum      bigint        not null,
+  row_count     bigint        not null,
+  ingested_at   timestamp     not null
+);
@@ -1,13 +1,23 @@
 package com.crypto.investment;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.utils.IngestProgress;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
 class CryptoInvestmentApplicationTests {
 
+	@Autowired
+	private IngestProgress ingestProgress;
+
 	@Test
-	void contextLoads() {
+	void contextLoads() throws InterruptedException {
+		assertThat(ingestProgress.await(Duration.ofSeconds(30))).isTrue();
+		assertThat(ingestProgress.getStatus()).isEqualTo(IngestProgress.Status.COMPLETED);
 	}
 
 }
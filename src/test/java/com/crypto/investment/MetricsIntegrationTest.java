@@ -0,0 +1,73 @@
+package com.crypto.investment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.crypto.investment.utils.IngestProgress;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private IngestProgress ingestProgress;
+
+  @BeforeEach
+  void awaitIngest() throws InterruptedException {
+    assertThat(ingestProgress.await(Duration.ofSeconds(30))).isTrue();
+  }
+
+  @Test
+  void testPrometheusEndpoint() throws Exception {
+    mockMvc.perform(get("/api/v1/coin/info/BTC")).andExpect(status().isOk());
+
+    mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("ingest_rows_total")))
+        .andExpect(content().string(containsString("ingest_bytes_total")))
+        .andExpect(content().string(containsString("ingest_file_duration_seconds_count")))
+        .andExpect(content().string(containsString(
+            "coin_query_seconds_bucket{query=\"coin_info\",le=")))
+        .andExpect(content().string(containsString(
+            "rate_limit_requests_total{result=\"accepted\"}")))
+        .andExpect(content().string(containsString("rate_limit_tracked_clients")))
+        .andExpect(content().string(containsString(
+            "http_server_requests_seconds_bucket{error=\"none\",exception=\"none\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/api/v1/coin/info/{coin}\"")));
+  }
+
+  @Test
+  void testHealthGroups() throws Exception {
+    mockMvc.perform(get("/actuator/health/liveness"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/health/readiness"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void testIngestEndpoint() throws Exception {
+    mockMvc.perform(get("/actuator/ingest"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status", is("COMPLETED")))
+        .andExpect(jsonPath("$.filesDone", is(1)))
+        .andExpect(jsonPath("$.filesTotal", is(1)))
+        .andExpect(jsonPath("$.readyCoins", hasItem("BTC")));
+  }
+}
@@ -1,32 +1,48 @@
 package com.crypto.investment.coin.controller;
 
+import com.crypto.investment.coin.model.CandleDto;
+import com.crypto.investment.coin.model.CandleInterval;
 import com.crypto.investment.coin.model.CoinInfoDto;
 import com.crypto.investment.coin.persistence.CoinInfoRepository;
+import com.crypto.investment.price.persistence.DataVersion;
+import com.crypto.investment.utils.IngestProgress;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// more requests than a single client may send per window in production
+@SpringBootTest(properties = "rate.limit.per.window=100")
 @AutoConfigureMockMvc
 public class CoinControllerIntegrationTest {
 
@@ -36,10 +52,17 @@ public class CoinControllerIntegrationTest {
   @MockBean
   private CoinInfoRepository coinInfoRepository;
 
+  @Autowired
+  private DataVersion dataVersion;
+
+  @SpyBean
+  private IngestProgress ingestProgress;
+
   private CoinInfoDto coinInfoDto;
 
   @BeforeEach
-  void setUp() {
+  void setUp() throws InterruptedException {
+    assertThat(ingestProgress.await(Duration.ofSeconds(30))).isTrue();
     coinInfoDto = new CoinInfoDto("BTC", new BigDecimal("100.00"), new BigDecimal("10.00"), LocalDateTime.of(2022,
         Month.JANUARY, 1, 0, 0),  LocalDateTime.of(2022,
         Month.JANUARY, 30, 0, 0));
@@ -58,6 +81,60 @@ public class CoinControllerIntegrationTest {
         .andExpect(jsonPath("$.newest", is("2022-01-30T00:00:00")));
   }
 
+  @Test
+  void testGetCoinInfoIgnoresCase() throws Exception {
+    when(coinInfoRepository.getCoinInfoByCoin(eq("BTC"))).thenReturn(coinInfoDto);
+
+    mockMvc.perform(get("/api/v1/coin/info/btc"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.coin", is("BTC")));
+  }
+
+  @Test
+  void testGetCoinInfoInWindow() throws Exception {
+    when(coinInfoRepository.getCoinInfoByCoin(eq("BTC"),
+        eq(LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0)), eq(null))).thenReturn(coinInfoDto);
+
+    mockMvc.perform(get("/api/v1/coin/info/BTC").param("from", "2022-01-01T00:00:00"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.coin", is("BTC")))
+        .andExpect(jsonPath("$.max", is(100.00)));
+  }
+
+  @Test
+  void testGetCoinInfoInEmptyWindow() throws Exception {
+    when(coinInfoRepository.getCoinInfoByCoin(eq("BTC"), any(LocalDateTime.class),
+        any(LocalDateTime.class))).thenThrow(new EmptyResultDataAccessException(1));
+
+    mockMvc.perform(get("/api/v1/coin/info/BTC").param("from", "2030-01-01T00:00:00")
+            .param("to", "2030-01-02T00:00:00"))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message", is("The coin: BTC has no prices in the window.")));
+  }
+
+  @Test
+  void testGetCandles() throws Exception {
+    CandleDto candle = new CandleDto(LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0),
+        new BigDecimal("46813.21"), new BigDecimal("47000.00"), new BigDecimal("46000.00"),
+        new BigDecimal("46900.00"), 24);
+    when(coinInfoRepository.getCandles(eq("BTC"), eq(CandleInterval.WEEK), eq(null), eq(null)))
+        .thenReturn(List.of(candle));
+
+    mockMvc.perform(get("/api/v1/coin/candles/BTC").param("interval", "1w"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].time", is("2022-01-01T00:00:00")))
+        .andExpect(jsonPath("$[0].open", is(46813.21)))
+        .andExpect(jsonPath("$[0].count", is(24)));
+  }
+
+  @Test
+  void testGetCandlesWithUnsupportedInterval() throws Exception {
+    mockMvc.perform(get("/api/v1/coin/candles/BTC").param("interval", "5m"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is("Unsupported candle interval: 5m")));
+  }
+
   @Test
   void testGetCoinListNormalizedRange() throws Exception {
     List<String> coinList = Arrays.asList("BTC", "ETH", "XRP");
@@ -79,4 +156,94 @@ public class CoinControllerIntegrationTest {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", is("BTC")));
   }
+
+  @Test
+  void testGetCoinWithMaxNormalizedRangeOnDayWithoutPrices() throws Exception {
+    when(coinInfoRepository.getCoinWithMaxNormalizedRange(any(LocalDate.class)))
+        .thenThrow(new EmptyResultDataAccessException(1));
+
+    mockMvc.perform(get("/api/v1/coin/max/01-01-2030"))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message", is("There are no prices on: 2030-01-01.")));
+  }
+
+  @Test
+  void testGetCoinListNormalizedRangeNotModified() throws Exception {
+    when(coinInfoRepository.getCoinListSortedByNormalizedRange()).thenReturn(List.of("BTC"));
+
+    String etag = mockMvc.perform(get("/api/v1/coin/range"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mockMvc.perform(get("/api/v1/coin/range").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  void testRecentWriteIsValidatedByEtagOnly() throws Exception {
+    when(coinInfoRepository.getCoinListSortedByNormalizedRange()).thenReturn(List.of("BTC"));
+    dataVersion.increment();
+
+    mockMvc.perform(get("/api/v1/coin/range").header(HttpHeaders.IF_MODIFIED_SINCE,
+            DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC))))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+        .andExpect(header().string(HttpHeaders.ETAG, dataVersion.current().etag()));
+  }
+
+  @Test
+  void testGetCoinWithMaxNormalizedRangeModifiedAfterWrite() throws Exception {
+    when(coinInfoRepository.getCoinWithMaxNormalizedRange(any(LocalDate.class))).thenReturn("BTC");
+
+    String etag = mockMvc.perform(get("/api/v1/coin/max/01-01-2022"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    dataVersion.increment();
+
+    mockMvc.perform(get("/api/v1/coin/max/01-01-2022").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, dataVersion.current().etag()));
+  }
+
+  @Test
+  void testGetCoinInfoWhileLoading() throws Exception {
+    doReturn(false).when(ingestProgress).isCoinReady("BTC");
+    doReturn(7L).when(ingestProgress).getRetryAfterSeconds();
+
+    mockMvc.perform(get("/api/v1/coin/info/btc"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"))
+        .andExpect(jsonPath("$.message", is("The coin: btc is still being loaded, please retry later.")));
+  }
+
+  @Test
+  void testGetCoinListNormalizedRangeWhileLoading() throws Exception {
+    doReturn(false).when(ingestProgress).isCompleted();
+
+    mockMvc.perform(get("/api/v1/coin/range"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  void testGetCoinInfoAfterFailedIngest() throws Exception {
+    doReturn(false).when(ingestProgress).isCoinReady("BTC");
+    doReturn(IngestProgress.Status.FAILED).when(ingestProgress).getStatus();
+
+    mockMvc.perform(get("/api/v1/coin/info/btc"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER))
+        .andExpect(jsonPath("$.message", is("The coin: btc could not be loaded completely.")));
+  }
+
+  @Test
+  void testGetCoinListNormalizedRangeAfterFailedIngest() throws Exception {
+    doReturn(false).when(ingestProgress).isCompleted();
+    doReturn(IngestProgress.Status.FAILED).when(ingestProgress).getStatus();
+
+    mockMvc.perform(get("/api/v1/coin/range"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER))
+        .andExpect(jsonPath("$.message", is("The prices could not be loaded completely.")));
+  }
 }
@@ -0,0 +1,84 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.coin.model.CandleDto;
+import com.crypto.investment.coin.model.CandleInterval;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.utils.EpochMillis;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CandleRollupsTest {
+
+  // Friday 14 and Saturday 15, Monday 17 starts a new week
+  private final LocalDateTime date1 = LocalDateTime.of(2022, Month.JANUARY, 14, 12, 0);
+  private final LocalDateTime date2 = LocalDateTime.of(2022, Month.JANUARY, 14, 12, 30);
+  private final LocalDateTime date3 = LocalDateTime.of(2022, Month.JANUARY, 14, 13, 0);
+  private final LocalDateTime date4 = LocalDateTime.of(2022, Month.JANUARY, 15, 13, 0);
+  private final LocalDateTime date5 = LocalDateTime.of(2022, Month.JANUARY, 17, 0, 0);
+
+  private CandleRollups candleRollups;
+
+  @BeforeEach
+  void setUp() {
+    candleRollups = new CandleRollups();
+    // written in two chunks and out of order
+    candleRollups.onPricesWritten(List.of(
+        new PriceDto(date4, "BTC", new BigDecimal("52000.00")),
+        new PriceDto(date2, "BTC", new BigDecimal("49000.00")),
+        new PriceDto(date5, "BTC", new BigDecimal("53000.00"))));
+    candleRollups.onPricesWritten(List.of(
+        new PriceDto(date1, "BTC", new BigDecimal("50000.00")),
+        new PriceDto(date3, "BTC", new BigDecimal("51000.00")),
+        new PriceDto(date1, "ETH", new BigDecimal("3000.00"))));
+  }
+
+  @Test
+  void testHourlyCandles() {
+    List<CandleDto> candles = candleRollups.getCandles("BTC", CandleInterval.HOUR,
+        Long.MIN_VALUE, Long.MAX_VALUE);
+
+    assertThat(candles).extracting(CandleDto::time)
+        .containsExactly(date1, date3, date4, date5);
+    assertThat(candles.getFirst()).isEqualTo(new CandleDto(date1, new BigDecimal("50000.00"),
+        new BigDecimal("50000.00"), new BigDecimal("49000.00"), new BigDecimal("49000.00"), 2));
+  }
+
+  @Test
+  void testDailyCandles() {
+    List<CandleDto> candles = candleRollups.getCandles("BTC", CandleInterval.DAY,
+        Long.MIN_VALUE, Long.MAX_VALUE);
+
+    assertThat(candles).hasSize(3);
+    assertThat(candles.getFirst()).isEqualTo(new CandleDto(date1.toLocalDate().atStartOfDay(),
+        new BigDecimal("50000.00"), new BigDecimal("51000.00"), new BigDecimal("49000.00"),
+        new BigDecimal("51000.00"), 3));
+  }
+
+  @Test
+  void testWeeklyCandlesStartOnMonday() {
+    List<CandleDto> candles = candleRollups.getCandles("BTC", CandleInterval.WEEK,
+        Long.MIN_VALUE, Long.MAX_VALUE);
+
+    assertThat(candles).extracting(CandleDto::time).containsExactly(
+        LocalDateTime.of(2022, Month.JANUARY, 10, 0, 0), date5);
+    assertThat(candles.getFirst().count()).isEqualTo(4);
+    assertThat(candles.getFirst().close()).isEqualTo(new BigDecimal("52000.00"));
+  }
+
+  @Test
+  void testCandlesOverlappingWindow() {
+    List<CandleDto> candles = candleRollups.getCandles("BTC", CandleInterval.DAY,
+        EpochMillis.of(date3), EpochMillis.of(date4));
+
+    assertThat(candles).extracting(CandleDto::time).containsExactly(
+        date1.toLocalDate().atStartOfDay(), date4.toLocalDate().atStartOfDay());
+    assertThat(candleRollups.getCandles("DOGE", CandleInterval.DAY, Long.MIN_VALUE,
+        Long.MAX_VALUE)).isEmpty();
+  }
+}
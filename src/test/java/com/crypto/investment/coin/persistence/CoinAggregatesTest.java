@@ -0,0 +1,93 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.coin.model.CoinInfoDto;
+import com.crypto.investment.coin.persistence.CoinAggregates.CoinAggregate;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class CoinAggregatesTest {
+
+  private final LocalDateTime start = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+  private final CoinAggregates coinAggregates = new CoinAggregates();
+
+  @Test
+  void testOnPricesWritten() {
+    coinAggregates.onPricesWritten(List.of(
+        new PriceDto(start.plusHours(2), "BTC", new BigDecimal("47143.98")),
+        new PriceDto(start, "BTC", new BigDecimal("46813.21")),
+        new PriceDto(start, "ETH", new BigDecimal("3715.32"))));
+    coinAggregates.onPricesWritten(List.of(
+        new PriceDto(start.plusHours(1), "BTC", new BigDecimal("46979.61"))));
+
+    CoinInfoDto coinInfo = coinAggregates.get("BTC").toCoinInfoDto("BTC");
+
+    assertThat(coinAggregates.get("BTC").count()).isEqualTo(3);
+    assertThat(coinInfo.max()).isEqualTo(new BigDecimal("47143.98"));
+    assertThat(coinInfo.min()).isEqualTo(new BigDecimal("46813.21"));
+    assertThat(coinInfo.oldest()).isEqualTo(start);
+    assertThat(coinInfo.newest()).isEqualTo(start.plusHours(2));
+    assertThat(coinAggregates.get("XRP")).isNull();
+  }
+
+  @Test
+  void testConcurrentWritesAndReads() throws Exception {
+    int writers = 4;
+    int chunks = 500;
+    ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+    AtomicBoolean done = new AtomicBoolean();
+    try {
+      Future<Integer> reader = executor.submit(() -> {
+        int reads = 0;
+        while (!done.get()) {
+          CoinAggregate aggregate = coinAggregates.get("BTC");
+          if (aggregate != null) {
+            // every chunk contributes two prices spanning one hour
+            assertThat(aggregate.count() % 2).isZero();
+            assertThat(aggregate.max()).isGreaterThan(aggregate.min());
+            assertThat(aggregate.newest()).isGreaterThan(aggregate.oldest());
+            reads++;
+          }
+        }
+        return reads;
+      });
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int w = 0; w < writers; w++) {
+        int writer = w;
+        tasks.add(executor.submit(() -> {
+          for (int c = 0; c < chunks; c++) {
+            int i = writer * chunks + c;
+            coinAggregates.onPricesWritten(List.of(
+                new PriceDto(start.plusHours(i), "BTC", BigDecimal.valueOf(i)),
+                new PriceDto(start.plusHours(i + 1), "BTC", BigDecimal.valueOf(i + 1))));
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+      done.set(true);
+      reader.get();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    CoinAggregate aggregate = coinAggregates.get("BTC");
+    assertThat(aggregate.count()).isEqualTo(2L * writers * chunks);
+    assertThat(aggregate.min()).isEqualTo(0);
+    assertThat(aggregate.max()).isEqualTo(FixedPointPrice.of(BigDecimal.valueOf(writers * chunks)));
+    assertThat(aggregate.newest() - aggregate.oldest()).isEqualTo(writers * chunks * 3_600_000L);
+  }
+}
@@ -1,10 +1,14 @@
 package com.crypto.investment.coin.persistence;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.crypto.investment.coin.model.CoinInfoDto;
+import com.crypto.investment.exception.BadRequestException;
+import com.crypto.investment.price.persistence.DataVersion;
 import com.crypto.investment.price.persistence.Price;
 import com.crypto.investment.price.persistence.PriceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.math.BigDecimal;
@@ -18,12 +22,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @DataJpaTest
 @ExtendWith(SpringExtension.class)
 @ComponentScan(basePackages = "com.crypto.investment.coin.persistence")
+@Import({SimpleMeterRegistry.class, DataVersion.class})
 class CoinInfoRepositoryIntegrationTest {
 
   private final LocalDateTime date1 = LocalDateTime.of(2022, Month.JANUARY, 14, 12,0);
@@ -39,6 +46,9 @@ class CoinInfoRepositoryIntegrationTest {
   @Autowired
   private PriceRepository priceRepository;
 
+  @Autowired
+  private SimpleMeterRegistry meterRegistry;
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -84,6 +94,24 @@ class CoinInfoRepositoryIntegrationTest {
     assertThat(coinInfo.newest()).isEqualTo(LocalDateTime.of(2022, Month.JANUARY, 15, 13, 0));
   }
 
+  @Test
+  void testGetCoinInfoByCoinInWindow() {
+    CoinInfoDto coinInfo = coinInfoRepository.getCoinInfoByCoin("BTC", date2, null);
+
+    assertThat(coinInfo.max()).isEqualTo(new BigDecimal("52000.00"));
+    assertThat(coinInfo.min()).isEqualTo(new BigDecimal("51000.00"));
+    assertThat(coinInfo.oldest()).isEqualTo(date2);
+    assertThat(coinInfo.newest()).isEqualTo(date3);
+  }
+
+  @Test
+  void testGetCoinInfoByCoinInEmptyWindow() {
+    assertThatThrownBy(() -> coinInfoRepository.getCoinInfoByCoin("BTC", date2.plusMinutes(1),
+        date3.minusMinutes(1))).isInstanceOf(EmptyResultDataAccessException.class);
+    assertThatThrownBy(() -> coinInfoRepository.getCoinInfoByCoin("BTC", date3, date1))
+        .isInstanceOf(BadRequestException.class);
+  }
+
   @Test
   void testGetCoinListSortedByNormalizedRange() {
     // Act
@@ -104,4 +132,13 @@ class CoinInfoRepositoryIntegrationTest {
     // Assert
     assertThat(coin).isEqualTo("ETH");
   }
+
+  @Test
+  void testQueriesAreTimed() {
+    coinInfoRepository.getCoinInfoByCoin("BTC");
+    coinInfoRepository.getCoinInfoByCoin("ETH");
+
+    assertThat(meterRegistry.get("coin.query").tag("query", "coin_info").timer().count())
+        .isEqualTo(2);
+  }
 }
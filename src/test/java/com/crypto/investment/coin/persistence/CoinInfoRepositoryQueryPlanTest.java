@@ -0,0 +1,73 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Month;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Guards the indexes used by the {@link CoinInfoRepository} queries, so that a query change cannot
+ * silently fall back to a table scan.
+ */
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+class CoinInfoRepositoryQueryPlanTest {
+
+  private final Timestamp dayStart = Timestamp.valueOf(LocalDateTime.of(2022, Month.JANUARY, 14, 0, 0));
+  private final Timestamp dayEnd = Timestamp.valueOf(LocalDateTime.of(2022, Month.JANUARY, 15, 0, 0));
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private String explain(String sql, Object... args) {
+    return jdbcTemplate.queryForObject("explain " + sql, String.class, args);
+  }
+
+  @Test
+  void testSelectCoinInfoUsesCoinDateIndex() {
+    String plan = explain(CoinInfoRepository.SELECT_COIN_INFO, 1);
+
+    // either the coin and date index or the index of the coin foreign key
+    assertThat(plan).containsPattern("PUBLIC\\.PRICE_COIN_\\w+: COIN_ID = \\?1")
+        .doesNotContain("tableScan");
+  }
+
+  @Test
+  void testSelectCoinInfoInWindowUsesCoinDateIndex() {
+    String plan = explain(CoinInfoRepository.SELECT_COIN_INFO_IN_WINDOW, 1, dayStart, dayEnd);
+
+    assertThat(plan).contains("PRICE_COIN_DATE_IDX: PRICE_DATE <= ?3").contains("COIN_ID = ?1")
+        .doesNotContain("tableScan");
+  }
+
+  @Test
+  void testSelectCoinWithRangeUsesCoinDateIndex() {
+    String plan = explain(CoinInfoRepository.SELECT_COIN_WITH_RANGE);
+
+    assertThat(plan).contains("PRICE_COIN_DATE_IDX").contains("group sorted")
+        .doesNotContain("tableScan");
+  }
+
+  @Test
+  void testSelectCoinWithMaxRangeUsesDateIndex() {
+    String plan = explain(CoinInfoRepository.SELECT_COIN_WITH_MAX_RANGE, dayStart, dayEnd);
+
+    assertThat(plan).contains("PRICE_DATE_IDX: PRICE_DATE >= ?").doesNotContain("tableScan");
+  }
+
+  @Test
+  void testCoinAndDateAreUnique() {
+    Integer indexes = jdbcTemplate.queryForObject(
+        "select count(*) from information_schema.indexes where table_name = 'PRICE' and index_name = 'PRICE_COIN_DATE_IDX' and index_type_name = 'UNIQUE INDEX'",
+        Integer.class);
+
+    assertThat(indexes).isEqualTo(1);
+  }
+}
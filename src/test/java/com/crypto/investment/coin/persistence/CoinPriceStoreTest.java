@@ -0,0 +1,132 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.crypto.investment.coin.model.CoinInfoDto;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.utils.EpochMillis;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+class CoinPriceStoreTest {
+
+  private final LocalDateTime date1 = LocalDateTime.of(2022, Month.JANUARY, 14, 12, 0);
+  private final LocalDateTime date2 = LocalDateTime.of(2022, Month.JANUARY, 14, 13, 0);
+  private final LocalDateTime date3 = LocalDateTime.of(2022, Month.JANUARY, 15, 13, 0);
+
+  private CoinPriceStore coinPriceStore;
+
+  @BeforeEach
+  void setUp() {
+    coinPriceStore = new CoinPriceStore(CoinPriceStore.BACKEND_MEMORY);
+    // written out of order to exercise the merge
+    coinPriceStore.onPricesWritten(List.of(
+        new PriceDto(date3, "BTC", new BigDecimal("52000.00")),
+        new PriceDto(date3, "ETH", new BigDecimal("3300.00"))));
+    coinPriceStore.onPricesWritten(List.of(
+        new PriceDto(date1, "BTC", new BigDecimal("50000.00")),
+        new PriceDto(date2, "BTC", new BigDecimal("51000.00")),
+        new PriceDto(date1, "ETH", new BigDecimal("3000.00")),
+        new PriceDto(date2, "ETH", new BigDecimal("3200.00"))));
+  }
+
+  @Test
+  void testGetCoinInfo() {
+    CoinInfoDto coinInfo = coinPriceStore.getCoinInfo("BTC");
+
+    assertThat(coinInfo.max()).isEqualTo(new BigDecimal("52000.00"));
+    assertThat(coinInfo.min()).isEqualTo(new BigDecimal("50000.00"));
+    assertThat(coinInfo.oldest()).isEqualTo(date1);
+    assertThat(coinInfo.newest()).isEqualTo(date3);
+  }
+
+  @Test
+  void testGetCoinInfoInWindow() {
+    CoinInfoDto coinInfo = coinPriceStore.getCoinInfo("BTC", EpochMillis.of(date2),
+        EpochMillis.of(date3));
+
+    assertThat(coinInfo.max()).isEqualTo(new BigDecimal("52000.00"));
+    assertThat(coinInfo.min()).isEqualTo(new BigDecimal("51000.00"));
+    assertThat(coinInfo.oldest()).isEqualTo(date2);
+    assertThat(coinInfo.newest()).isEqualTo(date3);
+  }
+
+  @Test
+  void testGetCoinInfoInEmptyWindow() {
+    assertThatThrownBy(() -> coinPriceStore.getCoinInfo("BTC", EpochMillis.of(date2) + 1,
+        EpochMillis.of(date3) - 1)).isInstanceOf(EmptyResultDataAccessException.class);
+  }
+
+  @Test
+  void testGetCoinInfoKeepsPrecision() {
+    coinPriceStore.onPricesWritten(
+        List.of(new PriceDto(date1, "DOGE", new BigDecimal("0.1702"))));
+
+    assertThat(coinPriceStore.getCoinInfo("DOGE").max()).isEqualTo(new BigDecimal("0.1702"));
+  }
+
+  @Test
+  void testGetCoinsSortedByNormalizedRange() {
+    assertThat(coinPriceStore.getCoinsSortedByNormalizedRange()).containsExactly("ETH", "BTC");
+  }
+
+  @Test
+  void testGetCoinWithMaxNormalizedRange() {
+    assertThat(coinPriceStore.getCoinWithMaxNormalizedRange(LocalDate.of(2022, Month.JANUARY, 14)))
+        .isEqualTo("ETH");
+    assertThatThrownBy(
+        () -> coinPriceStore.getCoinWithMaxNormalizedRange(LocalDate.of(2022, Month.JANUARY, 16)))
+        .isInstanceOf(EmptyResultDataAccessException.class);
+  }
+
+  @Test
+  void testCompressedBackend() {
+    CoinPriceStore compressed = new CoinPriceStore(CoinPriceStore.BACKEND_COMPRESSED);
+    compressed.onPricesWritten(List.of(
+        new PriceDto(date3, "BTC", new BigDecimal("52000.00")),
+        new PriceDto(date3, "ETH", new BigDecimal("3300.00"))));
+    compressed.onPricesWritten(List.of(
+        new PriceDto(date1, "BTC", new BigDecimal("50000.00")),
+        new PriceDto(date2, "BTC", new BigDecimal("51000.00")),
+        new PriceDto(date1, "ETH", new BigDecimal("3000.00")),
+        new PriceDto(date2, "ETH", new BigDecimal("3200.00"))));
+
+    assertThat(compressed.isEnabled()).isTrue();
+    assertThat(compressed.getCoinInfo("BTC")).isEqualTo(coinPriceStore.getCoinInfo("BTC"));
+    assertThat(compressed.getCoinInfo("ETH", EpochMillis.of(date2), EpochMillis.of(date3)))
+        .isEqualTo(coinPriceStore.getCoinInfo("ETH", EpochMillis.of(date2), EpochMillis.of(date3)));
+    assertThat(compressed.getCoinsSortedByNormalizedRange()).containsExactly("ETH", "BTC");
+    assertThat(compressed.getCoinWithMaxNormalizedRange(LocalDate.of(2022, Month.JANUARY, 14)))
+        .isEqualTo("ETH");
+  }
+
+  @Test
+  void testSqlBackendKeepsTheWindowIndex() {
+    CoinPriceStore windowIndex = new CoinPriceStore("sql");
+    windowIndex.onPricesWritten(List.of(new PriceDto(date1, "BTC", new BigDecimal("50000.00")),
+        new PriceDto(date2, "BTC", new BigDecimal("51000.00"))));
+
+    assertThat(windowIndex.isEnabled()).isFalse();
+    assertThat(windowIndex.contains("BTC")).isTrue();
+    assertThat(windowIndex.getCoinInfo("BTC", EpochMillis.of(date2), Long.MAX_VALUE))
+        .isEqualTo(new CoinInfoDto("BTC", new BigDecimal("51000.00"),
+            new BigDecimal("51000.00"), date2, date2));
+  }
+
+  @Test
+  void testDisabledStoreIgnoresWrites() {
+    CoinPriceStore disabled = new CoinPriceStore("sql", false);
+    disabled.onPricesWritten(List.of(new PriceDto(date1, "BTC", new BigDecimal("50000.00"))));
+
+    assertThat(disabled.isEnabled()).isFalse();
+    assertThat(disabled.contains("BTC")).isFalse();
+    assertThat(disabled.getCoinsSortedByNormalizedRange()).isEmpty();
+  }
+}
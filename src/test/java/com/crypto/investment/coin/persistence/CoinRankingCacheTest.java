@@ -0,0 +1,74 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.price.persistence.DataVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CoinRankingCacheTest {
+
+  private final LocalDate day1 = LocalDate.of(2022, Month.JANUARY, 1);
+  private final LocalDate day2 = LocalDate.of(2022, Month.JANUARY, 2);
+  private final LocalDate day3 = LocalDate.of(2022, Month.JANUARY, 3);
+
+  private final DataVersion dataVersion = new DataVersion();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CoinRankingCache cache = new CoinRankingCache(2, dataVersion, meterRegistry);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private List<String> loadCoinList() {
+    loads.incrementAndGet();
+    return List.of("ETH", "BTC");
+  }
+
+  private String loadCoin() {
+    loads.incrementAndGet();
+    return "ETH";
+  }
+
+  @Test
+  void testCoinListIsCachedUntilDataChanges() {
+    assertThat(cache.getCoinList(this::loadCoinList)).containsExactly("ETH", "BTC");
+    assertThat(cache.getCoinList(this::loadCoinList)).containsExactly("ETH", "BTC");
+    assertThat(loads).hasValue(1);
+
+    dataVersion.increment();
+    cache.getCoinList(this::loadCoinList);
+
+    assertThat(loads).hasValue(2);
+    assertThat(meterRegistry.get("coin.cache.requests").tag("cache", "coin_list")
+        .tag("result", "hit").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void testMaxRangeIsCachedPerDay() {
+    cache.getCoinWithMaxRange(day1, this::loadCoin);
+    cache.getCoinWithMaxRange(day2, this::loadCoin);
+    cache.getCoinWithMaxRange(day1, this::loadCoin);
+    assertThat(loads).hasValue(2);
+
+    dataVersion.increment();
+    cache.getCoinWithMaxRange(day1, this::loadCoin);
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  void testMaxRangeEvictsLeastRecentlyUsedDay() {
+    cache.getCoinWithMaxRange(day1, this::loadCoin);
+    cache.getCoinWithMaxRange(day2, this::loadCoin);
+    cache.getCoinWithMaxRange(day1, this::loadCoin);
+    cache.getCoinWithMaxRange(day3, this::loadCoin);
+    assertThat(loads).hasValue(3);
+
+    // day 2 was evicted, day 1 was used more recently
+    cache.getCoinWithMaxRange(day1, this::loadCoin);
+    assertThat(loads).hasValue(3);
+    cache.getCoinWithMaxRange(day2, this::loadCoin);
+    assertThat(loads).hasValue(4);
+  }
+}
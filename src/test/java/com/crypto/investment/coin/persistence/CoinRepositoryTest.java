@@ -0,0 +1,57 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CoinRepositoryTest {
+
+  private final CoinRepository coinRepository = new CoinRepository();
+
+  @Test
+  void testAddCoinAssignsIds() {
+    short btc = coinRepository.addCoin("BTC");
+    short eth = coinRepository.addCoin("eth");
+
+    assertThat(btc).isNotEqualTo(eth);
+    assertThat(coinRepository.addCoin("Btc")).isEqualTo(btc);
+    assertThat(coinRepository.getSymbol(eth)).isEqualTo("ETH");
+    assertThat(coinRepository.getCoins()).containsExactlyInAnyOrder("BTC", "ETH");
+  }
+
+  @Test
+  void testLookupIgnoresCase() {
+    short id = coinRepository.addCoin("DOGE");
+
+    assertThat(coinRepository.containsCoin("doge")).isTrue();
+    assertThat(coinRepository.getId("dOgE")).isEqualTo(id);
+    assertThat(coinRepository.getSymbol("doge")).isEqualTo("DOGE");
+    assertThat(coinRepository.containsCoin("DOG")).isFalse();
+    assertThat(coinRepository.getId("SHIB")).isEqualTo(CoinRepository.NOT_FOUND);
+    assertThat(coinRepository.getSymbol((short) 42)).isNull();
+  }
+
+  @Test
+  void testNonAsciiSymbolsAreFoundAgain() {
+    short accented = coinRepository.addCoin("caf\u00e9");
+    short sharpS = coinRepository.addCoin("stra\u00df");
+
+    assertThat(coinRepository.getSymbol(accented)).isEqualTo("CAF\u00e9");
+    assertThat(coinRepository.getSymbol(sharpS)).isEqualTo("STRA\u00df");
+    assertThat(coinRepository.addCoin("caf\u00e9")).isEqualTo(accented);
+    assertThat(coinRepository.getId("Stra\u00df")).isEqualTo(sharpS);
+    assertThat(coinRepository.containsCoin("STRASS")).isFalse();
+  }
+
+  @Test
+  void testManyCoins() {
+    for (int i = 0; i < 500; i++) {
+      coinRepository.addCoin("C" + i);
+    }
+
+    for (int i = 0; i < 500; i++) {
+      short id = coinRepository.getId("c" + i);
+      assertThat(coinRepository.getSymbol(id)).isEqualTo("C" + i);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CoinSeriesTest {
+
+  @Test
+  void testSortKeepsPricesAlignedAndEqualTimestampsInOrder() {
+    Random random = new Random(11);
+    int count = 1_000;
+    long[] timestamps = new long[count];
+    long[] prices = new long[count];
+    for (int i = 0; i < count; i++) {
+      timestamps[i] = random.nextInt(100);
+      prices[i] = i;
+    }
+    long[][] expected = new long[count][];
+    for (int i = 0; i < count; i++) {
+      expected[i] = new long[]{timestamps[i], prices[i]};
+    }
+    Arrays.sort(expected, Comparator.comparingLong(pair -> pair[0]));
+
+    CoinSeries.sort(timestamps, prices);
+
+    for (int i = 0; i < count; i++) {
+      assertThat(timestamps[i]).isEqualTo(expected[i][0]);
+      assertThat(prices[i]).isEqualTo(expected[i][1]);
+    }
+  }
+
+  @Test
+  void testAppendOutOfOrder() {
+    CoinSeries series = new CoinSeries();
+    series.append(new long[]{30, 10, 20}, new long[]{3, 1, 2}, 3);
+    series.append(new long[]{15, 5}, new long[]{7, 9}, 2);
+
+    CoinSeries.Snapshot snapshot = series.snapshot();
+    assertThat(Arrays.copyOf(snapshot.timestamps(), snapshot.size()))
+        .containsExactly(5, 10, 15, 20, 30);
+    assertThat(Arrays.copyOf(snapshot.prices(), snapshot.size())).containsExactly(9, 1, 7, 2, 3);
+    assertThat(series.range(10, 20)).isEqualTo(new PriceSeries.Range(1, 7, 10, 20));
+  }
+}
@@ -0,0 +1,150 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CompressedSeriesTest {
+
+  private static final long START = 1641009600000L;
+  private static final long HOUR = 3_600_000L;
+
+  private final Random random = new Random(7);
+
+  /**
+   * Hourly prices with two decimals, with a gap and an irregular timestamp now and then.
+   */
+  private long[][] hourlyPrices(int count) {
+    long[] timestamps = new long[count];
+    long[] prices = new long[count];
+    long timestamp = START;
+    long cents = 4_681_321;
+    for (int i = 0; i < count; i++) {
+      timestamp += i % 100 == 99 ? 5 * HOUR + random.nextInt(1000) : HOUR;
+      cents = Math.max(1, cents + random.nextInt(20_001) - 10_000);
+      timestamps[i] = timestamp;
+      prices[i] = cents * 1_000_000;
+    }
+    return new long[][]{timestamps, prices};
+  }
+
+  private static List<long[]> scanAll(CompressedSeries series) {
+    List<long[]> ticks = new ArrayList<>();
+    series.scan(Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, price) ->
+        ticks.add(new long[]{timestamp, price}));
+    return ticks;
+  }
+
+  @Test
+  void testScanReturnsAppendedPrices() {
+    long[][] data = hourlyPrices(2500);
+    CompressedSeries series = new CompressedSeries(256);
+    series.append(data[0], data[1], 1000);
+    series.append(sliceFrom(data[0], 1000), sliceFrom(data[1], 1000), 1500);
+
+    List<long[]> ticks = scanAll(series);
+
+    assertThat(series.size()).isEqualTo(2500);
+    assertThat(ticks).hasSize(2500);
+    for (int i = 0; i < ticks.size(); i++) {
+      assertThat(ticks.get(i)).containsExactly(data[0][i], data[1][i]);
+    }
+  }
+
+  @Test
+  void testExtremeValuesRoundTrip() {
+    long[] timestamps = {Long.MIN_VALUE + 1, -5, 0, 7, 7, Long.MAX_VALUE - 1};
+    long[] prices = {Long.MAX_VALUE, Long.MIN_VALUE, 0, -123_456_789, 1, 17};
+    CompressedSeries series = new CompressedSeries(4);
+    series.append(timestamps, prices, timestamps.length);
+
+    List<long[]> ticks = scanAll(series);
+
+    for (int i = 0; i < timestamps.length; i++) {
+      assertThat(ticks.get(i)).containsExactly(timestamps[i], prices[i]);
+    }
+  }
+
+  @Test
+  void testRangeMatchesScan() {
+    long[][] data = hourlyPrices(3000);
+    CompressedSeries series = new CompressedSeries(128);
+    series.append(data[0], data[1], data[0].length);
+
+    for (int i = 0; i < 500; i++) {
+      long from = data[0][random.nextInt(3000)] - random.nextInt(2) * HOUR / 2;
+      long to = from + random.nextLong(400 * HOUR);
+
+      PriceSeries.Range expected = null;
+      for (int j = 0; j < data[0].length; j++) {
+        if (data[0][j] >= from && data[0][j] <= to) {
+          expected = expected == null
+              ? new PriceSeries.Range(data[1][j], data[1][j], data[0][j], data[0][j])
+              : new PriceSeries.Range(Math.min(expected.min(), data[1][j]),
+                  Math.max(expected.max(), data[1][j]), expected.oldest(), data[0][j]);
+        }
+      }
+      assertThat(series.range(from, to)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void testRangeOfEmptyWindow() {
+    CompressedSeries series = new CompressedSeries();
+    assertThat(series.range(Long.MIN_VALUE, Long.MAX_VALUE)).isNull();
+
+    series.append(new long[]{START, START + HOUR}, new long[]{100, 200}, 2);
+    assertThat(series.range(START + 1, START + HOUR - 1)).isNull();
+  }
+
+  @Test
+  void testOutOfOrderAppendsAreMerged() {
+    long[][] data = hourlyPrices(1000);
+    CompressedSeries series = new CompressedSeries(64);
+    // every second chunk of 50 first, then the others
+    for (int pass = 0; pass < 2; pass++) {
+      for (int chunk = pass; chunk < 20; chunk += 2) {
+        series.append(sliceFrom(data[0], chunk * 50), sliceFrom(data[1], chunk * 50), 50);
+      }
+    }
+
+    List<long[]> ticks = scanAll(series);
+
+    assertThat(ticks).hasSize(1000);
+    for (int i = 0; i < ticks.size(); i++) {
+      assertThat(ticks.get(i)).containsExactly(data[0][i], data[1][i]);
+    }
+    CompressedSeries window = new CompressedSeries(64);
+    window.append(sliceFrom(data[0], 130), sliceFrom(data[1], 130), 41);
+    assertThat(series.range(data[0][130], data[0][170]))
+        .isEqualTo(window.range(Long.MIN_VALUE, Long.MAX_VALUE));
+  }
+
+  @Test
+  void testHourlyPricesTakeAFewBytesEach() {
+    long[][] data = hourlyPrices(100_000);
+    CompressedSeries series = new CompressedSeries();
+    series.append(data[0], data[1], data[0].length);
+
+    double bytesPerPrice = (double) series.sizeInBytes() / series.size();
+
+    assertThat(bytesPerPrice).isLessThan(4);
+  }
+
+  @Test
+  void testZigzag() {
+    for (long value : new long[]{0, 1, -1, HOUR, -HOUR, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      assertThat(CompressedSeries.zigzagDecode(CompressedSeries.zigzagEncode(value)))
+          .isEqualTo(value);
+    }
+  }
+
+  private static long[] sliceFrom(long[] values, int from) {
+    long[] slice = new long[values.length - from];
+    System.arraycopy(values, from, slice, 0, slice.length);
+    return slice;
+  }
+}
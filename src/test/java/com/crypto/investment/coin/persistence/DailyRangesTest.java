@@ -0,0 +1,54 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.coin.persistence.DailyRanges.DailyRange;
+import com.crypto.investment.price.model.FixedPointPrice;
+import com.crypto.investment.price.model.PriceDto;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DailyRangesTest {
+
+  private final LocalDate day = LocalDate.of(2022, Month.JANUARY, 14);
+
+  private final DailyRanges dailyRanges = new DailyRanges();
+
+  @Test
+  void testOnPricesWritten() {
+    dailyRanges.onPricesWritten(List.of(
+        price(13, "BTC", "51000.00"),
+        price(12, "BTC", "50000.00"),
+        price(23, "BTC", "50500.00"),
+        new PriceDto(day.plusDays(1).atStartOfDay(), "BTC", new BigDecimal("52000.00"))));
+
+    DailyRange range = dailyRanges.get(day).get("BTC");
+
+    assertThat(range.min()).isEqualTo(FixedPointPrice.of(new BigDecimal("50000.00")));
+    assertThat(range.max()).isEqualTo(FixedPointPrice.of(new BigDecimal("51000.00")));
+    assertThat(range.open()).isEqualTo(FixedPointPrice.of(new BigDecimal("50000.00")));
+    assertThat(range.close()).isEqualTo(FixedPointPrice.of(new BigDecimal("50500.00")));
+    assertThat(dailyRanges.get(day.plusDays(1))).containsOnlyKeys("BTC");
+  }
+
+  @Test
+  void testGetCoinWithMaxNormalizedRange() {
+    dailyRanges.onPricesWritten(List.of(
+        price(12, "BTC", "50000.00"),
+        price(13, "BTC", "51000.00"),
+        price(12, "ETH", "3000.00"),
+        price(13, "ETH", "3200.00")));
+
+    assertThat(dailyRanges.isEmpty()).isFalse();
+    assertThat(dailyRanges.getCoinWithMaxNormalizedRange(day)).contains("ETH");
+    assertThat(dailyRanges.getCoinWithMaxNormalizedRange(day.plusDays(1))).isEmpty();
+  }
+
+  private PriceDto price(int hour, String coin, String price) {
+    return new PriceDto(day.atTime(hour, 0), coin,
+        new BigDecimal(price));
+  }
+}
@@ -0,0 +1,90 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.utils.EpochMillis;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PriceReductionsTest {
+
+  private final Random random = new Random(7);
+
+  private final List<PriceReductions> implementations = List.of(new ScalarPriceReductions(),
+      new VectorPriceReductions());
+
+  @Test
+  void testVectorReductionsAreSelected() {
+    // the tests run with --add-modules jdk.incubator.vector
+    assertThat(PriceReductions.get()).isInstanceOf(VectorPriceReductions.isAccelerated()
+        ? VectorPriceReductions.class : ScalarPriceReductions.class);
+  }
+
+  @Test
+  void testMinMaxMatchesScan() {
+    long[] values = random.longs(1000).toArray();
+
+    for (int i = 0; i < 2000; i++) {
+      int from = random.nextInt(values.length + 1);
+      int to = from + random.nextInt(values.length - from + 1);
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int j = from; j < to; j++) {
+        min = Math.min(min, values[j]);
+        max = Math.max(max, values[j]);
+      }
+      for (PriceReductions reductions : implementations) {
+        assertThat(reductions.min(values, from, to)).isEqualTo(min);
+        assertThat(reductions.max(values, from, to)).isEqualTo(max);
+      }
+    }
+  }
+
+  @Test
+  void testLowerBoundMatchesScan() {
+    long[] timestamps = new long[500];
+    for (int i = 1; i < timestamps.length; i++) {
+      timestamps[i] = timestamps[i - 1] + random.nextInt(3);
+    }
+
+    for (int i = 0; i < 2000; i++) {
+      int from = random.nextInt(timestamps.length + 1);
+      int to = from + random.nextInt(timestamps.length - from + 1);
+      long timestamp = random.nextLong(-2, timestamps[timestamps.length - 1] + 2);
+      int expected = from;
+      while (expected < to && timestamps[expected] < timestamp) {
+        expected++;
+      }
+      for (PriceReductions reductions : implementations) {
+        assertThat(reductions.lowerBound(timestamps, from, to, timestamp)).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  void testForEachDay() {
+    long day = 19_000;
+    long[] timestamps = new long[50];
+    long[] prices = new long[50];
+    for (int i = 0; i < timestamps.length; i++) {
+      // ten prices on each of five days, the last one on the last millisecond of the day
+      timestamps[i] = (day + i / 10) * EpochMillis.DAY + (i % 10 == 9 ? EpochMillis.DAY - 1
+          : i % 10 * 1000);
+      prices[i] = 100 + (i % 10) * (i / 10 + 1);
+    }
+
+    for (PriceReductions reductions : implementations) {
+      List<long[]> days = new ArrayList<>();
+      reductions.forEachDay(timestamps, prices, timestamps.length,
+          (epochDay, from, to, min, max) -> days.add(new long[]{epochDay, from, to, min, max}));
+
+      assertThat(days).hasSize(5);
+      for (int d = 0; d < 5; d++) {
+        assertThat(days.get(d)).containsExactly(day + d, d * 10, d * 10 + 10, 100,
+            100 + 9 * (d + 1));
+      }
+    }
+  }
+}
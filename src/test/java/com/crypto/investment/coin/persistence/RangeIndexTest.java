@@ -0,0 +1,65 @@
+package com.crypto.investment.coin.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.coin.persistence.CoinSeries.Snapshot;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RangeIndexTest {
+
+  private final Random random = new Random(7);
+
+  @Test
+  void testMinMaxMatchesScan() {
+    long[] prices = random.longs(1000, 1, 1_000_000).toArray();
+    RangeIndex index = RangeIndex.build(prices, 600, 0);
+    index.set(600, prices, 400);
+
+    for (int i = 0; i < 2000; i++) {
+      int from = random.nextInt(prices.length);
+      int to = from + 1 + random.nextInt(prices.length - from);
+
+      long[] expected = scan(prices, from, to);
+      assertThat(index.min(from, to)).isEqualTo(expected[0]);
+      assertThat(index.max(from, to)).isEqualTo(expected[1]);
+    }
+  }
+
+  @Test
+  void testAppendKeepsOlderSnapshotsConsistent() {
+    CoinSeries series = new CoinSeries();
+    long[] timestamps = new long[100];
+    long[] prices = new long[100];
+    for (int i = 0; i < 100; i++) {
+      timestamps[i] = i;
+      prices[i] = 1000 - i;
+    }
+    series.append(timestamps, prices, 50);
+    Snapshot older = series.snapshot();
+
+    long[] tail = new long[50];
+    System.arraycopy(timestamps, 50, tail, 0, 50);
+    long[] tailPrices = new long[50];
+    System.arraycopy(prices, 50, tailPrices, 0, 50);
+    series.append(tail, tailPrices, 50);
+    Snapshot newer = series.snapshot();
+
+    assertThat(older.min(0, older.size())).isEqualTo(951);
+    assertThat(older.max(0, older.size())).isEqualTo(1000);
+    assertThat(newer.min(0, newer.size())).isEqualTo(901);
+    assertThat(newer.max(0, newer.size())).isEqualTo(1000);
+    assertThat(newer.min(60, 70)).isEqualTo(931);
+    assertThat(newer.max(60, 70)).isEqualTo(940);
+  }
+
+  private static long[] scan(long[] prices, int from, int to) {
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = from; i < to; i++) {
+      min = Math.min(min, prices[i]);
+      max = Math.max(max, prices[i]);
+    }
+    return new long[]{min, max};
+  }
+}
@@ -0,0 +1,76 @@
+package com.crypto.investment.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitInterceptorTest {
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private RateLimitInterceptor rateLimitInterceptor;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    RateLimiter rateLimiter = new RateLimiter(2, 60_000, 100, clock::get);
+    rateLimitInterceptor = new RateLimitInterceptor(rateLimiter, new ObjectMapper(),
+        meterRegistry);
+  }
+
+  @Test
+  void testPreHandleAccepted() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean accepted = rateLimitInterceptor.preHandle(request(), response, null);
+
+    assertThat(accepted).isTrue();
+    assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("1");
+    assertThat(response.getHeader("X-RateLimit-Reset")).isEqualTo("1700000061");
+    assertThat(response.getContentAsString()).isEmpty();
+  }
+
+  @Test
+  void testPreHandleRejected() throws Exception {
+    rateLimitInterceptor.preHandle(request(), new MockHttpServletResponse(), null);
+    rateLimitInterceptor.preHandle(request(), new MockHttpServletResponse(), null);
+    clock.addAndGet(15_500);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean accepted = rateLimitInterceptor.preHandle(request(), response, null);
+
+    assertThat(accepted).isFalse();
+    assertThat(response.getStatus()).isEqualTo(429);
+    assertThat(response.getContentType()).isEqualTo("application/json");
+    assertThat(response.getContentAsString()).isEqualTo(
+        "{\"message\":\"Too many requests from your IP address. Please try again later.\"}");
+    assertThat(response.getHeader("Retry-After")).isEqualTo("45");
+    assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("0");
+  }
+
+  @Test
+  void testPreHandleRecordsMetrics() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      rateLimitInterceptor.preHandle(request(), new MockHttpServletResponse(), null);
+    }
+
+    assertThat(meterRegistry.get("rate.limit.requests").tag("result", "accepted").counter()
+        .count()).isEqualTo(2);
+    assertThat(meterRegistry.get("rate.limit.requests").tag("result", "rejected").counter()
+        .count()).isEqualTo(1);
+    assertThat(meterRegistry.get("rate.limit.tracked.clients").gauge().value()).isEqualTo(1);
+  }
+
+  private MockHttpServletRequest request() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/coin/range");
+    request.setRemoteAddr("10.0.0.1");
+    return request;
+  }
+}
@@ -0,0 +1,102 @@
+package com.crypto.investment.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+  @Test
+  void testLimitPerTimeWindow() {
+    RateLimiter rateLimiter = new RateLimiter(3, 60_000, 100, clock::get);
+
+    assertThat(rateLimiter.tryAcquire("10.0.0.1")).isTrue();
+    assertThat(rateLimiter.tryAcquire("10.0.0.1")).isTrue();
+    assertThat(rateLimiter.tryAcquire("10.0.0.1")).isTrue();
+    assertThat(rateLimiter.tryAcquire("10.0.0.1")).isFalse();
+    assertThat(rateLimiter.tryAcquire("10.0.0.2")).isTrue();
+
+    clock.addAndGet(60_000);
+    assertThat(rateLimiter.tryAcquire("10.0.0.1")).isFalse();
+    clock.addAndGet(1);
+    assertThat(rateLimiter.tryAcquire("10.0.0.1")).isTrue();
+  }
+
+  @Test
+  void testEvictIdleClients() {
+    RateLimiter rateLimiter = new RateLimiter(3, 60_000, 100, clock::get);
+    rateLimiter.tryAcquire("10.0.0.1");
+    clock.addAndGet(30_000);
+    rateLimiter.tryAcquire("10.0.0.2");
+
+    clock.addAndGet(30_001);
+    rateLimiter.evictIdleClients();
+
+    assertThat(rateLimiter.getTrackedClients()).isEqualTo(1);
+  }
+
+  @Test
+  void testMaxTrackedClientsEvictsOldestWindows() {
+    RateLimiter rateLimiter = new RateLimiter(2, 60_000, 2, clock::get);
+    rateLimiter.tryAcquire("10.0.0.1");
+    rateLimiter.tryAcquire("10.0.0.1");
+    clock.addAndGet(1000);
+    assertThat(rateLimiter.tryAcquire("10.0.0.2")).isTrue();
+
+    clock.addAndGet(1000);
+    assertThat(rateLimiter.tryAcquire("10.0.0.3")).isTrue();
+
+    assertThat(rateLimiter.getTrackedClients()).isEqualTo(2);
+    assertThat(rateLimiter.tryAcquire("10.0.0.2")).isTrue();
+    assertThat(rateLimiter.tryAcquire("10.0.0.2")).isFalse();
+  }
+
+  @Test
+  void testConcurrentRequests() throws Exception {
+    int threads = 16;
+    int requestsPerThread = 10_000;
+    RateLimiter rateLimiter = new RateLimiter(1000, 60_000, 100_000, clock::get);
+    AtomicInteger accepted = new AtomicInteger();
+    AtomicInteger acceptedPerClient = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        tasks.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < requestsPerThread; i++) {
+            if (rateLimiter.tryAcquire("10.0.0.1")) {
+              accepted.incrementAndGet();
+            }
+            if (rateLimiter.tryAcquire("192.168." + thread + "." + (i % 100))) {
+              acceptedPerClient.incrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(accepted.get()).isEqualTo(1000);
+    assertThat(acceptedPerClient.get()).isEqualTo(threads * requestsPerThread);
+    assertThat(rateLimiter.getTrackedClients()).isEqualTo(1 + threads * 100);
+  }
+}
@@ -0,0 +1,51 @@
+package com.crypto.investment.price.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class FixedPointPriceTest {
+
+  @Test
+  void testParse() {
+    assertThat(FixedPointPrice.parse("40000.50")).isEqualTo(4_000_050_000_000L);
+    assertThat(FixedPointPrice.parse("148")).isEqualTo(14_800_000_000L);
+    assertThat(FixedPointPrice.parse("0.00000001")).isEqualTo(1);
+    assertThat(FixedPointPrice.parse("-1.5")).isEqualTo(-150_000_000L);
+    assertThat(FixedPointPrice.parse(".5")).isEqualTo(50_000_000L);
+  }
+
+  @Test
+  void testParseFallsBackToBigDecimal() {
+    assertThat(FixedPointPrice.parse("0.123456785")).isEqualTo(12_345_678);
+    assertThat(FixedPointPrice.parse("1E+3")).isEqualTo(100_000_000_000L);
+  }
+
+  @Test
+  void testParseRejectsMalformedPrices() {
+    assertThatThrownBy(() -> FixedPointPrice.parse("")).isInstanceOf(NumberFormatException.class);
+    assertThatThrownBy(() -> FixedPointPrice.parse("."))
+        .isInstanceOf(NumberFormatException.class);
+    assertThatThrownBy(() -> FixedPointPrice.parse("12a"))
+        .isInstanceOf(NumberFormatException.class);
+    assertThatThrownBy(() -> FixedPointPrice.parse("999999999999999999"))
+        .isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  void testToBigDecimalKeepsTwoDigits() {
+    assertThat(FixedPointPrice.toBigDecimal(FixedPointPrice.parse("2500")))
+        .isEqualTo(new BigDecimal("2500.00"));
+    assertThat(FixedPointPrice.toBigDecimal(FixedPointPrice.parse("0.1702")))
+        .isEqualTo(new BigDecimal("0.1702"));
+  }
+
+  @Test
+  void testCompareNormalizedRanges() {
+    // (150 - 100) / 100 = 0.5 against (31 - 20) / 20 = 0.55
+    assertThat(FixedPointPrice.compareNormalizedRanges(150, 100, 31, 20)).isNegative();
+    assertThat(FixedPointPrice.compareNormalizedRanges(300, 200, 3, 2)).isZero();
+  }
+}
@@ -0,0 +1,152 @@
+package com.crypto.investment.price.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.price.model.PriceDto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Import({PriceBatchWriter.class, CoinRepository.class, DataVersion.class,
+    PriceBatchWriterIntegrationTest.RecordingListener.class})
+@TestPropertySource(properties = "ingest.batch.size=3")
+class PriceBatchWriterIntegrationTest {
+
+  @Autowired
+  private PriceBatchWriter priceBatchWriter;
+
+  @Autowired
+  private PriceRepository priceRepository;
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Autowired
+  private RecordingListener listener;
+
+  static class RecordingListener implements PriceWriteListener {
+
+    private final List<PriceDto> prices = new ArrayList<>();
+
+    @Override
+    public synchronized void onPricesWritten(List<PriceDto> chunk) {
+      prices.addAll(chunk);
+    }
+
+    @Override
+    public synchronized void onPricesDeleted() {
+      prices.clear();
+    }
+  }
+
+  @Test
+  void testWriteInChunks() {
+    LocalDateTime start = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+    List<PriceDto> prices = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      prices.add(new PriceDto(start.plusHours(i), "BTC", new BigDecimal("46813.21")));
+    }
+
+    long version = dataVersion.current().number();
+    int written = priceBatchWriter.write(prices);
+
+    assertThat(written).isEqualTo(7);
+    assertThat(dataVersion.current().number()).isEqualTo(version + 3);
+    List<Price> saved = priceRepository.findAll();
+    assertThat(saved).hasSize(7);
+    assertThat(saved).allSatisfy(p -> {
+      assertThat(p.getId()).isNotNull();
+      assertThat(p.getCoin()).isEqualTo("BTC");
+      assertThat(p.getPrice()).isEqualTo(new BigDecimal("46813.21"));
+    });
+  }
+
+  @Test
+  void testDuplicatesAreSkipped() {
+    LocalDateTime date = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+    PriceDto stored = new PriceDto(date, "BTC", new BigDecimal("46813.21"));
+    PriceDto newer = new PriceDto(date.plusHours(1), "BTC", new BigDecimal("46979.61"));
+    priceBatchWriter.write(List.of(stored));
+    listener.prices.clear();
+
+    long version = dataVersion.current().number();
+    int written = priceBatchWriter.write(List.of(
+        new PriceDto(date, "BTC", new BigDecimal("1.5")), newer,
+        new PriceDto(date.plusHours(1), "BTC", new BigDecimal("2.5"))));
+
+    assertThat(written).isEqualTo(1);
+    assertThat(listener.prices).containsExactly(newer);
+    assertThat(priceRepository.findAll()).extracting(Price::getPrice)
+        .containsExactlyInAnyOrder(new BigDecimal("46813.21"), new BigDecimal("46979.61"));
+    assertThat(dataVersion.current().number()).isEqualTo(version + 1);
+
+    listener.prices.clear();
+    assertThat(priceBatchWriter.write(List.of(stored))).isZero();
+    assertThat(listener.prices).isEmpty();
+    assertThat(dataVersion.current().number()).isEqualTo(version + 1);
+  }
+
+  @Test
+  void testListenersReceiveRegisteredSymbols() {
+    LocalDateTime date = LocalDateTime.of(2022, Month.FEBRUARY, 1, 0, 0);
+    listener.prices.clear();
+
+    priceBatchWriter.write(List.of(new PriceDto(date, "xrp", new BigDecimal("0.8298"))));
+
+    assertThat(listener.prices).containsExactly(
+        new PriceDto(date, "XRP", new BigDecimal("0.8298")));
+  }
+
+  @Test
+  void testReplayCoinByCoin() {
+    LocalDateTime start = LocalDateTime.of(2022, Month.MARCH, 1, 0, 0);
+    List<PriceDto> prices = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      prices.add(new PriceDto(start.plusHours(i), i % 2 == 0 ? "BTC" : "ETH",
+          new BigDecimal("46813.21")));
+    }
+    priceBatchWriter.write(prices);
+    listener.prices.clear();
+    List<String> replayedCoins = new ArrayList<>();
+    List<Integer> pricesSeen = new ArrayList<>();
+
+    long version = dataVersion.current().number();
+    long replayed = priceBatchWriter.replay(coin -> {
+      replayedCoins.add(coin);
+      pricesSeen.add(listener.prices.size());
+    });
+
+    assertThat(replayed).isEqualTo(4);
+    assertThat(listener.prices).containsExactlyInAnyOrderElementsOf(prices);
+    assertThat(replayedCoins).containsExactly("BTC", "ETH");
+    assertThat(pricesSeen).containsExactly(2, 4);
+    assertThat(dataVersion.current().number()).isEqualTo(version + 2);
+  }
+
+  @Test
+  void testDeleteAll() {
+    LocalDateTime date = LocalDateTime.of(2022, Month.MAY, 1, 0, 0);
+    PriceDto price = new PriceDto(date, "BTC", new BigDecimal("46813.21"));
+    priceBatchWriter.write(List.of(price));
+    long version = dataVersion.current().number();
+
+    priceBatchWriter.deleteAll();
+
+    assertThat(priceRepository.findAll()).isEmpty();
+    assertThat(listener.prices).isEmpty();
+    assertThat(dataVersion.current().number()).isEqualTo(version + 1);
+    assertThat(priceBatchWriter.write(List.of(price))).isEqualTo(1);
+  }
+}
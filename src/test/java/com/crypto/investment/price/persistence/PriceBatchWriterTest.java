@@ -0,0 +1,73 @@
+package com.crypto.investment.price.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.price.model.PriceDto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class PriceBatchWriterTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private DataVersion dataVersion;
+  private PriceBatchWriter priceBatchWriter;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    dataVersion = new DataVersion();
+    ObjectProvider<PriceWriteListener> listeners = mock(ObjectProvider.class);
+    when(listeners.orderedStream()).thenReturn(Stream.empty());
+    priceBatchWriter = new PriceBatchWriter(jdbcTemplate, new CoinRepository(), dataVersion,
+        mock(PlatformTransactionManager.class), listeners);
+  }
+
+  @Test
+  void testRepeatedCollisionIsRethrown() {
+    // e.g. an identity sequence behind the ids stored in a persistent database
+    when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+        .thenThrow(new DuplicateKeyException("primary key violation"));
+    long version = dataVersion.current().number();
+
+    assertThatThrownBy(() -> priceBatchWriter.write(List.of(new PriceDto(
+        LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0), "BTC", new BigDecimal("46813.21")))))
+        .isInstanceOf(DuplicateKeyException.class);
+
+    verify(jdbcTemplate, times(PriceBatchWriter.MAX_WRITE_ATTEMPTS))
+        .batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    assertThat(dataVersion.current().number()).isEqualTo(version);
+  }
+
+  @Test
+  void testCollisionIsRetried() {
+    when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+        .thenThrow(new DuplicateKeyException("concurrent write"))
+        .thenReturn(new int[]{0});
+
+    int written = priceBatchWriter.write(List.of(new PriceDto(
+        LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0), "BTC", new BigDecimal("46813.21"))));
+
+    assertThat(written).isZero();
+    verify(jdbcTemplate, times(2))
+        .batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+  }
+}
@@ -2,6 +2,7 @@ package com.crypto.investment.price.persistence;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.crypto.investment.coin.persistence.CoinRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.math.BigDecimal;
@@ -12,11 +13,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
 
 @DataJpaTest
 @ExtendWith(SpringExtension.class)
+@Import(CoinRepository.class)
 public class PriceRepositoryIntegrationTest {
 
   @Autowired
@@ -1,35 +1,53 @@
 package com.crypto.investment.utils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.crypto.investment.coin.persistence.CoinRepository;
 import com.crypto.investment.price.model.PriceDto;
-import com.crypto.investment.price.persistence.Price;
-import com.crypto.investment.price.persistence.PriceRepository;
+import com.crypto.investment.price.persistence.PriceBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32C;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.test.util.ReflectionTestUtils;
 
 class CSVLoaderTest {
 
   @Mock
-  private PriceRepository priceRepository;
+  private PriceBatchWriter priceBatchWriter;
 
   @Mock
   private CoinRepository coinRepository;
@@ -37,6 +55,18 @@ class CSVLoaderTest {
   @Mock
   private ResourcePatternResolver resourcePatternResolver;
 
+  @Mock
+  private IngestLedger ingestLedger;
+
+  @Spy
+  private IngestProgress ingestProgress = new IngestProgress();
+
+  @Mock
+  private PriceSnapshotStore priceSnapshotStore;
+
+  @Spy
+  private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
   @InjectMocks
   private CSVLoader csvLoader;
 
@@ -46,6 +76,7 @@ class CSVLoaderTest {
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(csvLoader, "background", false);
   }
 
   @Test
@@ -88,21 +119,268 @@ class CSVLoaderTest {
     when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
         .thenReturn(new Resource[]{mockResource});
 
+    when(mockResource.getFilename()).thenReturn("BTC_values.csv");
+    when(mockResource.contentLength()).thenReturn((long) csvContent.length());
     when(coinRepository.containsCoin("BTC")).thenReturn(false);
+    when(priceBatchWriter.write(anyList())).thenReturn(1);
+    IngestLedger.Plan plan = new IngestLedger.Plan("BTC_values.csv", csvContent.length(), 0, 0, 0,
+        false, false, new CRC32C());
+    ReflectionTestUtils.setField(csvLoader, "ledgerEnabled", true);
+    when(ingestLedger.isEmpty()).thenReturn(true);
+    when(ingestLedger.plan(mockResource, false)).thenReturn(plan);
 
     ContextRefreshedEvent event = mock(ContextRefreshedEvent.class);
     csvLoader.onApplicationEvent(event);
 
-    ArgumentCaptor<Price> priceCaptor = ArgumentCaptor.forClass(Price.class);
-    verify(priceRepository, times(1)).save(priceCaptor.capture());
-    Price savedPrice = priceCaptor.getValue();
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<PriceDto>> priceCaptor = ArgumentCaptor.forClass(List.class);
+    verify(priceBatchWriter, times(1)).write(priceCaptor.capture());
+    assertThat(priceCaptor.getValue()).hasSize(1);
+    PriceDto savedPrice = priceCaptor.getValue().getFirst();
 
-    assertThat(savedPrice.getCoin()).isEqualTo("BTC");
-    assertThat(savedPrice.getPriceDate()).isEqualTo(
+    assertThat(savedPrice.coin()).isEqualTo("BTC");
+    assertThat(savedPrice.dateTime()).isEqualTo(
         LocalDateTime.of(2022, Month.JANUARY, 14, 16, 0));
-    assertThat(savedPrice.getPrice()).isEqualTo(new BigDecimal("40000.50"));
+    assertThat(savedPrice.price()).isEqualTo(new BigDecimal("40000.50"));
 
     verify(coinRepository, times(1)).addCoin("BTC");
+    assertThat(meterRegistry.get("ingest.rows").counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("ingest.bytes").counter().count())
+        .isEqualTo(csvContent.length());
+    assertThat(meterRegistry.get("ingest.file.duration").tag("file", "BTC_values.csv").timer()
+        .count()).isEqualTo(1);
+    verify(ingestLedger).record(mockResource, plan, 1);
+    verify(priceBatchWriter, never()).replay(any());
+    assertThat(ingestProgress.getStatus()).isEqualTo(IngestProgress.Status.COMPLETED);
+    assertThat(ingestProgress.snapshot().filesDone()).isEqualTo(1);
+  }
+
+  @Test
+  void testOnApplicationEventInBackground() throws Exception {
+    ReflectionTestUtils.setField(csvLoader, "background", true);
+    String csvContent = "timestamp,symbol,price\n" +
+        "1642176000000,BTC,40000.50\n";
+    when(mockResource.exists()).thenReturn(true);
+    when(mockResource.isReadable()).thenReturn(true);
+    when(mockResource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes()));
+    when(mockResource.getFilename()).thenReturn("BTC_values.csv");
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[]{mockResource});
+    when(priceBatchWriter.write(anyList())).thenReturn(1);
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    assertThat(ingestProgress.await(Duration.ofSeconds(10))).isTrue();
+    assertThat(ingestProgress.getStatus()).isEqualTo(IngestProgress.Status.COMPLETED);
+    assertThat(ingestProgress.isCoinReady("btc")).isTrue();
+    verify(priceBatchWriter).write(anyList());
+  }
+
+  @Test
+  void testOnApplicationEventInBackgroundRecordsFailure() throws Exception {
+    ReflectionTestUtils.setField(csvLoader, "background", true);
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenThrow(new IOException("unreadable"));
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    assertThat(ingestProgress.await(Duration.ofSeconds(10))).isTrue();
+    assertThat(ingestProgress.getStatus()).isEqualTo(IngestProgress.Status.FAILED);
+    assertThat(ingestProgress.snapshot().error())
+        .isEqualTo("Failed to load resources from classpath:prices/*.csv");
+  }
+
+  @Test
+  void testOnApplicationEventSkipsUnchangedFiles() throws IOException {
+    when(mockResource.exists()).thenReturn(true);
+    when(mockResource.isReadable()).thenReturn(true);
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[]{mockResource});
+    ReflectionTestUtils.setField(csvLoader, "ledgerEnabled", true);
+    when(ingestLedger.isEmpty()).thenReturn(false);
+    when(ingestLedger.plan(mockResource, false)).thenReturn(
+        new IngestLedger.Plan("BTC_values.csv", 52, 0, 52, 1, true, false, null));
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    verify(mockResource, never()).getInputStream();
+    verify(priceBatchWriter, never()).write(anyList());
+    verify(ingestLedger, never()).record(any(), any(), anyLong());
+    verify(priceBatchWriter).replay(any());
+  }
+
+  @Test
+  void testOnApplicationEventIngestsAppendedRows(@TempDir Path externalDir) throws IOException {
+    String header = "timestamp,symbol,price\n1641009600000,LTC,148.1\n";
+    Path file = Files.writeString(externalDir.resolve("LTC_values.csv"),
+        header + "1641020400000,LTC,148.8\n");
+    FileSystemResource resource = new FileSystemResource(file);
+    ReflectionTestUtils.setField(csvLoader, "externalDir", externalDir.toString());
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[0]);
+    when(resourcePatternResolver.getResources("file:" + externalDir + "/*.csv"))
+        .thenReturn(new Resource[]{resource});
+    when(coinRepository.getCoins()).thenReturn(Set.of("LTC"));
+    IngestLedger.Plan plan = new IngestLedger.Plan(resource.getDescription(), Files.size(file),
+        0, header.length(), 1, false, false, IngestLedger.crc(resource, header.length()));
+    ReflectionTestUtils.setField(csvLoader, "ledgerEnabled", true);
+    when(ingestLedger.isEmpty()).thenReturn(false);
+    when(ingestLedger.plan(resource, true)).thenReturn(plan);
+    when(priceBatchWriter.write(anyList()))
+        .thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<PriceDto>> priceCaptor = ArgumentCaptor.forClass(List.class);
+    verify(priceBatchWriter).write(priceCaptor.capture());
+    assertThat(priceCaptor.getValue()).extracting(PriceDto::price)
+        .containsExactly(new BigDecimal("148.80"));
+    verify(ingestLedger).record(resource, plan, 1);
+    verify(priceBatchWriter).replay(any());
+  }
+
+  @Test
+  void testOnApplicationEventIngestsAllFilesAfterRewrite(@TempDir Path externalDir)
+      throws IOException {
+    Path file = Files.writeString(externalDir.resolve("LTC_values.csv"),
+        "timestamp,symbol,price\n1641009600000,LTC,148.1\n1641020400000,LTC,148.8\n");
+    FileSystemResource resource = new FileSystemResource(file);
+    ReflectionTestUtils.setField(csvLoader, "externalDir", externalDir.toString());
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[0]);
+    when(resourcePatternResolver.getResources("file:" + externalDir + "/*.csv"))
+        .thenReturn(new Resource[]{resource});
+    ReflectionTestUtils.setField(csvLoader, "ledgerEnabled", true);
+    when(ingestLedger.isEmpty()).thenReturn(false);
+    IngestLedger.Plan rewritten = new IngestLedger.Plan(resource.getDescription(),
+        Files.size(file), 0, 0, 0, false, true, new CRC32C());
+    IngestLedger.Plan fresh = new IngestLedger.Plan(resource.getDescription(), Files.size(file),
+        0, 0, 0, false, false, new CRC32C());
+    when(ingestLedger.plan(resource, true)).thenReturn(rewritten, fresh);
+    when(priceBatchWriter.write(anyList()))
+        .thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    InOrder inOrder = inOrder(priceBatchWriter, ingestLedger);
+    inOrder.verify(priceBatchWriter).deleteAll();
+    inOrder.verify(ingestLedger).clear();
+    inOrder.verify(priceBatchWriter).write(anyList());
+    inOrder.verify(ingestLedger).record(resource, fresh, 2);
+    verify(priceBatchWriter, never()).replay(any());
+    assertThat(ingestProgress.isCoinReady("LTC")).isTrue();
+  }
+
+  @Test
+  void testRebuild() throws IOException {
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[0]);
+    ingestProgress.start(List.of());
+    ingestProgress.complete();
+
+    csvLoader.rebuild();
+
+    InOrder inOrder = inOrder(ingestProgress, priceBatchWriter, ingestLedger);
+    inOrder.verify(ingestProgress).reset();
+    inOrder.verify(priceBatchWriter).deleteAll();
+    inOrder.verify(ingestLedger).clear();
+    inOrder.verify(ingestProgress).complete();
+  }
+
+  @Test
+  void testOnApplicationEventWritesSnapshot() throws IOException {
+    String csvContent = "timestamp,symbol,price\n" +
+        "1642176000000,BTC,40000.50\n";
+    when(mockResource.exists()).thenReturn(true);
+    when(mockResource.isReadable()).thenReturn(true);
+    when(mockResource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes()));
+    when(mockResource.getDescription()).thenReturn("BTC_values.csv");
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[]{mockResource});
+    when(priceBatchWriter.write(anyList())).thenReturn(1);
+    when(priceSnapshotStore.isEnabled()).thenReturn(true);
+    when(priceSnapshotStore.load(anyLong(), anyInt())).thenReturn(Optional.empty());
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    long fingerprint = PriceSnapshotStore.fingerprint(List.of(mockResource));
+    verify(priceSnapshotStore).load(fingerprint, 1000);
+    verify(priceBatchWriter).write(anyList());
+    InOrder inOrder = inOrder(priceSnapshotStore, ingestProgress);
+    inOrder.verify(priceSnapshotStore).write(fingerprint);
+    inOrder.verify(ingestProgress).complete();
+  }
+
+  @Test
+  void testOnApplicationEventLoadsSnapshot() throws IOException {
+    when(mockResource.exists()).thenReturn(true);
+    when(mockResource.isReadable()).thenReturn(true);
+    when(mockResource.getDescription()).thenReturn("BTC_values.csv");
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[]{mockResource});
+    List<PriceDto> snapshot = List.of(new PriceDto(LocalDateTime.of(2022, Month.JANUARY, 14, 16, 0),
+        "BTC", new BigDecimal("40000.50")));
+    when(priceSnapshotStore.isEnabled()).thenReturn(true);
+    when(priceSnapshotStore.load(anyLong(), anyInt())).thenReturn(Optional.of(List.of(
+        new PriceSource("BTC_snapshot.bin", 64, consumer -> consumer.accept(snapshot)))));
+    when(priceBatchWriter.write(anyList())).thenReturn(1);
+
+    csvLoader.onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+    verify(mockResource, never()).getInputStream();
+    verify(priceBatchWriter).write(snapshot);
+    verify(priceSnapshotStore, never()).write(anyLong());
+    assertThat(ingestProgress.isCoinReady("BTC")).isTrue();
+  }
+
+  @Test
+  void testStreamFromCSVFileInChunks() throws IOException {
+    String csvContent = "timestamp,symbol,price\n" +
+        "1642176000000,BTC,40000.50\n" +
+        "1642179600000,BTC,40100.00\n" +
+        "1642183200000,BTC,40200.00\n";
+    when(mockResource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes()));
+
+    List<List<PriceDto>> chunks = new ArrayList<>();
+    csvLoader.streamFromCSVFile(mockResource, 2, chunks::add);
+
+    assertThat(chunks).hasSize(2);
+    assertThat(chunks.get(0)).hasSize(2);
+    assertThat(chunks.get(1)).hasSize(1);
+    assertThat(chunks.get(1).getFirst().price()).isEqualTo(new BigDecimal("40200.00"));
+  }
+
+  @Test
+  void testLoadFromCSVFileWithIrregularLayout() throws IOException {
+    String csvContent = "\"timestamp\",\"symbol\",\"price\"\n" +
+        "\"1642176000000\",\"BTC\",\"40000.50\"\n";
+    when(mockResource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes()));
+
+    List<PriceDto> priceDtoList = csvLoader.loadFromCSVFile(mockResource);
+
+    assertThat(priceDtoList).containsExactly(
+        new PriceDto(LocalDateTime.of(2022, Month.JANUARY, 14, 16, 0), "BTC",
+            new BigDecimal("40000.50")));
+  }
+
+  @Test
+  void testLoadAllCSVFromExternalDirectory(@TempDir Path externalDir) throws IOException {
+    Files.writeString(externalDir.resolve("LTC_values.csv"), "timestamp,symbol,price\n" +
+        "1641009600000,LTC,148.1\n" +
+        "1641020400000,LTC,148.8\n" +
+        "1641031200000,LTC,150.2\n");
+    ReflectionTestUtils.setField(csvLoader, "externalDir", externalDir.toString());
+    ReflectionTestUtils.setField(csvLoader, "segmentSize", 40L);
+    when(resourcePatternResolver.getResources("classpath:prices/*.csv"))
+        .thenReturn(new Resource[0]);
+    when(resourcePatternResolver.getResources("file:" + externalDir + "/*.csv"))
+        .thenReturn(new Resource[]{new FileSystemResource(externalDir.resolve("LTC_values.csv"))});
+
+    List<PriceDto> priceDtoList = csvLoader.loadAllCSV();
+
+    assertThat(priceDtoList).extracting(PriceDto::price).containsExactly(
+        new BigDecimal("148.10"), new BigDecimal("148.80"), new BigDecimal("150.20"));
   }
 
   @Test
@@ -0,0 +1,127 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.utils.IngestLedger.Plan;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Import(IngestLedger.class)
+class IngestLedgerTest {
+
+  private static final String CONTENT = "timestamp,symbol,price\n1641009600000,LTC,148.1\n";
+
+  @Autowired
+  private IngestLedger ingestLedger;
+
+  @TempDir
+  private Path dir;
+
+  private Path file;
+  private FileSystemResource resource;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.writeString(dir.resolve("LTC_values.csv"), CONTENT);
+    resource = new FileSystemResource(file);
+  }
+
+  private void ingest(boolean appendable) throws IOException {
+    Plan plan = ingestLedger.plan(resource, appendable);
+    ingestLedger.record(resource, plan, 1);
+  }
+
+  @Test
+  void testPlanNewFile() throws IOException {
+    assertThat(ingestLedger.isEmpty()).isTrue();
+
+    Plan plan = ingestLedger.plan(resource, true);
+
+    assertThat(plan.skip()).isFalse();
+    assertThat(plan.offset()).isZero();
+    assertThat(plan.size()).isEqualTo(CONTENT.length());
+  }
+
+  @Test
+  void testSkipUnchangedFile() throws IOException {
+    ingest(true);
+
+    assertThat(ingestLedger.isEmpty()).isFalse();
+    assertThat(ingestLedger.find(resource.getDescription())).hasValueSatisfying(
+        entry -> assertThat(entry.rows()).isEqualTo(1));
+    assertThat(ingestLedger.plan(resource, true).skip()).isTrue();
+  }
+
+  @Test
+  void testSkipTouchedFileWithSameContent() throws IOException {
+    ingest(true);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(file.toFile().lastModified() + 60_000));
+
+    assertThat(ingestLedger.plan(resource, true).skip()).isTrue();
+    assertThat(ingestLedger.plan(resource, true).skip()).isTrue();
+  }
+
+  @Test
+  void testPlanAppendedRows() throws IOException {
+    ingest(true);
+    Files.writeString(file, "1641020400000,LTC,148.8\n", StandardOpenOption.APPEND);
+
+    Plan plan = ingestLedger.plan(resource, true);
+
+    assertThat(plan.skip()).isFalse();
+    assertThat(plan.offset()).isEqualTo(CONTENT.length());
+    assertThat(plan.previousRows()).isEqualTo(1);
+    assertThat(plan.rewritten()).isFalse();
+
+    ingestLedger.record(resource, plan, 1);
+    long checksum = IngestLedger.checksum(resource, Files.size(file));
+    assertThat(ingestLedger.find(resource.getDescription())).hasValueSatisfying(entry -> {
+      assertThat(entry.rows()).isEqualTo(2);
+      assertThat(entry.checksum()).isEqualTo(checksum);
+    });
+  }
+
+  @Test
+  void testPlanAppendedRowsOfFileWhichCannotBeAppended() throws IOException {
+    ingest(false);
+    Files.writeString(file, "1641020400000,LTC,148.8\n", StandardOpenOption.APPEND);
+
+    Plan plan = ingestLedger.plan(resource, false);
+
+    assertThat(plan.offset()).isZero();
+    assertThat(plan.previousRows()).isZero();
+    assertThat(plan.rewritten()).isFalse();
+  }
+
+  @Test
+  void testPlanRewrittenFile() throws IOException {
+    ingest(true);
+    Files.writeString(file, CONTENT.replace("148.1", "149.1") + "1641020400000,LTC,148.8\n");
+
+    Plan plan = ingestLedger.plan(resource, true);
+
+    assertThat(plan.skip()).isFalse();
+    assertThat(plan.offset()).isZero();
+    assertThat(plan.previousRows()).isZero();
+    assertThat(plan.rewritten()).isTrue();
+
+    ingestLedger.clear();
+
+    assertThat(ingestLedger.isEmpty()).isTrue();
+    assertThat(ingestLedger.plan(resource, true).rewritten()).isFalse();
+  }
+}
@@ -0,0 +1,111 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.crypto.investment.exception.CSVImportException;
+import com.crypto.investment.exception.CSVParsingException;
+import com.crypto.investment.price.model.PriceDto;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class IngestPipelineTest {
+
+  private final PriceDto price = new PriceDto(LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0),
+      "BTC", new BigDecimal("46813.21"));
+
+  @Test
+  void testRunWritesAllChunks() {
+    IngestPipeline<Integer> pipeline = new IngestPipeline<>(3, 2, 1);
+    AtomicInteger written = new AtomicInteger();
+
+    long rows = pipeline.run(List.of(10, 20, 30), (chunks, consumer) -> {
+      for (int i = 0; i < chunks; i++) {
+        consumer.accept(List.of(price, price));
+      }
+    }, chunk -> {
+      written.addAndGet(chunk.size());
+      return chunk.size();
+    });
+
+    assertThat(rows).isEqualTo(120);
+    assertThat(written.get()).isEqualTo(120);
+    assertThat(pipeline.getParsedRows()).isEqualTo(120);
+    assertThat(pipeline.getQueueDepth()).isZero();
+  }
+
+  @Test
+  void testRunReportsSourcesOnceWritten() {
+    IngestPipeline<Integer> pipeline = new IngestPipeline<>(2, 2, 1);
+    Map<Integer, Integer> writtenAtDone = new ConcurrentHashMap<>();
+    Map<Integer, AtomicInteger> written = Map.of(3, new AtomicInteger(), 5, new AtomicInteger());
+
+    pipeline.run(List.of(3, 5), (chunks, consumer) -> {
+      for (int i = 0; i < chunks; i++) {
+        consumer.accept(List.of(new PriceDto(price.dateTime(), "C" + chunks, price.price())));
+      }
+    }, chunk -> {
+      written.get(Integer.parseInt(chunk.getFirst().coin().substring(1))).incrementAndGet();
+      return chunk.size();
+    }, source -> writtenAtDone.put(source, written.get(source).get()));
+
+    assertThat(writtenAtDone).containsExactlyInAnyOrderEntriesOf(Map.of(3, 3, 5, 5));
+  }
+
+  @Test
+  void testRunOnVirtualThreads() {
+    IngestPipeline<Integer> pipeline = new IngestPipeline<>(2, 2, 1, true);
+    AtomicBoolean virtual = new AtomicBoolean(true);
+
+    long rows = pipeline.run(List.of(5, 5), (chunks, consumer) -> {
+      virtual.compareAndSet(true, Thread.currentThread().isVirtual());
+      for (int i = 0; i < chunks; i++) {
+        consumer.accept(List.of(price));
+      }
+    }, chunk -> {
+      virtual.compareAndSet(true, Thread.currentThread().isVirtual());
+      return chunk.size();
+    });
+
+    assertThat(rows).isEqualTo(10);
+    assertThat(virtual.get()).isTrue();
+  }
+
+  @Test
+  void testRunPropagatesParsingException() {
+    IngestPipeline<Integer> pipeline = new IngestPipeline<>(2, 1, 1);
+
+    assertThatThrownBy(() -> pipeline.run(List.of(1, 2, 3, 4), (source, consumer) -> {
+      if (source == 3) {
+        throw new CSVParsingException("CSV data is failed to parse: broken");
+      }
+      for (int i = 0; i < 100; i++) {
+        consumer.accept(List.of(price));
+      }
+    }, List::size))
+        .isInstanceOf(CSVParsingException.class)
+        .hasMessage("CSV data is failed to parse: broken");
+  }
+
+  @Test
+  void testRunWrapsWriterFailure() {
+    IngestPipeline<Integer> pipeline = new IngestPipeline<>(2, 2, 1);
+
+    assertThatThrownBy(() -> pipeline.run(List.of(1, 2), (source, consumer) -> {
+      for (int i = 0; i < 100; i++) {
+        consumer.accept(List.of(price));
+      }
+    }, chunk -> {
+      throw new IllegalStateException("database is down");
+    }))
+        .isInstanceOf(CSVImportException.class)
+        .hasMessage("CSV import is failed: database is down");
+  }
+}
@@ -0,0 +1,159 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.utils.IngestProgress.Snapshot;
+import com.crypto.investment.utils.IngestProgress.Status;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IngestProgressTest {
+
+  private final PriceSource btc = new PriceSource("BTC_values.csv", 100, consumer -> {
+  });
+  private final PriceSource ethFirstHalf = new PriceSource("ETH_values.csv", 50, consumer -> {
+  });
+  private final PriceSource ethSecondHalf = new PriceSource("ETH_values.csv", 50, consumer -> {
+  });
+
+  private IngestProgress progress;
+
+  @BeforeEach
+  void setUp() {
+    progress = new IngestProgress();
+  }
+
+  private static List<PriceDto> chunk(String... coins) {
+    LocalDateTime date = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+    return Arrays.stream(coins)
+        .map(coin -> new PriceDto(date, coin, new BigDecimal("1.00"))).toList();
+  }
+
+  @Test
+  void testCoinIsReadyOnceItsFileIsDone() {
+    progress.start(List.of(btc, ethFirstHalf, ethSecondHalf));
+
+    assertThat(progress.getStatus()).isEqualTo(Status.LOADING);
+    assertThat(progress.isCoinReady("BTC")).isFalse();
+
+    progress.onSourceDone(btc);
+    progress.onSourceDone(ethFirstHalf);
+
+    assertThat(progress.isCoinReady("btc")).isTrue();
+    assertThat(progress.isCoinReady("ETH")).isFalse();
+    assertThat(progress.isCoinReady("XRP")).isFalse();
+
+    progress.onSourceDone(ethSecondHalf);
+    Snapshot snapshot = progress.snapshot();
+
+    assertThat(progress.isCoinReady("ETH")).isTrue();
+    assertThat(snapshot.filesDone()).isEqualTo(2);
+    assertThat(snapshot.bytesDone()).isEqualTo(200);
+    assertThat(snapshot.etaMillis()).isZero();
+  }
+
+  @Test
+  void testCoinIsNotReadyWhileAnotherFileContainsIt() {
+    progress.start(List.of(btc, ethFirstHalf));
+    progress.onSourceDone(ethFirstHalf);
+    assertThat(progress.isCoinReady("ETH")).isTrue();
+
+    progress.onParsed(btc, chunk("BTC", "ETH"));
+
+    assertThat(progress.isCoinReady("ETH")).isFalse();
+    assertThat(progress.snapshot().loadingCoins()).containsExactly("BTC", "ETH");
+  }
+
+  @Test
+  void testNoCoinIsReadyWhileAFileWithoutCoinIsLoading() {
+    PriceSource other = new PriceSource("prices.csv", 10, consumer -> {
+    });
+    progress.start(List.of(btc, other));
+
+    progress.onSourceDone(btc);
+
+    assertThat(progress.isCoinReady("BTC")).isFalse();
+  }
+
+  @Test
+  void testReplayedCoinIsReadyOnceReplayed() throws InterruptedException {
+    progress.start(List.of(btc), List.of("BTC", "XRP"));
+    progress.onSourceDone(btc);
+
+    assertThat(progress.isCoinReady("BTC")).isFalse();
+    assertThat(progress.isCoinReady("XRP")).isFalse();
+
+    progress.onCoinReplayed("XRP");
+
+    assertThat(progress.isCoinReady("XRP")).isTrue();
+    assertThat(progress.isCoinReady("BTC")).isFalse();
+    assertThat(progress.snapshot().loadingCoins()).containsExactly("BTC");
+    assertThat(progress.await(Duration.ZERO)).isFalse();
+
+    progress.onCoinReplayed("BTC");
+
+    assertThat(progress.isCoinReady("BTC")).isTrue();
+    assertThat(progress.snapshot().readyCoins()).containsExactly("BTC", "XRP");
+  }
+
+  @Test
+  void testReset() throws InterruptedException {
+    progress.start(List.of(btc));
+    progress.onWritten(10);
+    progress.onSourceDone(btc);
+    progress.complete();
+
+    progress.reset();
+    Snapshot snapshot = progress.snapshot();
+
+    assertThat(progress.getStatus()).isEqualTo(Status.PENDING);
+    assertThat(progress.isCoinReady("BTC")).isFalse();
+    assertThat(progress.await(Duration.ZERO)).isFalse();
+    assertThat(snapshot.filesTotal()).isZero();
+    assertThat(snapshot.rows()).isZero();
+
+    progress.start(List.of(btc));
+    progress.onSourceDone(btc);
+
+    assertThat(progress.isCoinReady("BTC")).isTrue();
+  }
+
+  @Test
+  void testRetryAfterFollowsEstimate() {
+    progress.start(List.of(btc, ethFirstHalf));
+    assertThat(progress.getRetryAfterSeconds()).isEqualTo(IngestProgress.MAX_RETRY_AFTER_SECONDS);
+
+    progress.onWritten(10);
+    progress.onSourceDone(btc);
+
+    assertThat(progress.getRetryAfterSeconds()).isBetween(1L,
+        IngestProgress.MAX_RETRY_AFTER_SECONDS);
+    assertThat(progress.snapshot().rows()).isEqualTo(10);
+  }
+
+  @Test
+  void testFailureFreezesReadyCoins() {
+    progress.start(List.of(btc, ethFirstHalf, ethSecondHalf));
+    progress.onSourceDone(btc);
+    progress.onSourceDone(ethFirstHalf);
+
+    progress.fail(new IllegalStateException("broken"));
+    progress.onSourceDone(ethSecondHalf);
+    Snapshot snapshot = progress.snapshot();
+
+    assertThat(progress.isDone()).isTrue();
+    assertThat(progress.isCompleted()).isFalse();
+    assertThat(progress.isCoinReady("BTC")).isTrue();
+    assertThat(progress.isCoinReady("ETH")).isFalse();
+    assertThat(snapshot.readyCoins()).containsExactly("BTC");
+    assertThat(snapshot.loadingCoins()).containsExactly("ETH");
+    assertThat(snapshot.error()).isEqualTo("broken");
+  }
+}
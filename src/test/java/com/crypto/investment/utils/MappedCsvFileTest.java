@@ -0,0 +1,76 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.utils.MappedCsvFile.Segment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedCsvFileTest {
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void testSplitAndParse() throws IOException {
+    StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+    for (int i = 0; i < 100; i++) {
+      content.append(1641009600000L + i).append(",BTC,").append(46000 + i).append(".21\n");
+    }
+    Path file = Files.writeString(tempDir.resolve("BTC_values.csv"), content);
+
+    List<Segment> segments = MappedCsvFile.split(file, 100);
+    List<Long> timestamps = new ArrayList<>();
+    for (Segment segment : segments) {
+      MappedCsvFile.parse(segment, new PriceLineParser(),
+          (epochMillis, coin, unscaledPrice, scale) -> timestamps.add(epochMillis));
+    }
+
+    assertThat(segments).hasSizeGreaterThan(1);
+    assertThat(segments.getFirst().start()).isZero();
+    assertThat(segments.getLast().end()).isEqualTo(Files.size(file));
+    assertThat(timestamps).hasSize(100);
+    assertThat(timestamps).isSorted().doesNotHaveDuplicates();
+  }
+
+  @Test
+  void testHasStandardHeader() throws IOException {
+    Path standard = Files.writeString(tempDir.resolve("BTC_values.csv"),
+        "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+    Path irregular = Files.writeString(tempDir.resolve("ETH_values.csv"),
+        "symbol;timestamp;price\n");
+
+    assertThat(MappedCsvFile.hasStandardHeader(standard)).isTrue();
+    assertThat(MappedCsvFile.hasStandardHeader(irregular)).isFalse();
+  }
+
+  @Test
+  void testSplitRange() throws IOException {
+    String header = "timestamp,symbol,price\n";
+    Path file = Files.writeString(tempDir.resolve("BTC_values.csv"),
+        header + "1641009600000,BTC,46813.21\n1641013200000,BTC,46979.61\n");
+
+    List<Segment> segments = MappedCsvFile.split(file, 1024, header.length(), Files.size(file));
+    List<Long> timestamps = new ArrayList<>();
+    MappedCsvFile.parse(segments.getFirst(), new PriceLineParser(),
+        (epochMillis, coin, unscaledPrice, scale) -> timestamps.add(epochMillis));
+
+    assertThat(segments).containsExactly(new Segment(file, header.length(), Files.size(file)));
+    assertThat(timestamps).containsExactly(1641009600000L, 1641013200000L);
+  }
+
+  @Test
+  void testLastLineEnd() throws IOException {
+    String complete = "timestamp,symbol,price\n1641009600000,BTC,46813.21\n";
+    Path file = Files.writeString(tempDir.resolve("BTC_values.csv"), complete + "1641013200000,BT");
+
+    assertThat(MappedCsvFile.lastLineEnd(file, 0, Files.size(file))).isEqualTo(complete.length());
+    assertThat(MappedCsvFile.lastLineEnd(file, complete.length(), Files.size(file)))
+        .isEqualTo(complete.length());
+  }
+}
@@ -0,0 +1,224 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.exception.CSVImportException;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.PriceBatchWriter;
+import com.crypto.investment.utils.IngestLedger.Entry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PriceDirectoryWatcherTest {
+
+  private static final String HEADER = "timestamp,symbol,price\n";
+  private static final String ROW_1 = "1641009600000,LTC,148.1\n";
+  private static final String ROW_2 = "1641020400000,LTC,148.8\n";
+  private static final String ROW_3 = "1641031200000,LTC,150.2\n";
+
+  @TempDir
+  private Path dir;
+
+  private final List<PriceDto> written = new ArrayList<>();
+  private PriceBatchWriter priceBatchWriter;
+  private IngestLedger ingestLedger;
+  private CSVLoader csvLoader;
+  private PriceDirectoryWatcher watcher;
+
+  @BeforeEach
+  void setUp() {
+    priceBatchWriter = mock(PriceBatchWriter.class);
+    when(priceBatchWriter.write(anyList())).thenAnswer(invocation -> {
+      List<PriceDto> chunk = invocation.getArgument(0);
+      synchronized (written) {
+        written.addAll(chunk);
+      }
+      return chunk.size();
+    });
+    ingestLedger = mock(IngestLedger.class);
+    when(ingestLedger.find(anyString())).thenReturn(Optional.empty());
+    IngestProgress ingestProgress = new IngestProgress();
+    ingestProgress.complete();
+    csvLoader = spy(new CSVLoader(null, new CoinRepository(), null, null, null, null,
+        new SimpleMeterRegistry()));
+    doNothing().when(csvLoader).rebuild();
+    watcher = new PriceDirectoryWatcher(csvLoader, priceBatchWriter, ingestLedger,
+        ingestProgress, new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void tearDown() {
+    watcher.stop();
+  }
+
+  private List<BigDecimal> writtenPrices() {
+    synchronized (written) {
+      return written.stream().map(PriceDto::price).toList();
+    }
+  }
+
+  private Entry lastRecordedEntry() {
+    ArgumentCaptor<Entry> entry = ArgumentCaptor.forClass(Entry.class);
+    verify(ingestLedger, atLeastOnce()).record(anyString(), entry.capture());
+    return entry.getValue();
+  }
+
+  @Test
+  void testTailIngestsOnlyAppendedCompleteLines() throws IOException {
+    Path file = Files.writeString(dir.resolve("LTC_values.csv"), HEADER + ROW_1);
+
+    assertThat(watcher.tail(file)).isEqualTo(1);
+    assertThat(watcher.tail(file)).isZero();
+
+    Files.writeString(file, ROW_2 + ROW_3.substring(0, 10), StandardOpenOption.APPEND);
+    assertThat(watcher.tail(file)).isEqualTo(1);
+
+    Files.writeString(file, ROW_3.substring(10), StandardOpenOption.APPEND);
+    assertThat(watcher.tail(file)).isEqualTo(1);
+
+    assertThat(writtenPrices()).containsExactly(new BigDecimal("148.10"),
+        new BigDecimal("148.80"), new BigDecimal("150.20"));
+    Entry entry = lastRecordedEntry();
+    assertThat(entry.size()).isEqualTo(Files.size(file));
+    assertThat(entry.rows()).isEqualTo(3);
+    assertThat(entry.checksum()).isEqualTo(
+        IngestLedger.checksum(new FileSystemResource(file), Files.size(file)));
+  }
+
+  @Test
+  void testTailRetriesOnlyTheFailedSegment() throws IOException {
+    ReflectionTestUtils.setField(watcher, "segmentSize", 1L);
+    Path file = Files.writeString(dir.resolve("LTC_values.csv"), HEADER + ROW_1 + ROW_2);
+    when(priceBatchWriter.write(anyList())).thenAnswer(invocation -> {
+      List<PriceDto> chunk = invocation.getArgument(0);
+      synchronized (written) {
+        written.addAll(chunk);
+      }
+      return chunk.size();
+    }).thenThrow(new CSVImportException("database is down")).thenAnswer(invocation -> {
+      List<PriceDto> chunk = invocation.getArgument(0);
+      synchronized (written) {
+        written.addAll(chunk);
+      }
+      return chunk.size();
+    });
+
+    assertThatThrownBy(() -> watcher.tail(file)).isInstanceOf(CSVImportException.class);
+    assertThat(lastRecordedEntry().size()).isEqualTo(HEADER.length() + ROW_1.length());
+    assertThat(watcher.tail(file)).isEqualTo(1);
+
+    assertThat(writtenPrices()).containsExactly(new BigDecimal("148.10"),
+        new BigDecimal("148.80"));
+    Entry entry = lastRecordedEntry();
+    assertThat(entry.size()).isEqualTo(Files.size(file));
+    assertThat(entry.rows()).isEqualTo(2);
+    assertThat(entry.checksum()).isEqualTo(
+        IngestLedger.checksum(new FileSystemResource(file), Files.size(file)));
+  }
+
+  @Test
+  void testScanRetriesFileAfterFailedWrite() throws IOException {
+    Path file = Files.writeString(dir.resolve("LTC_values.csv"), HEADER + ROW_1);
+    when(priceBatchWriter.write(anyList()))
+        .thenThrow(new DataAccessResourceFailureException("database is down"))
+        .thenAnswer(invocation -> {
+          List<PriceDto> chunk = invocation.getArgument(0);
+          synchronized (written) {
+            written.addAll(chunk);
+          }
+          return chunk.size();
+        });
+
+    watcher.scan(dir);
+    watcher.scan(dir);
+
+    assertThat(writtenPrices()).isEmpty();
+    verify(priceBatchWriter, times(1)).write(anyList());
+
+    Files.writeString(file, ROW_2, StandardOpenOption.APPEND);
+    watcher.scan(dir);
+
+    assertThat(writtenPrices()).containsExactly(new BigDecimal("148.10"),
+        new BigDecimal("148.80"));
+  }
+
+  @Test
+  void testTailResumesFromLedger() throws IOException {
+    Path file = Files.writeString(dir.resolve("LTC_values.csv"), HEADER + ROW_1);
+    FileSystemResource resource = new FileSystemResource(file);
+    long offset = Files.size(file);
+    when(ingestLedger.find(IngestLedger.sourceOf(resource))).thenReturn(Optional.of(
+        new Entry(offset, 0, IngestLedger.checksum(resource, offset), 1)));
+    Files.writeString(file, ROW_2, StandardOpenOption.APPEND);
+
+    assertThat(watcher.tail(file)).isEqualTo(1);
+
+    assertThat(writtenPrices()).containsExactly(new BigDecimal("148.80"));
+    assertThat(lastRecordedEntry().rows()).isEqualTo(2);
+  }
+
+  @Test
+  void testTailRebuildsAfterRewrite() throws IOException {
+    Path file = Files.writeString(dir.resolve("LTC_values.csv"), HEADER + ROW_1);
+    FileSystemResource resource = new FileSystemResource(file);
+    when(ingestLedger.find(IngestLedger.sourceOf(resource))).thenReturn(Optional.of(
+        new Entry(HEADER.length(), 0, 42, 0)));
+
+    assertThat(watcher.tail(file)).isEqualTo(1);
+    verify(csvLoader).rebuild();
+
+    Files.writeString(file, HEADER + ROW_2.substring(0, 5));
+    assertThat(watcher.tail(file)).isZero();
+    verify(csvLoader, times(2)).rebuild();
+    Files.writeString(file, ROW_2.substring(5), StandardOpenOption.APPEND);
+    assertThat(watcher.tail(file)).isEqualTo(1);
+
+    assertThat(writtenPrices()).containsExactly(new BigDecimal("148.10"),
+        new BigDecimal("148.80"));
+  }
+
+  @Test
+  void testWatchPicksUpNewFiles() throws IOException {
+    ReflectionTestUtils.setField(watcher, "watchDir", dir.toString());
+    ReflectionTestUtils.setField(watcher, "pollInterval", 100L);
+    watcher.start();
+
+    Files.writeString(dir.resolve("LTC_values.csv"), HEADER + ROW_1 + ROW_2);
+
+    verify(ingestLedger, timeout(10_000)).record(anyString(),
+        eq(new Entry(HEADER.length() + ROW_1.length() + ROW_2.length(),
+            Files.getLastModifiedTime(dir.resolve("LTC_values.csv")).toMillis(),
+            IngestLedger.checksum(new FileSystemResource(dir.resolve("LTC_values.csv")),
+                HEADER.length() + ROW_1.length() + ROW_2.length()), 2)));
+    assertThat(writtenPrices()).containsExactly(new BigDecimal("148.10"),
+        new BigDecimal("148.80"));
+  }
+}
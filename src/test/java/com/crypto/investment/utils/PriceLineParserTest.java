@@ -0,0 +1,95 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.crypto.investment.exception.CSVParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PriceLineParserTest {
+
+  private record Row(long epochMillis, String coin, BigDecimal price) {
+
+  }
+
+  private List<Row> parse(PriceLineParser parser, String content) throws IOException {
+    List<Row> rows = new ArrayList<>();
+    parser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)),
+        (epochMillis, coin, unscaledPrice, scale) -> rows.add(
+            new Row(epochMillis, coin, BigDecimal.valueOf(unscaledPrice, scale))));
+    return rows;
+  }
+
+  @Test
+  void testParse() throws IOException {
+    List<Row> rows = parse(new PriceLineParser(), "timestamp,symbol,price\r\n" +
+        "1641009600000,BTC,46813.21\r\n" +
+        "\r\n" +
+        "1641020400000,DOGE,0.1702\r\n" +
+        "1641031200000,BTC,47143");
+
+    assertThat(rows).containsExactly(
+        new Row(1641009600000L, "BTC", new BigDecimal("46813.21")),
+        new Row(1641020400000L, "DOGE", new BigDecimal("0.1702")),
+        new Row(1641031200000L, "BTC", new BigDecimal("47143")));
+  }
+
+  @Test
+  void testParseInternsSymbols() throws IOException {
+    String known = new String("BTC");
+    List<Row> rows = parse(new PriceLineParser(Set.of(known)), "timestamp,symbol,price\n" +
+        "1641009600000,BTC,46813.21\n" +
+        "1641020400000,ETH,3715.32\n" +
+        "1641031200000,ETH,3718.67\n");
+
+    assertThat(rows.get(0).coin()).isSameAs(known);
+    assertThat(rows.get(1).coin()).isSameAs(rows.get(2).coin());
+  }
+
+  @Test
+  void testParseLinesLongerThanBuffer() throws IOException {
+    StringBuilder content = new StringBuilder("timestamp,symbol,price\n");
+    for (int i = 0; i < 10_000; i++) {
+      content.append(1641009600000L + i).append(",BTC,").append(i).append(".5\n");
+    }
+
+    List<Row> rows = parse(new PriceLineParser(), content.toString());
+
+    assertThat(rows).hasSize(10_000);
+    assertThat(rows.getLast()).isEqualTo(
+        new Row(1641009609999L, "BTC", new BigDecimal("9999.5")));
+  }
+
+  @Test
+  void testParseMalformedRow() {
+    assertThatThrownBy(() -> parse(new PriceLineParser(), "timestamp,symbol,price\n" +
+        "1641009600000,BTC,4681x.21\n"))
+        .isInstanceOf(CSVParsingException.class)
+        .hasMessage("CSV data is failed to parse: malformed row '1641009600000,BTC,4681x.21'");
+  }
+
+  @Test
+  void testParseOversizedTimestamp() {
+    assertThatThrownBy(() -> parse(new PriceLineParser(), "timestamp,symbol,price\n" +
+        "99999999999999999999,BTC,46813.21\n"))
+        .isInstanceOf(CSVParsingException.class)
+        .hasMessage(
+            "CSV data is failed to parse: malformed row '99999999999999999999,BTC,46813.21'");
+  }
+
+  @Test
+  void testHasStandardHeader() {
+    byte[] standard = "timestamp,symbol,price\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] quoted = "\"timestamp\",\"symbol\",\"price\"\n".getBytes(StandardCharsets.US_ASCII);
+
+    assertThat(PriceLineParser.hasStandardHeader(standard, standard.length)).isTrue();
+    assertThat(PriceLineParser.hasStandardHeader(quoted, quoted.length)).isFalse();
+  }
+}
@@ -0,0 +1,161 @@
+package com.crypto.investment.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.crypto.investment.coin.persistence.CoinRepository;
+import com.crypto.investment.price.model.PriceDto;
+import com.crypto.investment.price.persistence.PriceBatchWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Import({PriceSnapshotStore.class, CoinRepository.class})
+class PriceSnapshotStoreTest {
+
+  private static final long FINGERPRINT = 42;
+  private static final LocalDateTime START = LocalDateTime.of(2022, Month.JANUARY, 1, 4, 0);
+
+  @Autowired
+  private PriceSnapshotStore priceSnapshotStore;
+
+  @Autowired
+  private CoinRepository coinRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @TempDir
+  private Path dir;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(priceSnapshotStore, "snapshotDir", dir.toString());
+  }
+
+  private void insert(String coin, LocalDateTime dateTime, String price) {
+    short id = coinRepository.addCoin(coin);
+    jdbcTemplate.update(PriceBatchWriter.INSERT_PRICE, Timestamp.valueOf(dateTime),
+        new PriceDto(dateTime, coin, new BigDecimal(price)).fixedPointPrice(), id);
+  }
+
+  private List<PriceDto> loadAll(Optional<List<PriceSource>> sources) {
+    List<PriceDto> prices = new ArrayList<>();
+    sources.orElseThrow().forEach(source -> source.parse(prices::addAll));
+    return prices;
+  }
+
+  @Test
+  void testWriteAndLoad() throws IOException {
+    insert("BTC", START, "46813.21");
+    insert("BTC", START.plusHours(3), "46979.61");
+    insert("BTC", START.plusHours(1), "46700.1");
+    insert("XRP", START, "0.8298");
+
+    assertThat(priceSnapshotStore.write(FINGERPRINT)).isEqualTo(4);
+
+    assertThat(dir.resolve("BTC_snapshot.bin")).exists();
+    assertThat(dir.resolve("XRP_snapshot.bin")).exists();
+    List<PriceDto> prices = loadAll(priceSnapshotStore.load(FINGERPRINT, 2));
+    assertThat(prices).containsExactlyInAnyOrder(
+        new PriceDto(START, "BTC", new BigDecimal("46813.21")),
+        new PriceDto(START.plusHours(1), "BTC", new BigDecimal("46700.1")),
+        new PriceDto(START.plusHours(3), "BTC", new BigDecimal("46979.61")),
+        new PriceDto(START, "XRP", new BigDecimal("0.8298")));
+  }
+
+  @Test
+  void testLoadSplitsIntoChunks() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      insert("ETH", START.plusHours(i), "3715.32");
+    }
+    priceSnapshotStore.write(FINGERPRINT);
+
+    List<Integer> chunkSizes = new ArrayList<>();
+    priceSnapshotStore.load(FINGERPRINT, 2).orElseThrow()
+        .forEach(source -> source.parse(chunk -> chunkSizes.add(chunk.size())));
+
+    assertThat(chunkSizes).containsExactly(2, 2, 1);
+  }
+
+  @Test
+  void testStaleSnapshotIsNotLoaded() throws IOException {
+    insert("BTC", START, "46813.21");
+    priceSnapshotStore.write(FINGERPRINT);
+
+    assertThat(priceSnapshotStore.load(FINGERPRINT + 1, 10)).isEmpty();
+  }
+
+  @Test
+  void testIncompleteSnapshotIsNotLoaded() throws IOException {
+    insert("BTC", START, "46813.21");
+    insert("XRP", START, "0.8298");
+    priceSnapshotStore.write(FINGERPRINT);
+
+    Files.delete(dir.resolve("XRP_snapshot.bin"));
+
+    assertThat(priceSnapshotStore.load(FINGERPRINT, 10)).isEmpty();
+  }
+
+  @Test
+  void testCorruptSnapshotIsNotLoaded() throws IOException {
+    insert("BTC", START, "46813.21");
+    insert("BTC", START.plusHours(1), "46700.1");
+    priceSnapshotStore.write(FINGERPRINT);
+    Path file = dir.resolve("BTC_snapshot.bin");
+    byte[] content = Files.readAllBytes(file);
+    content[content.length - 1] ^= 1;
+    Files.write(file, content);
+
+    assertThat(priceSnapshotStore.load(FINGERPRINT, 10)).isEmpty();
+  }
+
+  @Test
+  void testDisabledWithoutDirectory() {
+    ReflectionTestUtils.setField(priceSnapshotStore, "snapshotDir", "");
+
+    assertThat(priceSnapshotStore.isEnabled()).isFalse();
+    assertThat(priceSnapshotStore.load(FINGERPRINT, 10)).isEmpty();
+  }
+
+  @Test
+  void testFingerprintChangesWithTheFiles() throws IOException {
+    Path file = Files.writeString(dir.resolve("BTC_values.csv"), "timestamp,symbol,price\n");
+    List<Resource> resources = List.of(new FileSystemResource(file));
+    long fingerprint = PriceSnapshotStore.fingerprint(resources);
+
+    assertThat(PriceSnapshotStore.fingerprint(resources)).isEqualTo(fingerprint);
+    Files.writeString(file, "1641009600000,BTC,46813.21\n", StandardOpenOption.APPEND);
+    assertThat(PriceSnapshotStore.fingerprint(resources)).isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  void testZigzag() {
+    for (long value : new long[]{0, 1, -1, 3_600_000, -123_456_789, Long.MAX_VALUE,
+        Long.MIN_VALUE}) {
+      assertThat(PriceSnapshotStore.zigzagDecode(PriceSnapshotStore.zigzagEncode(value)))
+          .isEqualTo(value);
+    }
+  }
+}